@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs JMH benchmarks once per thread count.
+ *
+ * Thread counts are comma separated in system property {@value #THREADS_KEY} (default {@value #DEFAULT_THREADS}).
+ * Arguments are regular JMH command line options, e.g. benchmark regex, -rf json -rff result.json.
+ */
+public class BenchmarkMain {
+  static final String THREADS_KEY = "benchmark.threads";
+  static final String DEFAULT_THREADS = "1,4,8";
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cmdOptions = new CommandLineOptions(args);
+    for (String threads : System.getProperty(THREADS_KEY, DEFAULT_THREADS).split(",")) {
+      new Runner(new OptionsBuilder().parent(cmdOptions)
+                                     .threads(Integer.parseInt(threads.trim()))
+                                     .build()).run();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.RandomStringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of Crypto.encrypt and Crypto.decrypt per version and plaintext size.
+ * Use {@link BenchmarkMain} to run it across multiple thread counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class CryptoBenchmark {
+  private static final String PASSPHRASE = "test1234";
+
+  @Param({ "1.0", "1.1", "2.0", "3.0" })
+  private String version;
+
+  @Param({ "16", "256", "4096" })
+  private int plaintextSize;
+
+  private ICrypto crypto;
+  private String plaintext;
+  private String cipheredText;
+  private Version cryptoVersion;
+
+  @Setup
+  public void setup() {
+    crypto = new Crypto();
+    cryptoVersion = Version.fromVerString(version);
+    plaintext = RandomStringUtils.randomAlphanumeric(plaintextSize);
+    cipheredText = crypto.encrypt(plaintext, PASSPHRASE, cryptoVersion);
+  }
+
+  @Benchmark
+  public String encrypt() {
+    return crypto.encrypt(plaintext, PASSPHRASE, cryptoVersion);
+  }
+
+  @Benchmark
+  public String decrypt() {
+    return crypto.decrypt(cipheredText, PASSPHRASE);
+  }
+}
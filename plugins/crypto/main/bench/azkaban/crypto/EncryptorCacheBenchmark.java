@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded throughput benchmark of Crypto.decrypt with encryptor cache on and off.
+ *
+ * usage: EncryptorCacheBenchmark [threads] [seconds per run]
+ */
+public class EncryptorCacheBenchmark {
+  private static final String PASSPHRASE = "test1234";
+  private static final String PLAINTEXT = "test_plaintext";
+
+  public static void main(String[] args) throws Exception {
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+    int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+    System.out.println(String.format("%-8s %-10s %8s %15s", "version", "cache", "threads", "decrypts/sec"));
+    for (Version ver : Version.values()) {
+      for (boolean enabled : new boolean[] { false, true }) {
+        EncryptorCache cache = enabled ? new EncryptorCache(true, 16L, 3600L) : EncryptorCache.disabled();
+        double throughput = run(new Crypto(cache), ver, threads, seconds);
+        System.out.println(String.format("%-8s %-10s %8d %15.1f", ver.versionStr(), enabled ? "on" : "off",
+                                         threads, throughput));
+      }
+    }
+  }
+
+  private static double run(final ICrypto crypto, Version ver, int threads, int seconds) throws Exception {
+    final String cipheredText = crypto.encrypt(PLAINTEXT, PASSPHRASE, ver);
+
+    //Warm up
+    for (int i = 0; i < 100; i++) {
+      crypto.decrypt(cipheredText, PASSPHRASE);
+    }
+
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Long>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(new Callable<Long>() {
+          @Override
+          public Long call() throws Exception {
+            long count = 0L;
+            while (System.nanoTime() < deadline) {
+              if (!PLAINTEXT.equals(crypto.decrypt(cipheredText, PASSPHRASE))) {
+                throw new IllegalStateException("Decrypted text does not match.");
+              }
+              count++;
+            }
+            return count;
+          }
+        }));
+      }
+
+      long total = 0L;
+      for (Future<Long> future : futures) {
+        total += future.get();
+      }
+      return (double) total / seconds;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
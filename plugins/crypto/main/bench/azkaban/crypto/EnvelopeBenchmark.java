@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * JMH benchmark of the Base64(JSON) envelope alone, without any cipher work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class EnvelopeBenchmark {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Param({ "16", "256", "4096" })
+  private int payloadSize;
+
+  private String json;
+  private String encoded;
+
+  @Setup
+  public void setup() {
+    ObjectNode node = MAPPER.createObjectNode();
+    node.put(Envelope.CIPHERED_TEXT_KEY, Base64.getEncoder().encodeToString(new byte[payloadSize]));
+    node.put(ICrypto.VERSION_IDENTIFIER, Version.V1_1.versionStr());
+    json = node.toString();
+    encoded = Crypto.encode(json);
+  }
+
+  @Benchmark
+  public String encode() {
+    return Crypto.encode(json);
+  }
+
+  @Benchmark
+  public String decode() {
+    return Crypto.decode(encoded);
+  }
+
+  /**
+   * Decode and read version with JSON tree, which is what Crypto.decrypt used to do before delegating to
+   * version specific implementation.
+   */
+  @Benchmark
+  public String decodeAndParse() throws IOException {
+    JsonNode node = MAPPER.readTree(Crypto.decode(encoded));
+    return node.get(ICrypto.VERSION_IDENTIFIER).asText();
+  }
+
+  /**
+   * Single pass decode of version and payload that Crypto.decrypt does.
+   */
+  @Benchmark
+  public Envelope parseEnvelope() {
+    return Envelope.parse(encoded);
+  }
+}
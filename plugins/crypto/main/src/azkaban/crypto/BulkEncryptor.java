@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Encrypts every value of a properties or flat JSON object input in parallel, and streams key and ciphered text pairs
+ * to the output in the same order as the input. (Properties are sorted by key)
+ *
+ * At most a few entries per thread are in flight, so the output is written while encryption is still going on.
+ */
+public class BulkEncryptor {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+  private static final int IN_FLIGHT_PER_THREAD = 4;
+
+  public enum Format {
+    PROPERTIES,
+    JSON;
+
+    /**
+     * @return JSON if file name ends with .json, PROPERTIES otherwise.
+     */
+    public static Format fromFileName(String fileName) {
+      return fileName != null && fileName.toLowerCase().endsWith(".json") ? JSON : PROPERTIES;
+    }
+  }
+
+  private final Function<String, String> encryptor;
+  private final int threads;
+
+  public BulkEncryptor(ICrypto crypto, String passphrase, Version version, int threads) {
+    this(threads, plaintext -> crypto.encrypt(plaintext, passphrase, version));
+    Preconditions.checkNotNull(crypto);
+    Preconditions.checkNotNull(passphrase);
+    Preconditions.checkNotNull(version);
+  }
+
+  /**
+   * Encrypts with the active key of the keyring, embedding its key ID into every ciphered text.
+   */
+  public BulkEncryptor(Crypto crypto, Keyring keyring, Version version, int threads) {
+    this(threads, plaintext -> crypto.encrypt(plaintext, keyring, version));
+    Preconditions.checkNotNull(crypto);
+    Preconditions.checkNotNull(keyring);
+    Preconditions.checkNotNull(version);
+  }
+
+  private BulkEncryptor(int threads, Function<String, String> encryptor) {
+    Preconditions.checkArgument(threads > 0, "Number of threads should be greater than 0.");
+    this.encryptor = encryptor;
+    this.threads = threads;
+  }
+
+  /**
+   * @param in Input in the format
+   * @param out Output in the same format where values are ciphered texts
+   * @param format Format of input and output
+   * @return Number of values encrypted
+   * @throws IOException
+   */
+  public int encrypt(Reader in, Writer out, Format format) throws IOException {
+    Map<String, String> plaintexts = read(in, format);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setDaemon(true)
+                                                                      .setNameFormat("bulk-encryptor-%d")
+                                                                      .build());
+    try {
+      EntryWriter writer = newWriter(out, format);
+      int window = threads * IN_FLIGHT_PER_THREAD;
+      Deque<Map.Entry<String, Future<String>>> inFlight = new ArrayDeque<>(window);
+      Iterator<Map.Entry<String, String>> it = plaintexts.entrySet().iterator();
+      int count = 0;
+
+      while (it.hasNext() || !inFlight.isEmpty()) {
+        while (it.hasNext() && inFlight.size() < window) {
+          final Map.Entry<String, String> entry = it.next();
+          Future<String> future = executor.submit(() -> encryptor.apply(entry.getValue()));
+          inFlight.add(Maps.immutableEntry(entry.getKey(), future));
+        }
+
+        Map.Entry<String, Future<String>> head = inFlight.poll();
+        try {
+          writer.write(head.getKey(), head.getValue().get());
+        } catch (ExecutionException e) {
+          throw new RuntimeException("Failed to encrypt value of " + head.getKey(), e.getCause());
+        }
+        count++;
+      }
+      //Only on success, so that a partial output is never completed as if it were whole.
+      writer.finish();
+      return count;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Map<String, String> read(Reader in, Format format) throws IOException {
+    if (Format.JSON.equals(format)) {
+      JsonNode json = MAPPER.readTree(in);
+      Preconditions.checkArgument(json != null && json.isObject(), "JSON input should be an object.");
+      Map<String, String> result = new LinkedHashMap<>();
+      Iterator<Map.Entry<String, JsonNode>> it = json.fields();
+      while (it.hasNext()) {
+        Map.Entry<String, JsonNode> entry = it.next();
+        Preconditions.checkArgument(entry.getValue().isValueNode(), "Value of " + entry.getKey() + " is not a value.");
+        result.put(entry.getKey(), entry.getValue().asText());
+      }
+      return result;
+    }
+
+    Map<String, String> result = new TreeMap<>();
+    Properties props = new Properties();
+    props.load(in);
+    for (String key : props.stringPropertyNames()) {
+      result.put(key, props.getProperty(key));
+    }
+    return result;
+  }
+
+  private static EntryWriter newWriter(final Writer out, Format format) throws IOException {
+    if (Format.JSON.equals(format)) {
+      final JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+      generator.useDefaultPrettyPrinter();
+      generator.writeStartObject();
+      return new EntryWriter() {
+        @Override
+        public void write(String key, String cipheredText) throws IOException {
+          generator.writeStringField(key, cipheredText);
+        }
+
+        @Override
+        public void finish() throws IOException {
+          generator.writeEndObject();
+          generator.flush();
+          out.write(System.lineSeparator());
+          out.flush();
+        }
+      };
+    }
+
+    return new EntryWriter() {
+      @Override
+      public void write(String key, String cipheredText) throws IOException {
+        //Ciphered text is Base64, which does not need to be escaped in properties.
+        out.write(escapeKey(key));
+        out.write('=');
+        out.write(cipheredText);
+        out.write(System.lineSeparator());
+      }
+
+      @Override
+      public void finish() throws IOException {
+        out.flush();
+      }
+    };
+  }
+
+  /**
+   * Escapes the key in the same way as {@link Properties#store(Writer, String)}.
+   */
+  private static String escapeKey(String key) {
+    StringBuilder sb = new StringBuilder(key.length());
+    for (char c : key.toCharArray()) {
+      switch (c) {
+        case '\t':
+          sb.append("\\t");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\f':
+          sb.append("\\f");
+          break;
+        case '=':
+        case ':':
+        case ' ':
+        case '#':
+        case '!':
+        case '\\':
+          sb.append('\\').append(c);
+          break;
+        default:
+          sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private interface EntryWriter {
+    void write(String key, String cipheredText) throws IOException;
+
+    /**
+     * Completes the output after all entries are written.
+     */
+    void finish() throws IOException;
+  }
+}
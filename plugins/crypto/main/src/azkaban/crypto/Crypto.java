@@ -11,16 +11,22 @@
  */
 package azkaban.crypto;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * Crypto class that actually delegates to version specific implementation of ICrypto interface. In other words,
@@ -28,13 +34,34 @@ import com.google.common.collect.ImmutableMap;
  */
 public class Crypto implements ICrypto {
   private static final Logger logger = Logger.getLogger(Crypto.class);
-  private static ObjectMapper MAPPER = new ObjectMapper();
-  private final Map<Version, ICrypto> cryptos;
+  public static final String DECRYPT_THREADS_KEY = "azkaban.crypto.decrypt.threads";
+
+  /**
+   * Bounded pool shared by batch decryptions in the process. Daemon threads so that it never blocks JVM shutdown.
+   */
+  private static final ExecutorService DECRYPT_EXECUTOR =
+      Executors.newFixedThreadPool(Integer.getInteger(DECRYPT_THREADS_KEY,
+                                                      Math.min(Runtime.getRuntime().availableProcessors(), 8)),
+                                   new ThreadFactoryBuilder().setDaemon(true)
+                                                             .setNameFormat("azkaban-crypto-decrypt-%d")
+                                                             .build());
+
+  private final Map<Version, EnvelopeCrypto> cryptos;
 
   public Crypto() {
-    this.cryptos = ImmutableMap.<Version, ICrypto>builder()
-                                  .put(Version.V1_0, new CryptoV1())
-                                  .put(Version.V1_1, new CryptoV1_1())
+    this(EncryptorCache.getDefault());
+  }
+
+  /**
+   * @param encryptorCache Cache of initialized encryptors shared by version specific implementations.
+   *                       Use {@link EncryptorCache#disabled()} to turn off caching.
+   */
+  public Crypto(EncryptorCache encryptorCache) {
+    this.cryptos = ImmutableMap.<Version, EnvelopeCrypto>builder()
+                                  .put(Version.V1_0, new CryptoV1(encryptorCache))
+                                  .put(Version.V1_1, new CryptoV1_1(encryptorCache))
+                                  .put(Version.V2_0, new CryptoV2(encryptorCache))
+                                  .put(Version.V3_0, new CryptoV3(encryptorCache))
                                   .build();
   }
 
@@ -49,29 +76,122 @@ public class Crypto implements ICrypto {
     return crypto.encrypt(plaintext, passphrase, cryptoVersion);
   }
 
+  /**
+   * Encrypts plain text with the active key of the keyring, and embeds its key ID into the ciphered text.
+   *
+   * @param plaintext The plain text (secret) need to be encrypted.
+   * @param keyring Keyring
+   * @param cryptoVersion Version of this encryption.
+   * @return A ciphered text, Base64 encoded.
+   */
+  public String encrypt(String plaintext, Keyring keyring, Version cryptoVersion) {
+    Preconditions.checkNotNull(keyring);
+    String cipheredText = encrypt(plaintext, keyring.getActivePassphrase(), cryptoVersion);
+    if (keyring.getActiveKeyId().isPresent()) {
+      return Envelope.withKeyId(cipheredText, keyring.getActiveKeyId().get());
+    }
+    return cipheredText;
+  }
+
   @Override
   public String decrypt(String cipheredText, String passphrase) {
     Preconditions.checkArgument(!StringUtils.isEmpty(cipheredText), "cipheredText should not be empty");
     Preconditions.checkArgument(!StringUtils.isEmpty(passphrase), "passphrase should not be empty");
 
     try {
-      String jsonStr = decode(cipheredText);
-      JsonNode json = MAPPER.readTree(jsonStr);
-      String ver = json.get(ICrypto.VERSION_IDENTIFIER).asText();
+      return decrypt(Envelope.parse(cipheredText), passphrase);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
 
-      ICrypto crypto = cryptos.get(Version.fromVerString(ver));
-      Preconditions.checkNotNull(crypto);
-      return crypto.decrypt(cipheredText, passphrase);
+  /**
+   * Decrypts ciphered text with the key of the key ID embedded in it, or with the default key of the keyring if it
+   * does not have one.
+   *
+   * @param cipheredText Base64 encoded ciphered text
+   * @param keyring Keyring that has the key ciphered text was encrypted with
+   * @return plain text String
+   */
+  public String decrypt(String cipheredText, Keyring keyring) {
+    Preconditions.checkArgument(!StringUtils.isEmpty(cipheredText), "cipheredText should not be empty");
+    Preconditions.checkNotNull(keyring);
+
+    try {
+      Envelope envelope = Envelope.parse(cipheredText);
+      return decrypt(envelope, keyring.getPassphrase(envelope.getKeyId()));
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
   }
 
+  private String decrypt(Envelope envelope, String passphrase) {
+    EnvelopeCrypto crypto = cryptos.get(envelope.getVersion());
+    Preconditions.checkNotNull(crypto);
+    return crypto.decrypt(envelope, passphrase);
+  }
+
+  /**
+   * Decrypts entries in parallel on a bounded, process wide executor.
+   * {@inheritDoc}
+   * @see azkaban.crypto.ICrypto#decryptAll(java.util.Map, java.lang.String)
+   */
+  @Override
+  public Map<String, DecryptionResult> decryptAll(Map<String, String> cipheredByKey, final String passphrase) {
+    Preconditions.checkNotNull(cipheredByKey);
+    Preconditions.checkArgument(!StringUtils.isEmpty(passphrase), "passphrase should not be empty");
+
+    if (cipheredByKey.size() <= 1) {
+      return ICrypto.super.decryptAll(cipheredByKey, passphrase);
+    }
+    return decryptAll(cipheredByKey, cipheredText -> decrypt(cipheredText, passphrase));
+  }
+
+  /**
+   * Same as {@link #decryptAll(Map, String)}, but every entry is decrypted with the key of its own key ID.
+   *
+   * @param cipheredByKey Base64 encoded ciphered texts keyed by caller defined key (e.g. property name)
+   * @param keyring Keyring that has the keys ciphered texts were encrypted with
+   * @return Decryption results keyed by the same key, in the same iteration order.
+   */
+  public Map<String, DecryptionResult> decryptAll(Map<String, String> cipheredByKey, final Keyring keyring) {
+    Preconditions.checkNotNull(cipheredByKey);
+    Preconditions.checkNotNull(keyring);
+    return decryptAll(cipheredByKey, cipheredText -> decrypt(cipheredText, keyring));
+  }
+
+  private Map<String, DecryptionResult> decryptAll(Map<String, String> cipheredByKey,
+                                                   Function<String, String> decryptor) {
+    Map<String, Future<String>> futures = new LinkedHashMap<>();
+    for (Map.Entry<String, String> entry : cipheredByKey.entrySet()) {
+      final String cipheredText = entry.getValue();
+      futures.put(entry.getKey(), DECRYPT_EXECUTOR.submit(() -> decryptor.apply(cipheredText)));
+    }
+
+    Map<String, DecryptionResult> results = new LinkedHashMap<>();
+    for (Map.Entry<String, Future<String>> entry : futures.entrySet()) {
+      try {
+        results.put(entry.getKey(), DecryptionResult.success(entry.getValue().get()));
+      } catch (ExecutionException e) {
+        results.put(entry.getKey(), DecryptionResult.failure(e.getCause()));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        for (Future<String> future : futures.values()) {
+          future.cancel(true);
+        }
+        throw new RuntimeException("Interrupted while decrypting", e);
+      } catch (RuntimeException e) {
+        results.put(entry.getKey(), DecryptionResult.failure(e));
+      }
+    }
+    return results;
+  }
+
   public static String encode(String s) {
-    return Base64.getEncoder().encodeToString(s.getBytes());
+    return Base64.getEncoder().encodeToString(s.getBytes(StandardCharsets.UTF_8));
   }
 
   public static String decode(String s) {
-    return new String(Base64.getDecoder().decode(s));
+    return new String(Base64.getDecoder().decode(s), StandardCharsets.UTF_8);
   }
 }
\ No newline at end of file
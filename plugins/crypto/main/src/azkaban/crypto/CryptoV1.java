@@ -11,11 +11,13 @@
  */
 package azkaban.crypto;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 import org.apache.log4j.Logger;
-import org.jasypt.encryption.pbe.PBEStringEncryptor;
-import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
+import org.jasypt.encryption.pbe.PBEByteEncryptor;
+import org.jasypt.encryption.pbe.StandardPBEByteEncryptor;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Preconditions;
@@ -25,19 +27,28 @@ import com.google.common.base.Preconditions;
  * DES is not recommended by NIST, but this is particularly useful for the JRE environment
  * that haven't installed (or cannot install) JCE unlimited strength.
  */
-public class CryptoV1 implements ICrypto {
+public class CryptoV1 implements EnvelopeCrypto {
   private static final Logger logger = Logger.getLogger(CryptoV1.class);
 
-  private static final String CIPHERED_TEXT_KEY = "val";
   private static final ObjectMapper MAPPER = new ObjectMapper();
 
+  private final EncryptorCache encryptorCache;
+
+  public CryptoV1() {
+    this(EncryptorCache.getDefault());
+  }
+
+  public CryptoV1(EncryptorCache encryptorCache) {
+    this.encryptorCache = Preconditions.checkNotNull(encryptorCache);
+  }
+
   @Override
   public String encrypt(String plaintext, String passphrase, Version cryptoVersion) {
     Preconditions.checkArgument(Version.V1_0.equals(cryptoVersion));
 
-    String cipheredText = newEncryptor(passphrase).encrypt(plaintext);
+    byte[] ciphered = getEncryptor(passphrase).encrypt(plaintext.getBytes(StandardCharsets.UTF_8));
     ObjectNode node = MAPPER.createObjectNode();
-    node.put(CIPHERED_TEXT_KEY, cipheredText);
+    node.put(Envelope.CIPHERED_TEXT_KEY, Base64.getEncoder().encodeToString(ciphered));
     node.put(ICrypto.VERSION_IDENTIFIER, Version.V1_0.versionStr());
 
     return Crypto.encode(node.toString());
@@ -45,21 +56,32 @@ public class CryptoV1 implements ICrypto {
 
   @Override
   public String decrypt(String cipheredText, String passphrase) {
+    return decrypt(Envelope.parse(cipheredText), passphrase);
+  }
+
+  @Override
+  public String decrypt(Envelope envelope, String passphrase) {
+    Preconditions.checkArgument(Version.V1_0.equals(envelope.getVersion()),
+                                "Ciphered text is not version " + Version.V1_0.versionStr());
     try {
-      JsonNode json = MAPPER.readTree(Crypto.decode(cipheredText));
-      return newEncryptor(passphrase).decrypt(json.get(CIPHERED_TEXT_KEY).asText());
+      byte[] decrypted = getEncryptor(passphrase).decrypt(envelope.getPayload());
+      return new String(decrypted, StandardCharsets.UTF_8);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
   }
 
+  private PBEByteEncryptor getEncryptor(final String passphrase) {
+    return encryptorCache.get(Version.V1_0, passphrase, () -> newEncryptor(passphrase));
+  }
+
   /**
    * DES algorithm
    * @param passphrase
    * @return
    */
-  private PBEStringEncryptor newEncryptor(String passphrase) {
-    StandardPBEStringEncryptor encryptor = new StandardPBEStringEncryptor();
+  private PBEByteEncryptor newEncryptor(String passphrase) {
+    StandardPBEByteEncryptor encryptor = new StandardPBEByteEncryptor();
     encryptor.setPassword(passphrase);
     return encryptor;
   }
@@ -11,14 +11,15 @@
  */
 package azkaban.crypto;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Provider;
+import java.util.Base64;
 
 import org.apache.log4j.Logger;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.jasypt.encryption.pbe.PBEStringEncryptor;
-import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
+import org.jasypt.encryption.pbe.PBEByteEncryptor;
+import org.jasypt.encryption.pbe.StandardPBEByteEncryptor;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Preconditions;
@@ -26,22 +27,31 @@ import com.google.common.base.Preconditions;
 /**
  * Uses AES algorithm to encrypt and decrypt.
  */
-public class CryptoV1_1 implements ICrypto {
+public class CryptoV1_1 implements EnvelopeCrypto {
   private static final Logger logger = Logger.getLogger(CryptoV1_1.class);
 
-  private static final String CIPHERED_TEXT_KEY = "val";
   private static final String CRYPTO_ALGO = "PBEWITHSHA256AND128BITAES-CBC-BC";
   private static final Provider PROVIDER = new BouncyCastleProvider();
 
   private static final ObjectMapper MAPPER = new ObjectMapper();
 
+  private final EncryptorCache encryptorCache;
+
+  public CryptoV1_1() {
+    this(EncryptorCache.getDefault());
+  }
+
+  public CryptoV1_1(EncryptorCache encryptorCache) {
+    this.encryptorCache = Preconditions.checkNotNull(encryptorCache);
+  }
+
   @Override
   public String encrypt(String plaintext, String passphrase, Version cryptoVersion) {
     Preconditions.checkArgument(Version.V1_1.equals(cryptoVersion));
 
-    String cipheredText = newEncryptor(passphrase).encrypt(plaintext);
+    byte[] ciphered = getEncryptor(passphrase).encrypt(plaintext.getBytes(StandardCharsets.UTF_8));
     ObjectNode node = MAPPER.createObjectNode();
-    node.put(CIPHERED_TEXT_KEY, cipheredText);
+    node.put(Envelope.CIPHERED_TEXT_KEY, Base64.getEncoder().encodeToString(ciphered));
     node.put(ICrypto.VERSION_IDENTIFIER, Version.V1_1.versionStr());
 
     return Crypto.encode(node.toString());
@@ -49,22 +59,32 @@ public class CryptoV1_1 implements ICrypto {
 
   @Override
   public String decrypt(String cipheredText, String passphrase) {
+    return decrypt(Envelope.parse(cipheredText), passphrase);
+  }
+
+  @Override
+  public String decrypt(Envelope envelope, String passphrase) {
+    Preconditions.checkArgument(Version.V1_1.equals(envelope.getVersion()),
+                                "Ciphered text is not version " + Version.V1_1.versionStr());
     try {
-      String jsonStr = Crypto.decode(cipheredText);
-      JsonNode json = MAPPER.readTree(jsonStr);
-      return newEncryptor(passphrase).decrypt(json.get(CIPHERED_TEXT_KEY).asText());
+      byte[] decrypted = getEncryptor(passphrase).decrypt(envelope.getPayload());
+      return new String(decrypted, StandardCharsets.UTF_8);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
   }
 
+  private PBEByteEncryptor getEncryptor(final String passphrase) {
+    return encryptorCache.get(Version.V1_1, passphrase, () -> newEncryptor(passphrase));
+  }
+
   /**
    * AES algorithm
    * @param passphrase
    * @return
    */
-  private PBEStringEncryptor newEncryptor(String passphrase) {
-    StandardPBEStringEncryptor encryptor = new StandardPBEStringEncryptor();
+  private PBEByteEncryptor newEncryptor(String passphrase) {
+    StandardPBEByteEncryptor encryptor = new StandardPBEByteEncryptor();
     encryptor.setPassword(passphrase);
     encryptor.setProvider(PROVIDER);
     encryptor.setAlgorithm(CRYPTO_ALGO);
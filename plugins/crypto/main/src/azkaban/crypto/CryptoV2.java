@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Uses JDK native AES-GCM with a key derived by PBKDF2.
+ *
+ * Ciphered text is Base64 encoded binary with below layout. All integers are big endian.
+ * <pre>
+ * | version byte (0x02) | iterations (int) | salt (16 bytes) | IV (12 bytes) | cipher text + GCM tag (16 bytes) |
+ * </pre>
+ *
+ * Unlike V1.x, the derived key is independent from IV so that a key derived for a salt can be reused. Encryption
+ * derives a key once per passphrase and reuses it with a fresh IV per message. Decryption caches the key per salt.
+ *
+ * Iteration count for new encryption can be tuned by system property {@value #ITERATIONS_KEY}.
+ */
+public class CryptoV2 implements EnvelopeCrypto {
+  private static final Logger logger = Logger.getLogger(CryptoV2.class);
+
+  public static final String ITERATIONS_KEY = "azkaban.crypto.v2.iterations";
+  static final int DEFAULT_ITERATIONS = 10000;
+  static final int MAX_ITERATIONS = 10000000;
+
+  static final byte VERSION_BYTE = 0x02;
+  private static final String KEY_DERIVATION_ALGO = "PBKDF2WithHmacSHA256";
+  private static final String KEY_ALGO = "AES";
+  static final String CIPHER_ALGO = "AES/GCM/NoPadding";
+  private static final int KEY_LENGTH_BITS = 128;
+  static final int SALT_LENGTH = 16;
+  static final int IV_LENGTH = 12;
+  static final int TAG_LENGTH_BITS = 128;
+  static final int HEADER_LENGTH = 1 + Integer.BYTES + SALT_LENGTH + IV_LENGTH;
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final EncryptorCache encryptorCache;
+  private final int iterations;
+
+  public CryptoV2() {
+    this(EncryptorCache.getDefault());
+  }
+
+  public CryptoV2(EncryptorCache encryptorCache) {
+    this(encryptorCache, Integer.getInteger(ITERATIONS_KEY, DEFAULT_ITERATIONS));
+  }
+
+  /**
+   * @param encryptorCache Cache for derived keys.
+   * @param iterations PBKDF2 iteration count that will be used for encryption. Decryption uses the one in the header.
+   */
+  public CryptoV2(EncryptorCache encryptorCache, int iterations) {
+    Preconditions.checkArgument(iterations > 0 && iterations <= MAX_ITERATIONS,
+                                "Iterations should be between 1 and " + MAX_ITERATIONS);
+    this.encryptorCache = Preconditions.checkNotNull(encryptorCache);
+    this.iterations = iterations;
+  }
+
+  @Override
+  public String encrypt(String plaintext, String passphrase, Version cryptoVersion) {
+    Preconditions.checkArgument(Version.V2_0.equals(cryptoVersion));
+
+    DerivedKey derivedKey = getEncryptionKey(passphrase);
+    byte[] iv = new byte[IV_LENGTH];
+    RANDOM.nextBytes(iv);
+
+    try {
+      Cipher cipher = Cipher.getInstance(CIPHER_ALGO);
+      cipher.init(Cipher.ENCRYPT_MODE, derivedKey.key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+      byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + encrypted.length);
+      buffer.put(VERSION_BYTE)
+            .putInt(iterations)
+            .put(derivedKey.salt)
+            .put(iv)
+            .put(encrypted);
+      return Base64.getEncoder().encodeToString(buffer.array());
+    } catch (GeneralSecurityException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public String decrypt(String cipheredText, String passphrase) {
+    return decrypt(Envelope.parse(cipheredText), passphrase);
+  }
+
+  @Override
+  public String decrypt(Envelope envelope, String passphrase) {
+    Preconditions.checkArgument(Version.V2_0.equals(envelope.getVersion()),
+                                "Ciphered text is not version " + Version.V2_0.versionStr());
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(envelope.getPayload());
+      Preconditions.checkArgument(buffer.remaining() > HEADER_LENGTH, "Ciphered text is too short.");
+      Preconditions.checkArgument(buffer.get() == VERSION_BYTE, "Ciphered text is not version " + Version.V2_0.versionStr());
+
+      int iter = buffer.getInt();
+      Preconditions.checkArgument(iter > 0 && iter <= MAX_ITERATIONS, "Invalid iterations " + iter);
+      byte[] salt = new byte[SALT_LENGTH];
+      buffer.get(salt);
+      byte[] iv = new byte[IV_LENGTH];
+      buffer.get(iv);
+
+      SecretKey key = getDecryptionKey(passphrase, salt, iter);
+      Cipher cipher = Cipher.getInstance(CIPHER_ALGO);
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+      byte[] decrypted = cipher.doFinal(buffer.array(), buffer.position(), buffer.remaining());
+      return new String(decrypted, StandardCharsets.UTF_8);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Key for encryption is derived once per passphrase with random salt, and the salt is stored in every ciphered text.
+   */
+  private DerivedKey getEncryptionKey(final String passphrase) {
+    return encryptorCache.get(Version.V2_0, passphrase, "encrypt:" + iterations, () -> {
+      byte[] salt = new byte[SALT_LENGTH];
+      RANDOM.nextBytes(salt);
+      return new DerivedKey(salt, deriveKey(passphrase, salt, iterations));
+    });
+  }
+
+  private SecretKey getDecryptionKey(final String passphrase, final byte[] salt, final int iter) {
+    String qualifier = "decrypt:" + iter + ":" + Base64.getEncoder().encodeToString(salt);
+    return encryptorCache.get(Version.V2_0, passphrase, qualifier, () -> deriveKey(passphrase, salt, iter));
+  }
+
+  static SecretKey deriveKey(String passphrase, byte[] salt, int iterations) throws GeneralSecurityException {
+    long start = System.nanoTime();
+    PBEKeySpec spec = new PBEKeySpec(passphrase.toCharArray(), salt, iterations, KEY_LENGTH_BITS);
+    try {
+      byte[] encoded = SecretKeyFactory.getInstance(KEY_DERIVATION_ALGO).generateSecret(spec).getEncoded();
+      return new SecretKeySpec(encoded, KEY_ALGO);
+    } finally {
+      spec.clearPassword();
+      if (logger.isDebugEnabled()) {
+        logger.debug("Derived key with " + iterations + " iterations in " + (System.nanoTime() - start) / 1000L + " us");
+      }
+    }
+  }
+
+  private static class DerivedKey {
+    private final byte[] salt;
+    private final SecretKey key;
+
+    private DerivedKey(byte[] salt, SecretKey key) {
+      this.salt = salt;
+      this.key = key;
+    }
+  }
+}
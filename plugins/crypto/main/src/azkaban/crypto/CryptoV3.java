@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Envelope encryption. Every secret is encrypted by its own random data key with AES-GCM, and the data key is wrapped
+ * (AES-GCM) by a master key derived from the passphrase by PBKDF2.
+ *
+ * Ciphered text is Base64 encoded binary with below layout. All integers are big endian.
+ * <pre>
+ * | version byte (0x03) | iterations (int) | master salt (16 bytes) | wrap IV (12 bytes) | wrapped data key + tag (32 bytes) |
+ * | data IV (12 bytes) | cipher text + GCM tag (16 bytes) |
+ * </pre>
+ *
+ * Master key is derived once per passphrase and salt, and cached in {@link EncryptorCache}. Thus decrypting a secret
+ * costs two AES-GCM operations instead of a key derivation. Rotating the passphrase only needs
+ * {@link #rewrap(String, String, String)}, which re-wraps the data key and leaves the ciphered payload untouched.
+ */
+public class CryptoV3 implements EnvelopeCrypto {
+  static final byte VERSION_BYTE = 0x03;
+  private static final String KEY_ALGO = "AES";
+  private static final int DATA_KEY_LENGTH = 16;
+  private static final int TAG_LENGTH = CryptoV2.TAG_LENGTH_BITS / Byte.SIZE;
+  private static final int WRAPPED_KEY_LENGTH = DATA_KEY_LENGTH + TAG_LENGTH;
+  private static final int MASTER_HEADER_LENGTH = 1 + Integer.BYTES + CryptoV2.SALT_LENGTH;
+  static final int HEADER_LENGTH = MASTER_HEADER_LENGTH + CryptoV2.IV_LENGTH + WRAPPED_KEY_LENGTH
+                                   + CryptoV2.IV_LENGTH;
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final EncryptorCache encryptorCache;
+  private final int iterations;
+
+  public CryptoV3() {
+    this(EncryptorCache.getDefault());
+  }
+
+  public CryptoV3(EncryptorCache encryptorCache) {
+    this(encryptorCache, Integer.getInteger(CryptoV2.ITERATIONS_KEY, CryptoV2.DEFAULT_ITERATIONS));
+  }
+
+  /**
+   * @param encryptorCache Cache for master keys.
+   * @param iterations PBKDF2 iteration count for master key of new encryption. Decryption uses the one in the header.
+   */
+  public CryptoV3(EncryptorCache encryptorCache, int iterations) {
+    Preconditions.checkArgument(iterations > 0 && iterations <= CryptoV2.MAX_ITERATIONS,
+                                "Iterations should be between 1 and " + CryptoV2.MAX_ITERATIONS);
+    this.encryptorCache = Preconditions.checkNotNull(encryptorCache);
+    this.iterations = iterations;
+  }
+
+  @Override
+  public String encrypt(String plaintext, String passphrase, Version cryptoVersion) {
+    Preconditions.checkArgument(Version.V3_0.equals(cryptoVersion));
+
+    MasterKey masterKey = getEncryptionMasterKey(passphrase);
+    byte[] dataKey = new byte[DATA_KEY_LENGTH];
+    RANDOM.nextBytes(dataKey);
+    byte[] dataIv = new byte[CryptoV2.IV_LENGTH];
+    RANDOM.nextBytes(dataIv);
+
+    try {
+      Cipher cipher = Cipher.getInstance(CryptoV2.CIPHER_ALGO);
+      cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(dataKey, KEY_ALGO),
+                  new GCMParameterSpec(CryptoV2.TAG_LENGTH_BITS, dataIv));
+      byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + encrypted.length);
+      buffer.put(VERSION_BYTE)
+            .putInt(iterations)
+            .put(masterKey.salt);
+      wrap(cipher, masterKey.key, dataKey, buffer);
+      buffer.put(dataIv)
+            .put(encrypted);
+      return Base64.getEncoder().encodeToString(buffer.array());
+    } catch (GeneralSecurityException e) {
+      throw new RuntimeException(e);
+    } finally {
+      Arrays.fill(dataKey, (byte) 0);
+    }
+  }
+
+  @Override
+  public String decrypt(String cipheredText, String passphrase) {
+    return decrypt(Envelope.parse(cipheredText), passphrase);
+  }
+
+  @Override
+  public String decrypt(Envelope envelope, String passphrase) {
+    Preconditions.checkArgument(Version.V3_0.equals(envelope.getVersion()),
+                                "Ciphered text is not version " + Version.V3_0.versionStr());
+    byte[] dataKey = null;
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(envelope.getPayload());
+      Cipher cipher = Cipher.getInstance(CryptoV2.CIPHER_ALGO);
+      dataKey = unwrap(cipher, buffer, passphrase);
+
+      byte[] dataIv = new byte[CryptoV2.IV_LENGTH];
+      buffer.get(dataIv);
+      cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(dataKey, KEY_ALGO),
+                  new GCMParameterSpec(CryptoV2.TAG_LENGTH_BITS, dataIv));
+      byte[] decrypted = cipher.doFinal(buffer.array(), buffer.position(), buffer.remaining());
+      return new String(decrypted, StandardCharsets.UTF_8);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    } finally {
+      if (dataKey != null) {
+        Arrays.fill(dataKey, (byte) 0);
+      }
+    }
+  }
+
+  /**
+   * Re-wraps the data key of the ciphered text with the master key of new passphrase. Ciphered payload is copied as
+   * is, thus it's cheap regardless of the size of secret.
+   *
+   * @param cipheredText Ciphered text of version 3.0 encrypted with old passphrase
+   * @param oldPassphrase Passphrase ciphered text was encrypted with
+   * @param newPassphrase Passphrase to rotate to
+   * @return Ciphered text that can be decrypted with new passphrase
+   */
+  public String rewrap(String cipheredText, String oldPassphrase, String newPassphrase) {
+    Preconditions.checkArgument(newPassphrase != null && !newPassphrase.isEmpty(), "passphrase should not be empty");
+    Envelope envelope = Envelope.parse(cipheredText);
+    Preconditions.checkArgument(Version.V3_0.equals(envelope.getVersion()),
+                                "Ciphered text is not version " + Version.V3_0.versionStr());
+
+    byte[] dataKey = null;
+    try {
+      byte[] payload = envelope.getPayload();
+      ByteBuffer buffer = ByteBuffer.wrap(payload);
+      Cipher cipher = Cipher.getInstance(CryptoV2.CIPHER_ALGO);
+      dataKey = unwrap(cipher, buffer, oldPassphrase);
+
+      MasterKey masterKey = getEncryptionMasterKey(newPassphrase);
+      ByteBuffer rewrapped = ByteBuffer.allocate(payload.length);
+      rewrapped.put(VERSION_BYTE)
+               .putInt(iterations)
+               .put(masterKey.salt);
+      wrap(cipher, masterKey.key, dataKey, rewrapped);
+      rewrapped.put(payload, buffer.position(), buffer.remaining());
+      return Base64.getEncoder().encodeToString(rewrapped.array());
+    } catch (GeneralSecurityException e) {
+      throw new RuntimeException(e);
+    } finally {
+      if (dataKey != null) {
+        Arrays.fill(dataKey, (byte) 0);
+      }
+    }
+  }
+
+  /**
+   * Puts wrap IV and wrapped data key into the buffer. Master header already in the buffer is authenticated together.
+   */
+  private static void wrap(Cipher cipher, SecretKey masterKey, byte[] dataKey, ByteBuffer buffer)
+      throws GeneralSecurityException {
+    byte[] wrapIv = new byte[CryptoV2.IV_LENGTH];
+    RANDOM.nextBytes(wrapIv);
+    cipher.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(CryptoV2.TAG_LENGTH_BITS, wrapIv));
+    cipher.updateAAD(buffer.array(), 0, MASTER_HEADER_LENGTH);
+    buffer.put(wrapIv)
+          .put(cipher.doFinal(dataKey));
+  }
+
+  /**
+   * Reads header from the buffer and unwraps data key. Buffer is positioned at data IV afterward.
+   */
+  private byte[] unwrap(Cipher cipher, ByteBuffer buffer, String passphrase) throws GeneralSecurityException {
+    Preconditions.checkArgument(buffer.remaining() > HEADER_LENGTH, "Ciphered text is too short.");
+    Preconditions.checkArgument(buffer.get() == VERSION_BYTE, "Ciphered text is not version " + Version.V3_0.versionStr());
+
+    int iter = buffer.getInt();
+    Preconditions.checkArgument(iter > 0 && iter <= CryptoV2.MAX_ITERATIONS, "Invalid iterations " + iter);
+    byte[] salt = new byte[CryptoV2.SALT_LENGTH];
+    buffer.get(salt);
+    byte[] wrapIv = new byte[CryptoV2.IV_LENGTH];
+    buffer.get(wrapIv);
+
+    cipher.init(Cipher.DECRYPT_MODE, getDecryptionMasterKey(passphrase, salt, iter),
+                new GCMParameterSpec(CryptoV2.TAG_LENGTH_BITS, wrapIv));
+    cipher.updateAAD(buffer.array(), 0, MASTER_HEADER_LENGTH);
+    byte[] dataKey = cipher.doFinal(buffer.array(), buffer.position(), WRAPPED_KEY_LENGTH);
+    buffer.position(buffer.position() + WRAPPED_KEY_LENGTH);
+    return dataKey;
+  }
+
+  /**
+   * Master key for encryption is derived once per passphrase with random salt, and the salt is stored in every
+   * ciphered text so that decryption in other processes derives it once per salt as well.
+   */
+  private MasterKey getEncryptionMasterKey(final String passphrase) {
+    return encryptorCache.get(Version.V3_0, passphrase, "encrypt:" + iterations, () -> {
+      byte[] salt = new byte[CryptoV2.SALT_LENGTH];
+      RANDOM.nextBytes(salt);
+      return new MasterKey(salt, CryptoV2.deriveKey(passphrase, salt, iterations));
+    });
+  }
+
+  private SecretKey getDecryptionMasterKey(final String passphrase, final byte[] salt, final int iter) {
+    String qualifier = "decrypt:" + iter + ":" + Base64.getEncoder().encodeToString(salt);
+    return encryptorCache.get(Version.V3_0, passphrase, qualifier, () -> CryptoV2.deriveKey(passphrase, salt, iter));
+  }
+
+  private static class MasterKey {
+    private final byte[] salt;
+    private final SecretKey key;
+
+    private MasterKey(byte[] salt, SecretKey key) {
+      this.salt = salt;
+      this.key = key;
+    }
+  }
+}
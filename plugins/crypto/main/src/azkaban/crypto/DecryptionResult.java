@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Result of decrypting one entry of a batch. Either plain text or the error that occurred.
+ */
+public class DecryptionResult {
+  private final String plaintext;
+  private final Throwable error;
+
+  private DecryptionResult(String plaintext, Throwable error) {
+    this.plaintext = plaintext;
+    this.error = error;
+  }
+
+  public static DecryptionResult success(String plaintext) {
+    return new DecryptionResult(Preconditions.checkNotNull(plaintext, "Was not able to decrypt"), null);
+  }
+
+  public static DecryptionResult failure(Throwable error) {
+    return new DecryptionResult(null, Preconditions.checkNotNull(error));
+  }
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+
+  /**
+   * @return Plain text
+   * @throws RuntimeException wrapping the error if decryption has failed.
+   */
+  public String getPlaintext() {
+    if (error != null) {
+      throw new RuntimeException("Decryption has failed", error);
+    }
+    return plaintext;
+  }
+
+  /**
+   * @return Error occurred during decryption, or null if it succeeded.
+   */
+  public Throwable getError() {
+    return error;
+  }
+
+  @Override
+  public String toString() {
+    //Never print plain text.
+    return "DecryptionResult [success=" + isSuccess() + ", error=" + error + "]";
+  }
+}
@@ -11,39 +11,92 @@
  */
 package azkaban.crypto;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import org.apache.hadoop.fs.FileStatus;
+import java.io.InputStream;
+import java.util.Map;
+
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.fs.permission.FsAction;
-import org.apache.hadoop.fs.permission.FsPermission;
+
 import com.google.common.base.Preconditions;
 
 public class Decryptions {
-  private static final FsPermission USER_READ_PERMISSION_ONLY = new FsPermission(FsAction.READ,
-                                                                                 FsAction.NONE,
-                                                                                 FsAction.NONE);
+  private final PassphraseCache passphraseCache;
+
+  public Decryptions() {
+    this(PassphraseCache.getDefault());
+  }
 
+  /**
+   * @param passphraseCache Cache of passphrase files. Use {@link PassphraseCache#getDefault()} to share it in process.
+   */
+  public Decryptions(PassphraseCache passphraseCache) {
+    this.passphraseCache = Preconditions.checkNotNull(passphraseCache);
+  }
+
+  /**
+   * Decrypts ciphered text with the passphrase file, or with the key of the key ID embedded in the ciphered text if
+   * passphrasePath is a keyring file (see {@link Keyring}).
+   *
+   * @param cipheredText Base64 encoded ciphered text
+   * @param passphrasePath Path of the passphrase or keyring file
+   * @param fs File system where passphrase file is
+   * @return Plain text
+   * @throws IOException
+   */
   public String decrypt(String cipheredText, String passphrasePath, FileSystem fs) throws IOException {
     Preconditions.checkNotNull(cipheredText);
     Preconditions.checkNotNull(passphrasePath);
 
-    Path path = new Path(passphrasePath);
-    Preconditions.checkArgument(fs.exists(path), "File does not exist at " + passphrasePath);
-    Preconditions.checkArgument(fs.isFile(path), "Passphrase path is not a file. " + passphrasePath);
+    Keyring keyring = passphraseCache.getKeyring(passphrasePath, fs);
+    Crypto crypto = new Crypto();
+    String decrypted = crypto.decrypt(cipheredText, keyring);
+    Preconditions.checkNotNull(decrypted, "Was not able to decrypt");
+    return decrypted;
+  }
+
+  /**
+   * Decrypts multiple ciphered texts with the passphrase or keyring read once from passphrasePath.
+   * Entries are decrypted in parallel, and failure of an entry is reported in its result instead of failing the call.
+   *
+   * @param cipheredByKey Ciphered texts keyed by caller defined key (e.g. property name)
+   * @param passphrasePath Path of the passphrase or keyring file
+   * @param fs File system where passphrase file is
+   * @return Decryption results keyed by the same key
+   * @throws IOException
+   */
+  public Map<String, DecryptionResult> decryptAll(Map<String, String> cipheredByKey, String passphrasePath,
+                                                  FileSystem fs) throws IOException {
+    Preconditions.checkNotNull(cipheredByKey);
+    Preconditions.checkNotNull(passphrasePath);
+
+    Keyring keyring = passphraseCache.getKeyring(passphrasePath, fs);
+    return new Crypto().decryptAll(cipheredByKey, keyring);
+  }
 
-    FileStatus fileStatus = fs.getFileStatus(path);
-    Preconditions.checkArgument(USER_READ_PERMISSION_ONLY.equals(fileStatus.getPermission()),
-                                "Passphrase file should only have read only permission on only user. " + passphrasePath);
+  /**
+   * Opens a file encrypted by {@link StreamCrypto} (e.g. EncryptionCLI -F) for reading plain text. The file is decrypted
+   * chunk by chunk while being read, thus memory used does not depend on the file size. If passphrasePath is a keyring
+   * file, the key of the key ID in the file is used, or the default key if the file does not have one.
+   *
+   * @param cipheredFilePath Path of the ciphered file
+   * @param passphrasePath Path of the passphrase file
+   * @param fs File system where both files are
+   * @return InputStream of plain text. Caller should close it. Reading it throws IOException if the file has been
+   *         tampered or truncated.
+   * @throws IOException
+   */
+  public InputStream decryptStream(String cipheredFilePath, String passphrasePath, FileSystem fs) throws IOException {
+    Preconditions.checkNotNull(cipheredFilePath);
+    Preconditions.checkNotNull(passphrasePath);
 
-    Crypto crypto = new Crypto();
-    try (BufferedReader br = new BufferedReader(new InputStreamReader(fs.open(path)))) {
-      String passphrase = br.readLine();
-      String decrypted = crypto.decrypt(cipheredText, passphrase);
-      Preconditions.checkNotNull(decrypted, "Was not able to decrypt");
-      return decrypted;
+    Keyring keyring = passphraseCache.getKeyring(passphrasePath, fs);
+    InputStream in = fs.open(new Path(cipheredFilePath));
+    try {
+      return new StreamCrypto().newDecryptingStream(in, keyring);
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e;
     }
   }
-}
\ No newline at end of file
+}
@@ -11,36 +11,78 @@
  */
 package azkaban.crypto;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionGroup;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
+import com.google.common.base.Preconditions;
+
 /**
  * Command line interface for user to encrypt plain text with passphrase.
  */
 public class EncryptionCLI {
   private static final String PASSPHRASE_KEY = "k";
+  private static final String KEYRING_KEY = "K";
   private static final String PLAINTEXT_KEY = "p";
   private static final String VERSION_KEY = "v";
   private static final String HELP_KEY = "h";
+  private static final String INPUT_KEY = "i";
+  private static final String OUTPUT_KEY = "o";
+  private static final String FORMAT_KEY = "f";
+  private static final String THREADS_KEY = "t";
+  private static final String FILE_KEY = "F";
+  private static final String STDIN_STDOUT = "-";
 
   /**
    * Outputs ciphered text to STDOUT.
    *
-   * usage: EncryptionCLI [-h] -k <pass phrase> -p <plainText> -v <crypto version>
+   * In bulk mode (-i), every value of the input properties or JSON file is encrypted in parallel, and the output
+   * in the same format is streamed into the output file (STDOUT by default). Throughput is reported to STDERR.
+   *
+   * In file mode (-F), the whole input file is encrypted by {@link StreamCrypto} in constant memory, and the binary
+   * ciphered stream is written into the output file (STDOUT by default). Crypto version is not used in file mode.
+   *
+   * With a keyring file (-K) instead of a passphrase, the active key is used and its key ID is embedded into the
+   * ciphered text, or into the ciphered stream in file mode.
+   *
+   * usage: EncryptionCLI [-h] [-f <format>] -F <file> | -i <input file> | -p <plainText> -K <keyring file> | -k <pass
+   *        phrase> [-o <output file>] [-t <threads>] [-v <crypto version>]
+   * -F,--file <file>                File mode. File that needs to be encrypted as a stream. - for STDIN
+   * -f,--format <format>            Format of bulk input and output: [properties, json]. Decided by input file
+   *                                 extension if not provided
    * -h,--help                       print this message
+   * -i,--input <input file>         Bulk mode. Properties or JSON file whose values need to be encrypted. - for STDIN
+   * -K,--keyring <keyring file>     Keyring file whose active key is used for encrypting plain text
    * -k,--key <pass phrase>          Passphrase used for encrypting plain text
+   * -o,--output <output file>       Output file of bulk or file mode. - for STDOUT (default)
    * -p,--plaintext <plainText>      Plaintext that needs to be encrypted
-   * -v,--version <crypto version>   Version it will use to encrypt Version: [1.0, 1.1]
+   * -t,--threads <threads>          Number of threads for bulk mode. Number of processors by default
+   * -v,--version <crypto version>   Version it will use to encrypt Version: [1.0, 1.1, 2.0, 3.0]. Required unless file
+   *                                 mode
    *
    * @param args
    * @throws ParseException
+   * @throws IOException
    */
-  public static void main(String[] args) throws ParseException {
+  public static void main(String[] args) throws ParseException, IOException {
     CommandLineParser parser = new DefaultParser();
 
     if (parser.parse(createHelpOptions(), args, true).hasOption(HELP_KEY)) {
@@ -50,15 +92,92 @@ public class EncryptionCLI {
 
     CommandLine line = parser.parse(createOptions(), args);
 
-    String passphraseKey = line.getOptionValue(PASSPHRASE_KEY);
+    Keyring keyring = readKeyring(line);
     String plainText = line.getOptionValue(PLAINTEXT_KEY);
     String version = line.getOptionValue(VERSION_KEY);
 
-    ICrypto crypto = new Crypto();
-    String cipheredText = crypto.encrypt(plainText, passphraseKey, Version.fromVerString(version));
+    if (line.hasOption(FILE_KEY)) {
+      encryptFile(line, keyring);
+      return;
+    }
+
+    Preconditions.checkArgument(version != null, "Crypto version is required. Use -h for usage.");
+    Crypto crypto = new Crypto();
+    if (line.hasOption(INPUT_KEY)) {
+      encryptBulk(line, crypto, keyring, Version.fromVerString(version));
+      return;
+    }
+
+    String cipheredText = crypto.encrypt(plainText, keyring, Version.fromVerString(version));
     System.out.println(cipheredText);
   }
 
+  private static Keyring readKeyring(CommandLine line) throws IOException {
+    if (line.hasOption(KEYRING_KEY)) {
+      try (Reader reader = Files.newBufferedReader(Paths.get(line.getOptionValue(KEYRING_KEY)),
+                                                   StandardCharsets.UTF_8)) {
+        return Keyring.parse(reader);
+      }
+    }
+    return Keyring.single(line.getOptionValue(PASSPHRASE_KEY));
+  }
+
+  private static void encryptBulk(CommandLine line, Crypto crypto, Keyring keyring, Version version)
+      throws IOException {
+    String input = line.getOptionValue(INPUT_KEY);
+    String output = line.getOptionValue(OUTPUT_KEY, STDIN_STDOUT);
+    BulkEncryptor.Format format = line.hasOption(FORMAT_KEY)
+                                  ? BulkEncryptor.Format.valueOf(line.getOptionValue(FORMAT_KEY).toUpperCase())
+                                  : BulkEncryptor.Format.fromFileName(input);
+    int threads = line.hasOption(THREADS_KEY)
+                  ? Integer.parseInt(line.getOptionValue(THREADS_KEY))
+                  : Runtime.getRuntime().availableProcessors();
+
+    long start = System.nanoTime();
+    int count;
+    try (Reader in = newReader(input); Writer out = newWriter(output)) {
+      count = new BulkEncryptor(crypto, keyring, version, threads).encrypt(in, out, format);
+    }
+    double elapsedSec = (System.nanoTime() - start) / 1e9;
+    System.err.println(String.format("Encrypted %d values with %d threads in %.3f sec (%.1f values/sec)",
+                                     count, threads, elapsedSec, count / elapsedSec));
+  }
+
+  private static void encryptFile(CommandLine line, Keyring keyring) throws IOException {
+    String input = line.getOptionValue(FILE_KEY);
+    String output = line.getOptionValue(OUTPUT_KEY, STDIN_STDOUT);
+    StreamCrypto streamCrypto = new StreamCrypto();
+
+    long start = System.nanoTime();
+    long bytes;
+    if (!STDIN_STDOUT.equals(input) && !STDIN_STDOUT.equals(output)) {
+      bytes = streamCrypto.encrypt(Paths.get(input), Paths.get(output), keyring);
+    } else {
+      try (InputStream in = STDIN_STDOUT.equals(input) ? System.in : Files.newInputStream(Paths.get(input));
+           OutputStream out = STDIN_STDOUT.equals(output) ? System.out : Files.newOutputStream(Paths.get(output))) {
+        bytes = streamCrypto.encrypt(in, out, keyring);
+        out.flush();
+      }
+    }
+    double elapsedSec = (System.nanoTime() - start) / 1e9;
+    System.err.println(String.format("Encrypted %d bytes in %.3f sec (%.1f MB/sec)",
+                                     bytes, elapsedSec, bytes / elapsedSec / (1024 * 1024)));
+  }
+
+  private static Reader newReader(String input) throws IOException {
+    if (STDIN_STDOUT.equals(input)) {
+      return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    }
+    return Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+  }
+
+  private static Writer newWriter(String output) throws IOException {
+    if (STDIN_STDOUT.equals(output)) {
+      return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    }
+    return Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+  }
+
   private static Options createHelpOptions() {
     Options options = new Options();
     options.addOption(Option.builder(HELP_KEY).longOpt("help")
@@ -69,16 +188,46 @@ public class EncryptionCLI {
   private static Options createOptions() {
     Options options = createHelpOptions();
 
-    options.addOption(Option.builder(PLAINTEXT_KEY).longOpt("plaintext").hasArg().required()
-                            .desc("Plaintext that needs to be encrypted")
-                            .argName("plainText").build());
+    OptionGroup inputGroup = new OptionGroup();
+    inputGroup.setRequired(true);
+    inputGroup.addOption(Option.builder(PLAINTEXT_KEY).longOpt("plaintext").hasArg()
+                               .desc("Plaintext that needs to be encrypted")
+                               .argName("plainText").build());
+    inputGroup.addOption(Option.builder(INPUT_KEY).longOpt("input").hasArg()
+                               .desc("Bulk mode. Properties or JSON file whose values need to be encrypted. "
+                                     + STDIN_STDOUT + " for STDIN")
+                               .argName("input file").build());
+    inputGroup.addOption(Option.builder(FILE_KEY).longOpt("file").hasArg()
+                               .desc("File mode. File that needs to be encrypted as a stream. "
+                                     + STDIN_STDOUT + " for STDIN")
+                               .argName("file").build());
+    options.addOptionGroup(inputGroup);
+
+    options.addOption(Option.builder(OUTPUT_KEY).longOpt("output").hasArg()
+                            .desc("Output file of bulk or file mode. " + STDIN_STDOUT + " for STDOUT (default)")
+                            .argName("output file").build());
+
+    options.addOption(Option.builder(FORMAT_KEY).longOpt("format").hasArg()
+                            .desc("Format of bulk input and output: [properties, json]. "
+                                  + "Decided by input file extension if not provided")
+                            .argName("format").build());
+
+    options.addOption(Option.builder(THREADS_KEY).longOpt("threads").hasArg()
+                            .desc("Number of threads for bulk mode. Number of processors by default")
+                            .argName("threads").build());
 
-    options.addOption(Option.builder(PASSPHRASE_KEY).longOpt("key").hasArg().required()
-                            .desc("Passphrase used for encrypting plain text")
-                            .argName("pass phrase").build());
+    OptionGroup keyGroup = new OptionGroup();
+    keyGroup.setRequired(true);
+    keyGroup.addOption(Option.builder(PASSPHRASE_KEY).longOpt("key").hasArg()
+                             .desc("Passphrase used for encrypting plain text")
+                             .argName("pass phrase").build());
+    keyGroup.addOption(Option.builder(KEYRING_KEY).longOpt("keyring").hasArg()
+                             .desc("Keyring file whose active key is used for encrypting plain text")
+                             .argName("keyring file").build());
+    options.addOptionGroup(keyGroup);
 
-    options.addOption(Option.builder(VERSION_KEY).longOpt("version").hasArg().required()
-        .desc("Version it will use to encrypt Version: " + Version.versionStrings())
+    options.addOption(Option.builder(VERSION_KEY).longOpt("version").hasArg()
+        .desc("Version it will use to encrypt Version: " + Version.versionStrings() + ". Required unless file mode")
         .argName("crypto version").build());
 
     return options;
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.Hashing;
+
+/**
+ * Bounded, thread-safe cache of initialized encryptors keyed by crypto version and passphrase fingerprint.
+ * Initializing an encryptor (provider lookup, secret key factory, key from passphrase) is the expensive part of
+ * a single decryption, and the same passphrase is used over and over again in the same process.
+ *
+ * The passphrase itself is never used as a key. Only its SHA-256 fingerprint is.
+ *
+ * Default instance can be tuned through system properties:
+ * <ul>
+ *   <li>{@value #ENABLED_KEY} : true by default. Set it to false to turn off caching.</li>
+ *   <li>{@value #MAX_SIZE_KEY} : Maximum number of encryptors cached. {@value #DEFAULT_MAX_SIZE} by default.</li>
+ *   <li>{@value #TTL_SEC_KEY} : Seconds an encryptor stays in the cache after it was last used.
+ *       {@value #DEFAULT_TTL_SEC} by default.</li>
+ * </ul>
+ */
+public class EncryptorCache {
+  private static final Logger logger = Logger.getLogger(EncryptorCache.class);
+
+  public static final String ENABLED_KEY = "azkaban.crypto.cache.enabled";
+  public static final String MAX_SIZE_KEY = "azkaban.crypto.cache.max.size";
+  public static final String TTL_SEC_KEY = "azkaban.crypto.cache.ttl.sec";
+  static final long DEFAULT_MAX_SIZE = 64L;
+  static final long DEFAULT_TTL_SEC = 3600L;
+
+  private static final EncryptorCache DEFAULT =
+      new EncryptorCache(Boolean.valueOf(System.getProperty(ENABLED_KEY, Boolean.TRUE.toString())),
+                         Long.getLong(MAX_SIZE_KEY, DEFAULT_MAX_SIZE),
+                         Long.getLong(TTL_SEC_KEY, DEFAULT_TTL_SEC));
+
+  private final boolean enabled;
+  private final Cache<Key, Object> cache;
+
+  /**
+   * @param enabled If false, every lookup will create a new encryptor.
+   * @param maxSize Maximum number of encryptors to keep.
+   * @param ttlSec Seconds an encryptor stays in the cache after it was last accessed.
+   */
+  public EncryptorCache(boolean enabled, long maxSize, long ttlSec) {
+    Preconditions.checkArgument(maxSize > 0, "Max size should be greater than 0.");
+    Preconditions.checkArgument(ttlSec > 0, "TTL should be greater than 0.");
+    this.enabled = enabled;
+    this.cache = CacheBuilder.newBuilder()
+                             .maximumSize(maxSize)
+                             .expireAfterAccess(ttlSec, TimeUnit.SECONDS)
+                             .recordStats()
+                             .build();
+    logger.debug("Encryptor cache enabled: " + enabled + " , max size: " + maxSize + " , ttl sec: " + ttlSec);
+  }
+
+  /**
+   * @return Process wide instance configured via system properties.
+   */
+  public static EncryptorCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * @return An instance that does not cache.
+   */
+  public static EncryptorCache disabled() {
+    return new EncryptorCache(false, 1L, 1L);
+  }
+
+  /**
+   * Provides cached encryptor for the version and the passphrase, or creates one with the loader if it's not cached.
+   * Note that the encryptor returned will be shared across threads, so it needs to be thread safe.
+   *
+   * @param version Crypto version that the encryptor is for.
+   * @param passphrase Passphrase the encryptor is initialized with.
+   * @param loader Creates encryptor when it's not cached.
+   * @return Encryptor
+   */
+  public <T> T get(Version version, String passphrase, Callable<T> loader) {
+    return get(version, passphrase, "", loader);
+  }
+
+  /**
+   * Same as {@link #get(Version, String, Callable)}, but the entry is further distinguished by a qualifier.
+   * (e.g. salt and iteration count used to derive the key)
+   *
+   * @param version Crypto version that the encryptor is for.
+   * @param passphrase Passphrase the encryptor is initialized with.
+   * @param qualifier Additional, non-secret part of the cache key.
+   * @param loader Creates encryptor when it's not cached.
+   * @return Encryptor
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(Version version, String passphrase, String qualifier, Callable<T> loader) {
+    try {
+      if (!enabled) {
+        return loader.call();
+      }
+      return (T) cache.get(new Key(version, passphrase, qualifier), (Callable<Object>) loader);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private static class Key {
+    private final Version version;
+    private final String fingerprint;
+    private final String qualifier;
+
+    private Key(Version version, String passphrase, String qualifier) {
+      this.version = version;
+      this.fingerprint = Hashing.sha256().hashString(passphrase, StandardCharsets.UTF_8).toString();
+      this.qualifier = Preconditions.checkNotNull(qualifier);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(version, fingerprint, qualifier);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return version == other.version && fingerprint.equals(other.fingerprint) && qualifier.equals(other.qualifier);
+    }
+  }
+}
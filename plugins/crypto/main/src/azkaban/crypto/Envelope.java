@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
+/**
+ * Ciphered text decoded once, so that version specific implementation does not need to decode and parse it again.
+ *
+ * V1.x: Base64(JSON{"ver": version, "val": Base64(ciphered bytes)}) where payload is the ciphered bytes.
+ * V2.0, V3.0: Base64(version byte | header | ciphered bytes) where payload is the whole decoded binary.
+ *
+ * Ciphered text encrypted with a {@link Keyring} is prefixed by the key ID before Base64 encoding:
+ * Base64(key ID marker (0x01) | key ID length (1 byte) | key ID (ASCII) | any of above before Base64 encoding)
+ */
+class Envelope {
+  static final String CIPHERED_TEXT_KEY = "val";
+  static final byte KEY_ID_MARKER = 0x01;
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final Version version;
+  private final byte[] payload;
+  private final Optional<String> keyId;
+
+  Envelope(Version version, byte[] payload) {
+    this(version, payload, Optional.<String>absent());
+  }
+
+  Envelope(Version version, byte[] payload, Optional<String> keyId) {
+    this.version = Preconditions.checkNotNull(version);
+    this.payload = Preconditions.checkNotNull(payload);
+    this.keyId = Preconditions.checkNotNull(keyId);
+  }
+
+  /**
+   * Prefixes ciphered text with the key ID.
+   * @param cipheredText Base64 encoded ciphered text without key ID
+   * @param keyId Key ID
+   * @return Base64 encoded ciphered text with key ID
+   */
+  static String withKeyId(String cipheredText, String keyId) {
+    Preconditions.checkArgument(Keyring.isValidKeyId(keyId), "Invalid key ID " + keyId);
+    byte[] decoded = Base64.getDecoder().decode(cipheredText);
+    Preconditions.checkArgument(decoded.length > 0 && decoded[0] != KEY_ID_MARKER, "Ciphered text already has key ID");
+    byte[] id = keyId.getBytes(StandardCharsets.US_ASCII);
+
+    byte[] result = new byte[2 + id.length + decoded.length];
+    result[0] = KEY_ID_MARKER;
+    result[1] = (byte) id.length;
+    System.arraycopy(id, 0, result, 2, id.length);
+    System.arraycopy(decoded, 0, result, 2 + id.length, decoded.length);
+    return Base64.getEncoder().encodeToString(result);
+  }
+
+  /**
+   * Decodes Base64 once and reads version and payload in a single pass with streaming JSON parser.
+   * @param cipheredText Base64 encoded ciphered text
+   * @return Envelope
+   */
+  static Envelope parse(String cipheredText) {
+    byte[] decoded = Base64.getDecoder().decode(cipheredText);
+    Preconditions.checkArgument(decoded.length > 0, "Invalid ciphered text");
+
+    Optional<String> keyId = Optional.absent();
+    if (decoded[0] == KEY_ID_MARKER) {
+      Preconditions.checkArgument(decoded.length > 2, "Invalid ciphered text");
+      int idLength = decoded[1] & 0xFF;
+      Preconditions.checkArgument(decoded.length > 2 + idLength, "Invalid ciphered text");
+      keyId = Optional.of(new String(decoded, 2, idLength, StandardCharsets.US_ASCII));
+      decoded = Arrays.copyOfRange(decoded, 2 + idLength, decoded.length);
+    }
+
+    if (decoded[0] == CryptoV2.VERSION_BYTE) {
+      return new Envelope(Version.V2_0, decoded, keyId);
+    }
+    if (decoded[0] == CryptoV3.VERSION_BYTE) {
+      return new Envelope(Version.V3_0, decoded, keyId);
+    }
+
+    try (JsonParser parser = JSON_FACTORY.createParser(decoded)) {
+      Preconditions.checkArgument(parser.nextToken() == JsonToken.START_OBJECT, "Invalid ciphered text");
+      Version version = null;
+      byte[] payload = null;
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+        if (ICrypto.VERSION_IDENTIFIER.equals(field)) {
+          version = Version.fromVerString(parser.getText());
+        } else if (CIPHERED_TEXT_KEY.equals(field)) {
+          payload = parser.getBinaryValue();
+        } else {
+          parser.skipChildren();
+        }
+      }
+      Preconditions.checkArgument(version != null, "Version is missing in ciphered text");
+      Preconditions.checkArgument(payload != null, "Ciphered value is missing in ciphered text");
+      return new Envelope(version, payload, keyId);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid ciphered text", e);
+    }
+  }
+
+  Version getVersion() {
+    return version;
+  }
+
+  byte[] getPayload() {
+    return payload;
+  }
+
+  /**
+   * @return ID of the key ciphered text was encrypted with. Absent if it was encrypted with a plain passphrase.
+   */
+  Optional<String> getKeyId() {
+    return keyId;
+  }
+}
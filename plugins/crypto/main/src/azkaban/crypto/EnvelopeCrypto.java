@@ -0,0 +1,26 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+/**
+ * Version specific ICrypto that can decrypt already parsed envelope.
+ */
+interface EnvelopeCrypto extends ICrypto {
+
+  /**
+   * Decrypts parsed envelope.
+   * @param envelope Envelope parsed from ciphered text
+   * @param passphrase Passphrase that was used as a key to encrypt the ciphered text
+   * @return plain text String
+   */
+  String decrypt(Envelope envelope, String passphrase);
+}
@@ -11,6 +11,9 @@
  */
 package azkaban.crypto;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Encrypts plain text and decrypts ciphered text.
  */
@@ -34,4 +37,24 @@ public interface ICrypto {
    * @return plain text String
    */
   public String decrypt (String cipheredText, String passphrase);
+
+  /**
+   * Decrypts multiple ciphered texts that were encrypted with same passphrase.
+   * Failure of one entry does not fail the others; it is reported in the result of the entry.
+   *
+   * @param cipheredByKey Base64 encoded ciphered texts keyed by caller defined key (e.g. property name)
+   * @param passphrase Passphrase that was used as a key to encrypt the ciphered texts
+   * @return Decryption results keyed by the same key, in the same iteration order.
+   */
+  public default Map<String, DecryptionResult> decryptAll(Map<String, String> cipheredByKey, String passphrase) {
+    Map<String, DecryptionResult> results = new LinkedHashMap<>();
+    for (Map.Entry<String, String> entry : cipheredByKey.entrySet()) {
+      try {
+        results.put(entry.getKey(), DecryptionResult.success(decrypt(entry.getValue(), passphrase)));
+      } catch (RuntimeException e) {
+        results.put(entry.getKey(), DecryptionResult.failure(e));
+      }
+    }
+    return results;
+  }
 }
\ No newline at end of file
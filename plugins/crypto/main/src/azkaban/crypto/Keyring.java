@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Set of passphrases identified by short key IDs, so that a passphrase can be rotated without re-encrypting every
+ * ciphered text at once. Ciphered text encrypted with a keyring carries the ID of the key, and decryption looks up the
+ * key by the ID.
+ *
+ * Keyring file format. The first line is the header, "#" starts a comment line, and the rest are
+ * "key ID=passphrase" lines. Passphrase is taken as is after the first "=".
+ * <pre>
+ * #!azkaban-keyring
+ * active=2017q1
+ * default=2016q4
+ * 2016q4=old passphrase
+ * 2017q1=new passphrase
+ * </pre>
+ * "active" is the key used for encryption, which can be omitted if there's only one key. "default" is the key used for
+ * ciphered texts without key ID (encrypted before keyring was introduced), which is the active key if omitted.
+ *
+ * A file without the header is a plain passphrase file, whose first line is the only key and has no ID.
+ */
+public class Keyring {
+  static final String HEADER = "#!azkaban-keyring";
+  static final String ACTIVE_KEY = "active";
+  static final String DEFAULT_KEY = "default";
+  private static final Pattern KEY_ID_PATTERN = Pattern.compile("[A-Za-z0-9._-]{1,32}");
+
+  private final Map<String, String> passphrases;
+  private final Optional<String> activeKeyId;
+  private final String activePassphrase;
+  private final String defaultPassphrase;
+
+  private Keyring(Map<String, String> passphrases, Optional<String> activeKeyId, String activePassphrase,
+                  String defaultPassphrase) {
+    this.passphrases = passphrases;
+    this.activeKeyId = activeKeyId;
+    this.activePassphrase = activePassphrase;
+    this.defaultPassphrase = defaultPassphrase;
+  }
+
+  /**
+   * @param passphrase Passphrase
+   * @return Keyring of a single key without ID. Ciphered texts encrypted with it are same as the ones encrypted with
+   *         the passphrase.
+   */
+  public static Keyring single(String passphrase) {
+    Preconditions.checkArgument(passphrase != null && !passphrase.isEmpty(), "passphrase should not be empty");
+    return new Keyring(ImmutableMap.<String, String>of(), Optional.<String>absent(), passphrase, passphrase);
+  }
+
+  /**
+   * Parses keyring file, or plain passphrase file if the header is missing.
+   *
+   * @param reader Reader of the file
+   * @return Keyring
+   * @throws IOException
+   */
+  public static Keyring parse(Reader reader) throws IOException {
+    BufferedReader br = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    String firstLine = br.readLine();
+    if (!HEADER.equals(firstLine == null ? null : firstLine.trim())) {
+      return single(firstLine);
+    }
+
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    String activeKeyId = null;
+    String defaultKeyId = null;
+    String line;
+    int lineNumber = 1;
+    while ((line = br.readLine()) != null) {
+      lineNumber++;
+      if (line.trim().isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      int idx = line.indexOf('=');
+      Preconditions.checkArgument(idx > 0, "Invalid keyring entry at line " + lineNumber);
+      String name = line.substring(0, idx).trim();
+      String value = line.substring(idx + 1);
+
+      if (ACTIVE_KEY.equals(name)) {
+        activeKeyId = value.trim();
+      } else if (DEFAULT_KEY.equals(name)) {
+        defaultKeyId = value.trim();
+      } else {
+        Preconditions.checkArgument(isValidKeyId(name), "Invalid key ID at line " + lineNumber);
+        Preconditions.checkArgument(!value.isEmpty(), "Empty passphrase at line " + lineNumber);
+        builder.put(name, value);
+      }
+    }
+
+    //Throws IllegalArgumentException on duplicate key IDs.
+    Map<String, String> passphrases = builder.build();
+    Preconditions.checkArgument(!passphrases.isEmpty(), "Keyring does not have any key.");
+    if (activeKeyId == null) {
+      Preconditions.checkArgument(passphrases.size() == 1, "Active key is required when keyring has multiple keys.");
+      activeKeyId = passphrases.keySet().iterator().next();
+    }
+    if (defaultKeyId == null) {
+      defaultKeyId = activeKeyId;
+    }
+    Preconditions.checkArgument(passphrases.containsKey(activeKeyId), "Active key " + activeKeyId + " does not exist.");
+    Preconditions.checkArgument(passphrases.containsKey(defaultKeyId),
+                                "Default key " + defaultKeyId + " does not exist.");
+
+    return new Keyring(passphrases, Optional.of(activeKeyId), passphrases.get(activeKeyId),
+                       passphrases.get(defaultKeyId));
+  }
+
+  static boolean isValidKeyId(String keyId) {
+    return keyId != null && KEY_ID_PATTERN.matcher(keyId).matches();
+  }
+
+  /**
+   * @return ID of the key used for encryption. Absent if it's a plain passphrase.
+   */
+  public Optional<String> getActiveKeyId() {
+    return activeKeyId;
+  }
+
+  /**
+   * @return Passphrase used for encryption.
+   */
+  public String getActivePassphrase() {
+    return activePassphrase;
+  }
+
+  /**
+   * @param keyId Key ID in the ciphered text. Absent if ciphered text does not have it.
+   * @return Passphrase of the key
+   * @throws IllegalArgumentException if key does not exist in the keyring.
+   */
+  public String getPassphrase(Optional<String> keyId) {
+    if (!keyId.isPresent()) {
+      return defaultPassphrase;
+    }
+    String passphrase = passphrases.get(keyId.get());
+    Preconditions.checkArgument(passphrase != null, "Key " + keyId.get() + " does not exist in keyring.");
+    return passphrase;
+  }
+
+  @Override
+  public String toString() {
+    //Never print passphrases.
+    return "Keyring [keyIds=" + passphrases.keySet() + ", activeKeyId=" + activeKeyId + "]";
+  }
+}
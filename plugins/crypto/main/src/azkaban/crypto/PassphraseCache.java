@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsAction;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+
+/**
+ * Process wide cache of passphrase files keyed by fully qualified path (file system URI + path). Passphrase file can be
+ * either a plain passphrase file or a keyring file (see {@link Keyring}), and it's cached as parsed {@link Keyring}
+ * together with its modification time.
+ *
+ * Within TTL, cached passphrase is returned without any file system call. After TTL, the entry is revalidated with a
+ * single getFileStatus call that also re-checks the permission, and the file is read again only if its modification
+ * time or length has changed.
+ *
+ * TTL of default instance can be configured by system property {@value #TTL_SEC_KEY}. TTL 0 means revalidating on
+ * every lookup.
+ */
+public class PassphraseCache {
+  private static final Logger logger = Logger.getLogger(PassphraseCache.class);
+
+  public static final String TTL_SEC_KEY = "azkaban.crypto.passphrase.cache.ttl.sec";
+  static final long DEFAULT_TTL_SEC = 60L;
+
+  static final FsPermission USER_READ_PERMISSION_ONLY = new FsPermission(FsAction.READ,
+                                                                         FsAction.NONE,
+                                                                         FsAction.NONE);
+
+  private static final PassphraseCache DEFAULT = new PassphraseCache(Long.getLong(TTL_SEC_KEY, DEFAULT_TTL_SEC),
+                                                                     Ticker.systemTicker());
+
+  private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+  private final long ttlNanos;
+  private final Ticker ticker;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  /**
+   * @param ttlSec Seconds a cached passphrase is trusted without revalidation.
+   * @param ticker Time source
+   */
+  public PassphraseCache(long ttlSec, Ticker ticker) {
+    Preconditions.checkArgument(ttlSec >= 0, "TTL should not be negative.");
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSec);
+    this.ticker = Preconditions.checkNotNull(ticker);
+  }
+
+  public static PassphraseCache getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Provides passphrase, which is the first line of the plain passphrase file, or the active key of the keyring file.
+   *
+   * @param passphrasePath Path of the passphrase file.
+   * @param fs File system where passphrase file is.
+   * @return Passphrase
+   * @throws IOException
+   */
+  public String getPassphrase(String passphrasePath, FileSystem fs) throws IOException {
+    return getKeyring(passphrasePath, fs).getActivePassphrase();
+  }
+
+  /**
+   * Provides parsed keyring of the passphrase file. Plain passphrase file is a keyring of a single key without ID.
+   *
+   * @param passphrasePath Path of the passphrase or keyring file.
+   * @param fs File system where the file is.
+   * @return Keyring
+   * @throws IOException
+   */
+  public Keyring getKeyring(String passphrasePath, FileSystem fs) throws IOException {
+    Path path = new Path(passphrasePath);
+    String key = fs.makeQualified(path).toString();
+    long now = ticker.read();
+
+    Entry entry = cache.get(key);
+    if (entry != null && now - entry.validatedAt < ttlNanos) {
+      hitCount.incrementAndGet();
+      return entry.keyring;
+    }
+
+    FileStatus fileStatus = getValidatedStatus(path, passphrasePath, fs);
+    if (entry != null
+        && entry.modificationTime == fileStatus.getModificationTime()
+        && entry.length == fileStatus.getLen()) {
+      hitCount.incrementAndGet();
+      cache.put(key, new Entry(entry.keyring, entry.modificationTime, entry.length, now));
+      return entry.keyring;
+    }
+
+    missCount.incrementAndGet();
+    logger.info("Reading passphrase file " + key);
+    Keyring keyring = read(path, fs);
+    cache.put(key, new Entry(keyring, fileStatus.getModificationTime(), fileStatus.getLen(), now));
+    return keyring;
+  }
+
+  private static FileStatus getValidatedStatus(Path path, String passphrasePath, FileSystem fs) throws IOException {
+    FileStatus fileStatus;
+    try {
+      fileStatus = fs.getFileStatus(path);
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("File does not exist at " + passphrasePath, e);
+    }
+    Preconditions.checkArgument(!fileStatus.isDirectory(), "Passphrase path is not a file. " + passphrasePath);
+    Preconditions.checkArgument(USER_READ_PERMISSION_ONLY.equals(fileStatus.getPermission()),
+                                "Passphrase file should only have read only permission on only user. " + passphrasePath);
+    return fileStatus;
+  }
+
+  private static Keyring read(Path path, FileSystem fs) throws IOException {
+    try (BufferedReader br = new BufferedReader(new InputStreamReader(fs.open(path), StandardCharsets.UTF_8))) {
+      return Keyring.parse(br);
+    }
+  }
+
+  /**
+   * @return Number of lookups served without reading the passphrase file.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * @return Number of lookups that read the passphrase file.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public void invalidateAll() {
+    cache.clear();
+  }
+
+  private static class Entry {
+    private final Keyring keyring;
+    private final long modificationTime;
+    private final long length;
+    private final long validatedAt;
+
+    private Entry(Keyring keyring, long modificationTime, long length, long validatedAt) {
+      this.keyring = keyring;
+      this.modificationTime = modificationTime;
+      this.length = length;
+      this.validatedAt = validatedAt;
+    }
+  }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.function.Function;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
+/**
+ * Encrypts and decrypts streams of arbitrary size with constant memory, using chunked AES-GCM with a key derived by
+ * PBKDF2 (same primitives as {@link CryptoV2}).
+ *
+ * Layout. All integers are big endian.
+ * <pre>
+ * key ID: | key ID marker (0x01) | key ID length (1 byte) | key ID (ASCII) |   (only when encrypted with a keyring key
+ *                                                                              that has an ID, as in {@link Envelope})
+ * header: | format byte (0x12) | chunk size (int) | iterations (int) | salt (16 bytes) | nonce prefix (7 bytes) |
+ * chunks: | AES-GCM(chunk i) + tag (16 bytes) | ...
+ * </pre>
+ * Every chunk except the last one has exactly chunk size bytes of plain text. Nonce of a chunk is
+ * nonce prefix | chunk index (int) | last chunk flag (1 byte), and the key ID and the header are authenticated as
+ * additional data of every chunk. Thus reordering, truncating or appending chunks, and modifying the key ID or the
+ * header fail the decryption.
+ */
+public class StreamCrypto {
+  static final byte FORMAT_BYTE = 0x12;
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+  private static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+  private static final int NONCE_PREFIX_LENGTH = 7;
+  private static final int NONCE_LENGTH = NONCE_PREFIX_LENGTH + Integer.BYTES + 1;
+  private static final int TAG_LENGTH = CryptoV2.TAG_LENGTH_BITS / Byte.SIZE;
+  static final int HEADER_LENGTH = 1 + Integer.BYTES + Integer.BYTES + CryptoV2.SALT_LENGTH + NONCE_PREFIX_LENGTH;
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final int chunkSize;
+  private final int iterations;
+
+  public StreamCrypto() {
+    this(DEFAULT_CHUNK_SIZE, Integer.getInteger(CryptoV2.ITERATIONS_KEY, CryptoV2.DEFAULT_ITERATIONS));
+  }
+
+  /**
+   * @param chunkSize Size of plain text chunk. Memory used is a few times of it regardless of stream size.
+   * @param iterations PBKDF2 iteration count used for encryption. Decryption uses the one in the header.
+   */
+  public StreamCrypto(int chunkSize, int iterations) {
+    Preconditions.checkArgument(chunkSize > 0 && chunkSize <= MAX_CHUNK_SIZE,
+                                "Chunk size should be between 1 and " + MAX_CHUNK_SIZE);
+    Preconditions.checkArgument(iterations > 0 && iterations <= CryptoV2.MAX_ITERATIONS,
+                                "Iterations should be between 1 and " + CryptoV2.MAX_ITERATIONS);
+    this.chunkSize = chunkSize;
+    this.iterations = iterations;
+  }
+
+  /**
+   * Encrypts the input stream into the output stream. Neither of streams is closed.
+   *
+   * @return Number of plain text bytes encrypted.
+   * @throws IOException
+   */
+  public long encrypt(InputStream in, OutputStream out, String passphrase) throws IOException {
+    return encrypt(in, out, Keyring.single(passphrase));
+  }
+
+  /**
+   * Encrypts the input stream into the output stream with the active key of the keyring, and writes its key ID ahead
+   * of the header. Neither of streams is closed.
+   *
+   * @return Number of plain text bytes encrypted.
+   * @throws IOException
+   */
+  public long encrypt(InputStream in, OutputStream out, Keyring keyring) throws IOException {
+    Preconditions.checkNotNull(keyring);
+    String passphrase = keyring.getActivePassphrase();
+    byte[] keyIdPrefix = keyIdPrefix(keyring.getActiveKeyId());
+
+    byte[] salt = new byte[CryptoV2.SALT_LENGTH];
+    RANDOM.nextBytes(salt);
+    byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+    RANDOM.nextBytes(noncePrefix);
+
+    byte[] header = ByteBuffer.allocate(keyIdPrefix.length + HEADER_LENGTH)
+                              .put(keyIdPrefix)
+                              .put(FORMAT_BYTE)
+                              .putInt(chunkSize)
+                              .putInt(iterations)
+                              .put(salt)
+                              .put(noncePrefix)
+                              .array();
+    out.write(header);
+
+    try {
+      SecretKey key = CryptoV2.deriveKey(passphrase, salt, iterations);
+      Cipher cipher = Cipher.getInstance(CryptoV2.CIPHER_ALGO);
+
+      //One extra byte to look ahead whether current chunk is the last one.
+      byte[] plain = new byte[chunkSize + 1];
+      byte[] ciphered = new byte[chunkSize + TAG_LENGTH];
+      int length = readFully(in, plain, 0, plain.length);
+      long total = 0L;
+      int index = 0;
+
+      while (true) {
+        boolean isLast = length <= chunkSize;
+        int chunkLength = Math.min(length, chunkSize);
+
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(CryptoV2.TAG_LENGTH_BITS,
+                                                                   nonce(noncePrefix, index, isLast)));
+        cipher.updateAAD(header);
+        int cipheredLength = cipher.doFinal(plain, 0, chunkLength, ciphered, 0);
+        out.write(ciphered, 0, cipheredLength);
+        total += chunkLength;
+
+        if (isLast) {
+          return total;
+        }
+        plain[0] = plain[chunkSize];
+        length = 1 + readFully(in, plain, 1, chunkSize);
+        index = Math.addExact(index, 1);
+      }
+    } catch (GeneralSecurityException e) {
+      throw new IOException("Failed to encrypt stream", e);
+    }
+  }
+
+  /**
+   * Decrypts the input stream into the output stream. Neither of streams is closed.
+   *
+   * @return Number of plain text bytes decrypted.
+   * @throws IOException If stream is not valid, has been tampered, or passphrase is wrong.
+   */
+  public long decrypt(InputStream in, OutputStream out, String passphrase) throws IOException {
+    return copy(newDecryptingStream(in, passphrase), out);
+  }
+
+  /**
+   * Decrypts the input stream into the output stream with the key of the key ID in the stream, or with the default
+   * key of the keyring if it does not have one. Neither of streams is closed.
+   *
+   * @return Number of plain text bytes decrypted.
+   * @throws IOException If stream is not valid, has been tampered, or key is wrong.
+   */
+  public long decrypt(InputStream in, OutputStream out, Keyring keyring) throws IOException {
+    return copy(newDecryptingStream(in, keyring), out);
+  }
+
+  private long copy(InputStream decrypting, OutputStream out) throws IOException {
+    byte[] buffer = new byte[chunkSize];
+    long total = 0L;
+    int read;
+    while ((read = decrypting.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+      total += read;
+    }
+    return total;
+  }
+
+  /**
+   * @return InputStream that reads plain text from the ciphered input stream. Closing it closes the input stream.
+   * @throws IOException
+   */
+  public InputStream newDecryptingStream(InputStream in, String passphrase) throws IOException {
+    Preconditions.checkArgument(passphrase != null && !passphrase.isEmpty(), "passphrase should not be empty");
+    return new DecryptingInputStream(in, keyId -> passphrase);
+  }
+
+  /**
+   * @return InputStream that reads plain text from the ciphered input stream, using the key of the key ID in the
+   *         stream, or the default key of the keyring if it does not have one. Closing it closes the input stream.
+   * @throws IOException
+   */
+  public InputStream newDecryptingStream(InputStream in, Keyring keyring) throws IOException {
+    Preconditions.checkNotNull(keyring);
+    return new DecryptingInputStream(in, keyring::getPassphrase);
+  }
+
+  /**
+   * Encrypts file to file through file channels.
+   * @return Number of plain text bytes encrypted.
+   */
+  public long encrypt(Path src, Path dest, String passphrase) throws IOException {
+    return encrypt(src, dest, Keyring.single(passphrase));
+  }
+
+  /**
+   * Encrypts file to file through file channels, with the active key of the keyring.
+   * @return Number of plain text bytes encrypted.
+   */
+  public long encrypt(Path src, Path dest, Keyring keyring) throws IOException {
+    try (FileChannel srcChannel = FileChannel.open(src, StandardOpenOption.READ);
+         FileChannel destChannel = FileChannel.open(dest, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+      return encrypt(Channels.newInputStream(srcChannel), Channels.newOutputStream(destChannel), keyring);
+    }
+  }
+
+  /**
+   * Decrypts file to file through file channels.
+   * @return Number of plain text bytes decrypted.
+   */
+  public long decrypt(Path src, Path dest, String passphrase) throws IOException {
+    try (FileChannel srcChannel = FileChannel.open(src, StandardOpenOption.READ);
+         FileChannel destChannel = FileChannel.open(dest, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+      return decrypt(Channels.newInputStream(srcChannel), Channels.newOutputStream(destChannel), passphrase);
+    }
+  }
+
+  private static byte[] keyIdPrefix(Optional<String> keyId) {
+    if (!keyId.isPresent()) {
+      return new byte[0];
+    }
+    Preconditions.checkArgument(Keyring.isValidKeyId(keyId.get()), "Invalid key ID " + keyId.get());
+    byte[] id = keyId.get().getBytes(StandardCharsets.US_ASCII);
+    return ByteBuffer.allocate(2 + id.length)
+                     .put(Envelope.KEY_ID_MARKER)
+                     .put((byte) id.length)
+                     .put(id)
+                     .array();
+  }
+
+  private static byte[] nonce(byte[] noncePrefix, int index, boolean isLast) {
+    return ByteBuffer.allocate(NONCE_LENGTH)
+                     .put(noncePrefix)
+                     .putInt(index)
+                     .put((byte) (isLast ? 1 : 0))
+                     .array();
+  }
+
+  /**
+   * @return Number of bytes read, which is less than length only when the end of stream has been reached.
+   */
+  private static int readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+    int total = 0;
+    while (total < length) {
+      int read = in.read(buffer, offset + total, length - total);
+      if (read < 0) {
+        break;
+      }
+      total += read;
+    }
+    return total;
+  }
+
+  private static class DecryptingInputStream extends InputStream {
+    private final InputStream in;
+    private final byte[] header;
+    private final byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+    private final int chunkSize;
+    private final SecretKey key;
+    private final Cipher cipher;
+    private final byte[] ciphered;
+    private final byte[] plain;
+
+    private int cipheredLength;
+    private int plainPosition;
+    private int plainLength;
+    private int index;
+    private boolean isDone;
+
+    /**
+     * @param passphrases Returns passphrase of the key ID in the stream, or the default one if the ID is absent.
+     */
+    private DecryptingInputStream(InputStream in, Function<Optional<String>, String> passphrases) throws IOException {
+      this.in = in;
+      Optional<String> keyId = Optional.absent();
+      try {
+        DataInputStream dataIn = new DataInputStream(in);
+        int first = dataIn.readUnsignedByte();
+        if (first == Envelope.KEY_ID_MARKER) {
+          byte[] id = new byte[dataIn.readUnsignedByte()];
+          dataIn.readFully(id);
+          keyId = Optional.of(new String(id, StandardCharsets.US_ASCII));
+          if (!Keyring.isValidKeyId(keyId.get())) {
+            throw new IOException("Invalid key ID in ciphered stream.");
+          }
+          header = new byte[2 + id.length + HEADER_LENGTH];
+          header[0] = Envelope.KEY_ID_MARKER;
+          header[1] = (byte) id.length;
+          System.arraycopy(id, 0, header, 2, id.length);
+          dataIn.readFully(header, 2 + id.length, HEADER_LENGTH);
+        } else {
+          header = new byte[HEADER_LENGTH];
+          header[0] = (byte) first;
+          dataIn.readFully(header, 1, HEADER_LENGTH - 1);
+        }
+      } catch (EOFException e) {
+        throw new IOException("Ciphered stream is too short.", e);
+      }
+
+      ByteBuffer headerBuffer = ByteBuffer.wrap(header, header.length - HEADER_LENGTH, HEADER_LENGTH);
+      if (headerBuffer.get() != FORMAT_BYTE) {
+        throw new IOException("Not a ciphered stream.");
+      }
+      chunkSize = headerBuffer.getInt();
+      int iterations = headerBuffer.getInt();
+      if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE || iterations <= 0 || iterations > CryptoV2.MAX_ITERATIONS) {
+        throw new IOException("Invalid header. chunk size: " + chunkSize + " , iterations: " + iterations);
+      }
+      byte[] salt = new byte[CryptoV2.SALT_LENGTH];
+      headerBuffer.get(salt);
+      headerBuffer.get(noncePrefix);
+
+      try {
+        key = CryptoV2.deriveKey(passphrases.apply(keyId), salt, iterations);
+        cipher = Cipher.getInstance(CryptoV2.CIPHER_ALGO);
+      } catch (GeneralSecurityException e) {
+        throw new IOException(e);
+      }
+
+      //One extra byte to look ahead whether current chunk is the last one.
+      ciphered = new byte[chunkSize + TAG_LENGTH + 1];
+      plain = new byte[chunkSize];
+      cipheredLength = readFully(in, ciphered, 0, ciphered.length);
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!fill()) {
+        return -1;
+      }
+      return plain[plainPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      Preconditions.checkPositionIndexes(off, off + len, b.length);
+      if (len == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1;
+      }
+      int n = Math.min(len, plainLength - plainPosition);
+      System.arraycopy(plain, plainPosition, b, off, n);
+      plainPosition += n;
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return plainLength - plainPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+
+    /**
+     * Decrypts next chunk if current one has been consumed.
+     * @return false if there's no more plain text.
+     */
+    private boolean fill() throws IOException {
+      while (plainPosition >= plainLength) {
+        if (isDone) {
+          return false;
+        }
+
+        int fullLength = chunkSize + TAG_LENGTH;
+        boolean isLast = cipheredLength <= fullLength;
+        int chunkLength = Math.min(cipheredLength, fullLength);
+        if (chunkLength < TAG_LENGTH) {
+          throw new IOException("Ciphered stream is truncated.");
+        }
+
+        try {
+          cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(CryptoV2.TAG_LENGTH_BITS,
+                                                                     nonce(noncePrefix, index, isLast)));
+          cipher.updateAAD(header);
+          plainLength = cipher.doFinal(ciphered, 0, chunkLength, plain, 0);
+          plainPosition = 0;
+        } catch (GeneralSecurityException e) {
+          throw new IOException("Ciphered stream is corrupted, truncated, or passphrase is wrong.", e);
+        }
+
+        if (isLast) {
+          isDone = true;
+        } else {
+          ciphered[0] = ciphered[fullLength];
+          cipheredLength = 1 + readFully(in, ciphered, 1, fullLength);
+          index = Math.addExact(index, 1);
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -22,7 +22,9 @@ import com.google.common.collect.Lists;
 
 public enum Version {
   V1_0("1.0"),
-  V1_1("1.1");
+  V1_1("1.1"),
+  V2_0("2.0"),
+  V3_0("3.0");
 
   private static final Map<String, Version> REVERSE_ENTRIES;
   static {
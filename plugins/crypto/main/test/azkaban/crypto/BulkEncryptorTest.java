@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import junit.framework.Assert;
+
+public class BulkEncryptorTest {
+  private static final String PASSPHRASE = "test1234";
+
+  @Test
+  public void testProperties() throws IOException {
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      input.append("key").append(i).append("=plaintext ").append(i).append('\n');
+    }
+
+    ICrypto crypto = new Crypto();
+    for (Version ver : Version.values()) {
+      StringWriter out = new StringWriter();
+      int count = new BulkEncryptor(crypto, PASSPHRASE, ver, 4).encrypt(new StringReader(input.toString()), out,
+                                                                         BulkEncryptor.Format.PROPERTIES);
+      Assert.assertEquals(50, count);
+
+      Properties props = new Properties();
+      props.load(new StringReader(out.toString()));
+      Assert.assertEquals(50, props.size());
+      for (int i = 0; i < 50; i++) {
+        Assert.assertEquals("plaintext " + i, crypto.decrypt(props.getProperty("key" + i), PASSPHRASE));
+      }
+    }
+  }
+
+  @Test
+  public void testJson() throws IOException {
+    String input = "{\"b\":\"plaintext b\",\"a\":\"plaintext a\"}";
+
+    ICrypto crypto = new Crypto();
+    StringWriter out = new StringWriter();
+    int count = new BulkEncryptor(crypto, PASSPHRASE, Version.V1_1, 2).encrypt(new StringReader(input), out,
+                                                                               BulkEncryptor.Format.JSON);
+    Assert.assertEquals(2, count);
+
+    JsonNode json = new ObjectMapper().readTree(out.toString());
+    Iterator<Map.Entry<String, JsonNode>> it = json.fields();
+    Map.Entry<String, JsonNode> first = it.next();
+    Assert.assertEquals("b", first.getKey());
+    Assert.assertEquals("plaintext b", crypto.decrypt(first.getValue().asText(), PASSPHRASE));
+    Map.Entry<String, JsonNode> second = it.next();
+    Assert.assertEquals("a", second.getKey());
+    Assert.assertEquals("plaintext a", crypto.decrypt(second.getValue().asText(), PASSPHRASE));
+    Assert.assertFalse(it.hasNext());
+  }
+
+  @Test
+  public void testPropertiesKeysEscaped() throws IOException {
+    Properties input = new Properties();
+    String[] keys = {"tab\tkey", "new\nline", "carriage\rreturn", "form\ffeed", " lead space", "a=b:c", "#comment",
+                     "!bang", "back\\slash"};
+    for (String key : keys) {
+      input.setProperty(key, "plaintext");
+    }
+    StringWriter in = new StringWriter();
+    input.store(in, null);
+
+    ICrypto crypto = new Crypto();
+    StringWriter out = new StringWriter();
+    new BulkEncryptor(crypto, PASSPHRASE, Version.V1_1, 2).encrypt(new StringReader(in.toString()), out,
+                                                                   BulkEncryptor.Format.PROPERTIES);
+
+    Properties props = new Properties();
+    props.load(new StringReader(out.toString()));
+    Assert.assertEquals(input.stringPropertyNames(), props.stringPropertyNames());
+    for (String key : keys) {
+      Assert.assertEquals("plaintext", crypto.decrypt(props.getProperty(key), PASSPHRASE));
+    }
+  }
+
+  @Test
+  public void testJsonNotCompletedOnFailure() throws IOException {
+    String input = "{\"a\":\"plaintext a\",\"b\":\"fail\"}";
+    ICrypto crypto = new Crypto() {
+      @Override
+      public String encrypt(String plaintext, String passphrase, Version cryptoVersion) {
+        if ("fail".equals(plaintext)) {
+          throw new IllegalStateException("Failed");
+        }
+        return super.encrypt(plaintext, passphrase, cryptoVersion);
+      }
+    };
+
+    StringWriter out = new StringWriter();
+    try {
+      new BulkEncryptor(crypto, PASSPHRASE, Version.V1_1, 1).encrypt(new StringReader(input), out,
+                                                                     BulkEncryptor.Format.JSON);
+      Assert.fail("Should fail");
+    } catch (RuntimeException e) {
+      Assert.assertTrue(e.getMessage().contains("b"));
+    }
+    Assert.assertFalse(out.toString().contains("}"));
+  }
+
+  @Test
+  public void testFormatFromFileName() {
+    Assert.assertEquals(BulkEncryptor.Format.JSON, BulkEncryptor.Format.fromFileName("secrets.JSON"));
+    Assert.assertEquals(BulkEncryptor.Format.PROPERTIES, BulkEncryptor.Format.fromFileName("secrets.properties"));
+    Assert.assertEquals(BulkEncryptor.Format.PROPERTIES, BulkEncryptor.Format.fromFileName("-"));
+  }
+}
@@ -12,6 +12,10 @@
 package azkaban.crypto;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import junit.framework.Assert;
 
@@ -21,6 +25,8 @@ import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
+
 public class DecryptionTest {
 
   @Test
@@ -67,6 +73,100 @@ public class DecryptionTest {
     }
   }
 
+  @Test
+  public void testV2() throws IOException {
+    BasicConfigurator.configure();
+    Logger.getRootLogger().setLevel(Level.DEBUG);
+
+    String expected = "test";
+
+    String ciphered = "AgAAJxB3yY6fHEpLVYjqcBWtdQ4z13VPoRrltuKW3Uq77/vwpQD9z714QqG/mv1sIL4/WYQ=";
+    String passphrase = "test1234";
+
+    Crypto crypto = new Crypto();
+    String actual = crypto.decrypt(ciphered, passphrase);
+    Assert.assertEquals(expected, actual);
+
+    try {
+      new CryptoV1_1().decrypt(ciphered, passphrase);
+      Assert.fail("Should have failed when decrypt v2 ciphered text with v1.1 decryption.");
+    } catch (Exception e) {
+      Assert.assertTrue(e instanceof RuntimeException);
+    }
+  }
+
+  @Test
+  public void testV2Tampered() throws IOException {
+    byte[] decoded = Base64.getDecoder().decode("AgAAJxB3yY6fHEpLVYjqcBWtdQ4z13VPoRrltuKW3Uq77/vwpQD9z714QqG/mv1sIL4/WYQ=");
+    decoded[decoded.length - 1] ^= 0x01;
+    String tampered = Base64.getEncoder().encodeToString(decoded);
+
+    try {
+      new Crypto().decrypt(tampered, "test1234");
+      Assert.fail("Should have failed when ciphered text is tampered.");
+    } catch (Exception e) {
+      Assert.assertTrue(e instanceof RuntimeException);
+    }
+  }
+
+  @Test
+  public void testV3() throws IOException {
+    String expected = "test";
+
+    String ciphered = "AwAAJxBGZ2w+hdSQ6HHn/Xm+46GDwV0QkWe166l3A2Lmr9Ph3goJMyHB7dAGsrwIFptd4I7P3XpRi+v8a3SvcPNUv/f0zqZGhLPFPWk/xMVAm9Eomd5gBSee3RV2SSmI1w==";
+    String passphrase = "test1234";
+
+    Crypto crypto = new Crypto();
+    String actual = crypto.decrypt(ciphered, passphrase);
+    Assert.assertEquals(expected, actual);
+
+    try {
+      new CryptoV2().decrypt(ciphered, passphrase);
+      Assert.fail("Should have failed when decrypt v3 ciphered text with v2 decryption.");
+    } catch (Exception e) {
+      Assert.assertTrue(e instanceof RuntimeException);
+    }
+  }
+
+  @Test
+  public void testV3Rewrap() throws IOException {
+    String ciphered = "AwAAJxBGZ2w+hdSQ6HHn/Xm+46GDwV0QkWe166l3A2Lmr9Ph3goJMyHB7dAGsrwIFptd4I7P3XpRi+v8a3SvcPNUv/f0zqZGhLPFPWk/xMVAm9Eomd5gBSee3RV2SSmI1w==";
+    CryptoV3 crypto = new CryptoV3();
+    String rewrapped = crypto.rewrap(ciphered, "test1234", "test5678");
+    Assert.assertEquals("test", new Crypto().decrypt(rewrapped, "test5678"));
+
+    //Ciphered payload is untouched.
+    byte[] before = Base64.getDecoder().decode(ciphered);
+    byte[] after = Base64.getDecoder().decode(rewrapped);
+    int payloadOffset = CryptoV3.HEADER_LENGTH - CryptoV2.IV_LENGTH;
+    Assert.assertTrue(Arrays.equals(Arrays.copyOfRange(before, payloadOffset, before.length),
+                                    Arrays.copyOfRange(after, payloadOffset, after.length)));
+
+    try {
+      new Crypto().decrypt(rewrapped, "test1234");
+      Assert.fail("Should have failed to decrypt with old passphrase.");
+    } catch (Exception e) {
+      Assert.assertTrue(e instanceof RuntimeException);
+    }
+  }
+
+  @Test
+  public void testDecryptAll() {
+    Map<String, String> cipheredByKey = new LinkedHashMap<>();
+    cipheredByKey.put("v1", "eyJ2ZXIiOiIxLjAiLCJ2YWwiOiJOd1hRejdOMjBXUU05SXEzaE94RVZnPT0ifQ==");
+    cipheredByKey.put("v1_1", "eyJ2ZXIiOiIxLjEiLCJ2YWwiOiJpaE9CM2VzTzBad2F4cHZBV2Z5YUVicHZLQzJBWDJZZnVzS3hVWFN2R3A0PSJ9");
+    cipheredByKey.put("v2", "AgAAJxB3yY6fHEpLVYjqcBWtdQ4z13VPoRrltuKW3Uq77/vwpQD9z714QqG/mv1sIL4/WYQ=");
+    cipheredByKey.put("invalid", "invalid");
+
+    Map<String, DecryptionResult> results = new Crypto().decryptAll(cipheredByKey, "test1234");
+    Assert.assertEquals(Lists.newArrayList(cipheredByKey.keySet()), Lists.newArrayList(results.keySet()));
+    Assert.assertEquals("test", results.get("v1").getPlaintext());
+    Assert.assertEquals("test", results.get("v1_1").getPlaintext());
+    Assert.assertEquals("test", results.get("v2").getPlaintext());
+    Assert.assertFalse(results.get("invalid").isSuccess());
+    Assert.assertNotNull(results.get("invalid").getError());
+  }
+
   @Test
   public void testInvalidParams() throws IOException {
     BasicConfigurator.configure();
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+public class EncryptorCacheTest {
+
+  @Test
+  public void testCacheHit() {
+    EncryptorCache cache = new EncryptorCache(true, 10L, 60L);
+    ICrypto crypto = new Crypto(cache);
+    String passphrase = "test1234";
+
+    for (Version ver : Version.values()) {
+      String cipheredText = crypto.encrypt("test", passphrase, ver);
+      Assert.assertEquals("test", crypto.decrypt(cipheredText, passphrase));
+
+      long missCount = cache.stats().missCount();
+      long hitCount = cache.stats().hitCount();
+      for (int i = 0; i < 3; i++) {
+        Assert.assertEquals("test", crypto.decrypt(cipheredText, passphrase));
+      }
+      Assert.assertEquals(missCount, cache.stats().missCount());
+      Assert.assertEquals(hitCount + 3, cache.stats().hitCount());
+    }
+  }
+
+  @Test
+  public void testDifferentPassphrase() {
+    EncryptorCache cache = new EncryptorCache(true, 10L, 60L);
+    ICrypto crypto = new Crypto(cache);
+
+    String cipheredText = crypto.encrypt("test", "test1234", Version.V1_1);
+    try {
+      crypto.decrypt(cipheredText, "test5678");
+      Assert.fail("Should have failed when decrypt with different passphrase.");
+    } catch (Exception e) {
+      Assert.assertTrue(e instanceof RuntimeException);
+    }
+    Assert.assertEquals("test", crypto.decrypt(cipheredText, "test1234"));
+    Assert.assertEquals(2, cache.stats().missCount());
+  }
+
+  @Test
+  public void testDisabled() {
+    EncryptorCache cache = EncryptorCache.disabled();
+    ICrypto crypto = new Crypto(cache);
+
+    String cipheredText = crypto.encrypt("test", "test1234", Version.V1_1);
+    Assert.assertEquals("test", crypto.decrypt(cipheredText, "test1234"));
+    Assert.assertEquals(0, cache.stats().requestCount());
+  }
+}
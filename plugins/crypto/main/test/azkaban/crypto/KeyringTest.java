@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+
+import junit.framework.Assert;
+
+public class KeyringTest {
+  private static final String OLD_KEYRING = Keyring.HEADER + "\n"
+                                            + "k1=test1234\n";
+  private static final String ROTATED_KEYRING = Keyring.HEADER + "\n"
+                                                + "# rotated\n"
+                                                + "active=k2\n"
+                                                + "k1=test1234\n"
+                                                + "k2=test=5678\n";
+
+  @Test
+  public void testParse() throws IOException {
+    Keyring keyring = Keyring.parse(new StringReader(ROTATED_KEYRING));
+    Assert.assertEquals("k2", keyring.getActiveKeyId().get());
+    Assert.assertEquals("test=5678", keyring.getActivePassphrase());
+    Assert.assertEquals("test1234", keyring.getPassphrase(Optional.of("k1")));
+    Assert.assertEquals("test=5678", keyring.getPassphrase(Optional.<String>absent()));
+    Assert.assertFalse(keyring.toString().contains("test"));
+
+    Keyring single = Keyring.parse(new StringReader(OLD_KEYRING));
+    Assert.assertEquals("k1", single.getActiveKeyId().get());
+
+    Keyring plain = Keyring.parse(new StringReader("test1234\nignored"));
+    Assert.assertFalse(plain.getActiveKeyId().isPresent());
+    Assert.assertEquals("test1234", plain.getActivePassphrase());
+  }
+
+  @Test
+  public void testInvalid() throws IOException {
+    String[] invalids = {
+        Keyring.HEADER + "\n",
+        Keyring.HEADER + "\nk1=a\nk2=b\n",
+        Keyring.HEADER + "\nactive=k3\nk1=a\nk2=b\n",
+        Keyring.HEADER + "\nk1=a\nk1=b\n",
+        Keyring.HEADER + "\nkey id with space=a\n",
+        Keyring.HEADER + "\nno separator\n"
+    };
+    for (String invalid : invalids) {
+      try {
+        Keyring.parse(new StringReader(invalid));
+        Assert.fail("Should have failed to parse " + invalid);
+      } catch (IllegalArgumentException e) {
+        //Expected
+      }
+    }
+  }
+
+  @Test
+  public void testRotation() throws IOException {
+    Crypto crypto = new Crypto();
+    Keyring oldKeyring = Keyring.parse(new StringReader(OLD_KEYRING));
+    Keyring rotatedKeyring = Keyring.parse(new StringReader(ROTATED_KEYRING));
+
+    for (Version ver : Version.values()) {
+      String oldCiphered = crypto.encrypt("old secret", oldKeyring, ver);
+      String newCiphered = crypto.encrypt("new secret", rotatedKeyring, ver);
+      Assert.assertEquals(Optional.of("k1"), Envelope.parse(oldCiphered).getKeyId());
+      Assert.assertEquals(Optional.of("k2"), Envelope.parse(newCiphered).getKeyId());
+
+      Assert.assertEquals("old secret", crypto.decrypt(oldCiphered, rotatedKeyring));
+      Assert.assertEquals("new secret", crypto.decrypt(newCiphered, rotatedKeyring));
+      //Ciphered text with key ID still can be decrypted with the passphrase.
+      Assert.assertEquals("old secret", crypto.decrypt(oldCiphered, "test1234"));
+
+      try {
+        crypto.decrypt(newCiphered, oldKeyring);
+        Assert.fail("Should have failed when key does not exist in keyring.");
+      } catch (RuntimeException e) {
+        //Expected
+      }
+    }
+  }
+
+  @Test
+  public void testDecryptionsWithKeyringFile() throws IOException {
+    String legacyCiphered = new Crypto().encrypt("legacy secret", "test1234", Version.V1_1);
+    String rotatedCiphered = new Crypto().encrypt("new secret", Keyring.parse(new StringReader(ROTATED_KEYRING)),
+                                                  Version.V2_0);
+
+    File keyringFile = File.createTempFile("keyring", ".txt");
+    try {
+      String rotatedWithDefault = ROTATED_KEYRING + "default=k1\n";
+      Files.write(keyringFile.toPath(), rotatedWithDefault.getBytes(StandardCharsets.UTF_8));
+      FileSystem fs = FileSystem.getLocal(new Configuration());
+      fs.setPermission(new Path(keyringFile.getAbsolutePath()), new FsPermission((short) 0400));
+
+      Decryptions decryptions = new Decryptions(new PassphraseCache(60L, Ticker.systemTicker()));
+      Assert.assertEquals("legacy secret", decryptions.decrypt(legacyCiphered, keyringFile.getAbsolutePath(), fs));
+      Assert.assertEquals("new secret", decryptions.decrypt(rotatedCiphered, keyringFile.getAbsolutePath(), fs));
+    } finally {
+      keyringFile.delete();
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+import junit.framework.Assert;
+
+public class PassphraseCacheTest {
+  private File passphraseFile;
+  private FileSystem fs;
+  private FakeTicker ticker;
+
+  @Before
+  public void setup() throws IOException {
+    passphraseFile = File.createTempFile("passphrase", ".txt");
+    fs = FileSystem.getLocal(new Configuration());
+    ticker = new FakeTicker();
+    write("test1234");
+  }
+
+  @After
+  public void cleanup() {
+    passphraseFile.delete();
+  }
+
+  @Test
+  public void testCachedWithinTtl() throws IOException {
+    PassphraseCache cache = new PassphraseCache(60L, ticker);
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals("test1234", cache.getPassphrase(passphraseFile.getAbsolutePath(), fs));
+    }
+    Assert.assertEquals(1, cache.getMissCount());
+    Assert.assertEquals(2, cache.getHitCount());
+  }
+
+  @Test
+  public void testRevalidateAfterTtl() throws IOException {
+    PassphraseCache cache = new PassphraseCache(60L, ticker);
+    Assert.assertEquals("test1234", cache.getPassphrase(passphraseFile.getAbsolutePath(), fs));
+
+    ticker.advance(61L);
+    Assert.assertEquals("test1234", cache.getPassphrase(passphraseFile.getAbsolutePath(), fs));
+    Assert.assertEquals(1, cache.getMissCount());
+    Assert.assertEquals(1, cache.getHitCount());
+
+    write("test5678");
+    ticker.advance(61L);
+    Assert.assertEquals("test5678", cache.getPassphrase(passphraseFile.getAbsolutePath(), fs));
+    Assert.assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void testInvalidPermission() throws IOException {
+    PassphraseCache cache = new PassphraseCache(0L, ticker);
+    fs.setPermission(new Path(passphraseFile.getAbsolutePath()), new FsPermission((short) 0644));
+    try {
+      cache.getPassphrase(passphraseFile.getAbsolutePath(), fs);
+      Assert.fail("Should have failed with invalid permission.");
+    } catch (Exception e) {
+      Assert.assertTrue(e instanceof IllegalArgumentException);
+    }
+  }
+
+  @Test
+  public void testFileNotExist() throws IOException {
+    PassphraseCache cache = new PassphraseCache(0L, ticker);
+    passphraseFile.delete();
+    try {
+      cache.getPassphrase(passphraseFile.getAbsolutePath(), fs);
+      Assert.fail("Should have failed with non existing file.");
+    } catch (Exception e) {
+      Assert.assertTrue(e instanceof IllegalArgumentException);
+    }
+  }
+
+  private void write(String passphrase) throws IOException {
+    Path path = new Path(passphraseFile.getAbsolutePath());
+    fs.setPermission(path, new FsPermission((short) 0600));
+    Files.write(passphraseFile.toPath(), (passphrase + "\n").getBytes(StandardCharsets.UTF_8));
+    //Make sure modification time changes even within file system's time granularity.
+    passphraseFile.setLastModified(passphraseFile.lastModified() + TimeUnit.SECONDS.toMillis(2));
+    fs.setPermission(path, new FsPermission((short) 0400));
+  }
+
+  private static class FakeTicker extends Ticker {
+    private long nanos = 0L;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    private void advance(long seconds) {
+      nanos += TimeUnit.SECONDS.toNanos(seconds);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.crypto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+import junit.framework.Assert;
+
+public class StreamCryptoTest {
+  private static final String PASSPHRASE = "test1234";
+  private static final int CHUNK_SIZE = 1024;
+
+  private final StreamCrypto streamCrypto = new StreamCrypto(CHUNK_SIZE, 1000);
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    for (int size : new int[] {0, 1, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE + 1, CHUNK_SIZE * 3, CHUNK_SIZE * 5 + 7}) {
+      byte[] plain = randomBytes(size);
+      byte[] ciphered = encrypt(plain);
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      Assert.assertEquals(size, streamCrypto.decrypt(new ByteArrayInputStream(ciphered), out, PASSPHRASE));
+      Assert.assertTrue("Size " + size, Arrays.equals(plain, out.toByteArray()));
+
+      //Decryption uses chunk size from the header.
+      out.reset();
+      new StreamCrypto().decrypt(new ByteArrayInputStream(ciphered), out, PASSPHRASE);
+      Assert.assertTrue("Size " + size, Arrays.equals(plain, out.toByteArray()));
+    }
+  }
+
+  @Test
+  public void testTruncated() throws IOException {
+    byte[] ciphered = encrypt(randomBytes(CHUNK_SIZE * 3));
+
+    //Dropping the last chunk leaves a stream whose last chunk is not flagged as last.
+    int withoutLastChunk = ciphered.length - (ciphered.length - StreamCrypto.HEADER_LENGTH) / 3;
+    assertFailure(Arrays.copyOf(ciphered, withoutLastChunk), PASSPHRASE);
+    assertFailure(Arrays.copyOf(ciphered, ciphered.length - 1), PASSPHRASE);
+    assertFailure(Arrays.copyOf(ciphered, StreamCrypto.HEADER_LENGTH - 1), PASSPHRASE);
+  }
+
+  @Test
+  public void testTampered() throws IOException {
+    byte[] ciphered = encrypt(randomBytes(CHUNK_SIZE * 2));
+
+    byte[] tamperedBody = ciphered.clone();
+    tamperedBody[tamperedBody.length / 2] ^= 1;
+    assertFailure(tamperedBody, PASSPHRASE);
+
+    byte[] tamperedHeader = ciphered.clone();
+    tamperedHeader[StreamCrypto.HEADER_LENGTH - 1] ^= 1;
+    assertFailure(tamperedHeader, PASSPHRASE);
+
+    assertFailure(ciphered, "wrong1234");
+  }
+
+  @Test
+  public void testFiles() throws IOException {
+    File plainFile = File.createTempFile("plain", ".bin");
+    File cipheredFile = File.createTempFile("ciphered", ".bin");
+    File decryptedFile = File.createTempFile("decrypted", ".bin");
+    File passphraseFile = File.createTempFile("passphrase", ".txt");
+    try {
+      byte[] plain = randomBytes(CHUNK_SIZE * 10 + 3);
+      Files.write(plainFile.toPath(), plain);
+
+      Assert.assertEquals(plain.length, streamCrypto.encrypt(plainFile.toPath(), cipheredFile.toPath(), PASSPHRASE));
+      Assert.assertEquals(plain.length, streamCrypto.decrypt(cipheredFile.toPath(), decryptedFile.toPath(), PASSPHRASE));
+      Assert.assertTrue(Arrays.equals(plain, Files.readAllBytes(decryptedFile.toPath())));
+
+      FileSystem fs = FileSystem.getLocal(new Configuration());
+      Files.write(passphraseFile.toPath(), PASSPHRASE.getBytes(StandardCharsets.UTF_8));
+      fs.setPermission(new Path(passphraseFile.getAbsolutePath()), new FsPermission((short) 0400));
+      try (InputStream in = new Decryptions().decryptStream(cipheredFile.getAbsolutePath(),
+                                                            passphraseFile.getAbsolutePath(), fs)) {
+        Assert.assertTrue(Arrays.equals(plain, ByteStreams.toByteArray(in)));
+      }
+    } finally {
+      plainFile.delete();
+      cipheredFile.delete();
+      decryptedFile.delete();
+      passphraseFile.delete();
+    }
+  }
+
+  @Test
+  public void testKeyRotation() throws IOException {
+    Keyring oldKeyring = Keyring.parse(new StringReader(Keyring.HEADER + "\nk1=test1234\n"));
+    String rotatedKeyring = Keyring.HEADER + "\nactive=k2\nk1=test1234\nk2=test=5678\n";
+
+    File cipheredFile = File.createTempFile("ciphered", ".bin");
+    File keyringFile = File.createTempFile("keyring", ".txt");
+    try {
+      byte[] plain = randomBytes(CHUNK_SIZE * 2 + 5);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      streamCrypto.encrypt(new ByteArrayInputStream(plain), out, oldKeyring);
+      byte[] ciphered = out.toByteArray();
+      Files.write(cipheredFile.toPath(), ciphered);
+
+      //Key ID is authenticated along with the header.
+      byte[] tamperedKeyId = ciphered.clone();
+      tamperedKeyId[3] = '2';
+      try {
+        Keyring sameKeys = Keyring.parse(new StringReader(Keyring.HEADER + "\nactive=k1\nk1=test1234\nk2=test1234\n"));
+        streamCrypto.decrypt(new ByteArrayInputStream(tamperedKeyId), new ByteArrayOutputStream(), sameKeys);
+        Assert.fail("Should have failed to decrypt.");
+      } catch (IOException e) {
+        //Expected
+      }
+      //Stream with key ID still can be decrypted with the passphrase.
+      assertDecrypted(plain, ciphered, "test1234");
+
+      //Active key has been rotated after the file was encrypted.
+      FileSystem fs = FileSystem.getLocal(new Configuration());
+      Files.write(keyringFile.toPath(), rotatedKeyring.getBytes(StandardCharsets.UTF_8));
+      fs.setPermission(new Path(keyringFile.getAbsolutePath()), new FsPermission((short) 0400));
+      try (InputStream in = new Decryptions().decryptStream(cipheredFile.getAbsolutePath(),
+                                                            keyringFile.getAbsolutePath(), fs)) {
+        Assert.assertTrue(Arrays.equals(plain, ByteStreams.toByteArray(in)));
+      }
+    } finally {
+      cipheredFile.delete();
+      keyringFile.delete();
+    }
+  }
+
+  private void assertDecrypted(byte[] plain, byte[] ciphered, String passphrase) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    streamCrypto.decrypt(new ByteArrayInputStream(ciphered), out, passphrase);
+    Assert.assertTrue(Arrays.equals(plain, out.toByteArray()));
+  }
+
+  private byte[] encrypt(byte[] plain) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Assert.assertEquals(plain.length, streamCrypto.encrypt(new ByteArrayInputStream(plain), out, PASSPHRASE));
+    return out.toByteArray();
+  }
+
+  private void assertFailure(byte[] ciphered, String passphrase) {
+    try {
+      streamCrypto.decrypt(new ByteArrayInputStream(ciphered), new ByteArrayOutputStream(), passphrase);
+      Assert.fail("Should have failed to decrypt.");
+    } catch (IOException e) {
+      //Expected
+    }
+  }
+
+  private static byte[] randomBytes(int size) {
+    byte[] bytes = new byte[size];
+    new Random(size).nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.commons.io.IOUtils;
+
+import azkaban.jobtype.javautils.FileUtils;
+
+/**
+ * Compares extraction of the jars that ship under jobtypes/*&#47;lib (terajdbc4.jar, tdgssconfig.jar, ...) by the
+ * previous serial IOUtils.copy loop and by {@link TeraDataWalletInitializer#extract(File, File, int)} with 1 thread
+ * and with multiple threads.
+ *
+ * usage: WalletExtractionBenchmark [jar ...]
+ * Jars under jobtypes/*&#47;lib of current directory are used if none is given. Number of iterations and threads can be
+ * set by system properties benchmark.iterations (default 20) and benchmark.threads (default number of processors).
+ */
+public class WalletExtractionBenchmark {
+  private static final int WARMUP_ITERATIONS = 5;
+
+  public static void main(String[] args) throws IOException {
+    int iterations = Integer.getInteger("benchmark.iterations", 20);
+    int threads = Integer.getInteger("benchmark.threads", Runtime.getRuntime().availableProcessors());
+
+    List<File> jars = new ArrayList<>();
+    if (args.length > 0) {
+      for (String arg : args) {
+        jars.add(new File(arg));
+      }
+    } else {
+      File[] jobtypes = new File("jobtypes").listFiles();
+      if (jobtypes != null) {
+        for (File jobtype : jobtypes) {
+          File[] libs = new File(jobtype, "lib").listFiles((dir, name) -> name.endsWith(".jar"));
+          if (libs != null) {
+            for (File lib : libs) {
+              jars.add(lib);
+            }
+          }
+        }
+      }
+    }
+    if (jars.isEmpty()) {
+      throw new IllegalArgumentException("No jar to benchmark. Run it in plugins/jobtype or pass jar files.");
+    }
+
+    File workDir = Files.createTempDirectory("wallet-extraction-benchmark").toFile();
+    try {
+      System.out.println(String.format("%-60s %10s %8s %12s %12s %12s", "jar", "bytes", "entries", "serial(ms)",
+                                       "nio-1(ms)", "nio-" + threads + "(ms)"));
+      for (File jar : jars) {
+        int entries;
+        try (JarFile jarFile = new JarFile(jar)) {
+          entries = jarFile.size();
+        }
+        double serial = measure(workDir, iterations, dest -> extractSerially(jar, dest));
+        double nio = measure(workDir, iterations, dest -> TeraDataWalletInitializer.extract(jar, dest, 1));
+        double parallel = measure(workDir, iterations, dest -> TeraDataWalletInitializer.extract(jar, dest, threads));
+        System.out.println(String.format("%-60s %10d %8d %12.2f %12.2f %12.2f", jar.getPath(), jar.length(), entries,
+                                         serial, nio, parallel));
+      }
+    } finally {
+      FileUtils.tryDeleteFileOrDirectory(workDir);
+    }
+  }
+
+  private interface Extraction {
+    void extract(File dest) throws IOException;
+  }
+
+  /**
+   * @return Average milliseconds per extraction after warm up.
+   */
+  private static double measure(File workDir, int iterations, Extraction extraction) throws IOException {
+    long elapsed = 0L;
+    for (int i = 0; i < WARMUP_ITERATIONS + iterations; i++) {
+      File dest = new File(workDir, "unjar_" + i);
+      long start = System.nanoTime();
+      extraction.extract(dest);
+      if (i >= WARMUP_ITERATIONS) {
+        elapsed += System.nanoTime() - start;
+      }
+      FileUtils.tryDeleteFileOrDirectory(dest);
+    }
+    return elapsed / 1e6 / iterations;
+  }
+
+  /**
+   * Extraction loop before it became parallel.
+   */
+  private static void extractSerially(File jarFile, File dest) throws IOException {
+    dest.mkdirs();
+    try (JarFile jar = new JarFile(jarFile)) {
+      Enumeration<JarEntry> enumEntries = jar.entries();
+      while (enumEntries.hasMoreElements()) {
+        JarEntry srcFile = enumEntries.nextElement();
+        File destFile = new File(dest, srcFile.getName());
+        if (srcFile.isDirectory()) {
+          destFile.mkdirs();
+          continue;
+        }
+        destFile.getParentFile().mkdirs();
+        try (InputStream is = jar.getInputStream(srcFile);
+             OutputStream os = new BufferedOutputStream(new FileOutputStream(destFile))) {
+          IOUtils.copy(is, os);
+        }
+      }
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package azkaban.jobtype.connectors.jdbc;
 
+import java.util.List;
+
 import com.google.common.base.Optional;
 
 /**
@@ -24,6 +26,16 @@ public interface JdbcCommands {
    */
   public Optional<Integer> truncateTable(String table, Optional<String> database);
 
+  /**
+   * Deletes records matching with the predicate.
+   * @param table
+   * @param database
+   * @param predicate SQL predicate that may have ? placeholders for the parameters
+   * @param params Parameters of the predicate
+   * @return Number of deleted records
+   */
+  public Optional<Integer> deleteWhere(String table, Optional<String> database, String predicate, List<String> params);
+
 //  /**
 //   * Copies data from one table to another.
 //   * @param src
@@ -40,4 +52,120 @@ public interface JdbcCommands {
    */
   public boolean doesExist(String table, Optional<String> database);
 
+  /**
+   * Check if table has any record
+   * @param table
+   * @param database
+   * @return true if table does not have any record.
+   */
+  public boolean isEmpty(String table, Optional<String> database);
+
+  /**
+   * Creates an empty table with the same definition of the template table.
+   * @param table
+   * @param templateTable
+   * @param database Assumes that both tables are in same database.
+   */
+  public void createTableLike(String table, String templateTable, Optional<String> database);
+
+  /**
+   * Replaces the target table with the source table. Source table does not exist after the swap. It may not be atomic,
+   * depending on the implementation.
+   * @param source
+   * @param target
+   * @param database Assumes that both tables are in same database.
+   */
+  public void swapTable(String source, String target, Optional<String> database);
+
+  /**
+   * Merges the source table into the target table in one transaction. Records in the target table matching with the
+   * source on the key columns are updated, and the other records in the source are inserted.
+   * @param source
+   * @param target
+   * @param database Assumes that both tables are in same database.
+   * @param keyColumns Key columns to match records
+   * @return Number of inserted and updated records
+   */
+  public MergeResult mergeTable(String source, String target, Optional<String> database, List<String> keyColumns);
+
+  /**
+   * @param table
+   * @param database
+   * @return Column names of the table in order.
+   */
+  public List<String> getColumns(String table, Optional<String> database);
+
+  /**
+   * Size of the table from the data dictionary.
+   * @param table
+   * @param database
+   * @return Size in bytes. Absent if the data dictionary does not have it.
+   */
+  public Optional<Long> getTableSize(String table, Optional<String> database);
+
+  /**
+   * @return Number of AMPs (units of parallelism) of the database system.
+   */
+  public int getAmpCount();
+
+  /**
+   * @param table
+   * @param database
+   * @return Columns of the primary index in order. Empty if table does not have primary index.
+   */
+  public List<String> getPrimaryIndexColumns(String table, Optional<String> database);
+
+  /**
+   * @param table
+   * @param database
+   * @return true if the primary index of the table is partitioned.
+   */
+  public boolean isPartitioned(String table, Optional<String> database);
+
+  /**
+   * Row count from the collected statistics.
+   * @param table
+   * @param database
+   * @return Row count. Absent if statistics has not been collected.
+   */
+  public Optional<Long> getRowCount(String table, Optional<String> database);
+
+  /**
+   * @param table
+   * @param database
+   * @param column
+   * @return JDBC type of the column defined in {@link java.sql.Types}. Absent if column does not exist.
+   */
+  public Optional<Integer> getColumnType(String table, Optional<String> database, String column);
+
+  /**
+   * @param table
+   * @param database
+   * @param column
+   * @return Maximum value of the column in its string representation. Absent if table is empty.
+   */
+  public Optional<String> getMaxValue(String table, Optional<String> database, String column);
+
+  /**
+   * Last time the table was altered, from the data dictionary.
+   * @param table
+   * @param database
+   * @return Timestamp in its string representation. Absent if the data dictionary does not have it.
+   */
+  public Optional<String> getLastAlterTimestamp(String table, Optional<String> database);
+
+  /**
+   * Counts records of the table. Unlike {@link #getRowCount(String, Optional)}, it does not depend on statistics.
+   * @param table
+   * @param database
+   * @return Number of records
+   */
+  public long countRows(String table, Optional<String> database);
+
+  /**
+   * @param query
+   * @return Values of the first row of the query result in their string representation. Empty if there's no row.
+   */
+  public List<String> getFirstRow(String query);
+
 }
\ No newline at end of file
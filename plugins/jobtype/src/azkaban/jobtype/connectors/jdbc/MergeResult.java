@@ -0,0 +1,27 @@
+package azkaban.jobtype.connectors.jdbc;
+
+/**
+ * Number of records inserted and updated by {@link JdbcCommands#mergeTable}.
+ */
+public class MergeResult {
+  private final long insertedCount;
+  private final long updatedCount;
+
+  public MergeResult(long insertedCount, long updatedCount) {
+    this.insertedCount = insertedCount;
+    this.updatedCount = updatedCount;
+  }
+
+  public long getInsertedCount() {
+    return insertedCount;
+  }
+
+  public long getUpdatedCount() {
+    return updatedCount;
+  }
+
+  @Override
+  public String toString() {
+    return "MergeResult [insertedCount=" + insertedCount + ", updatedCount=" + updatedCount + "]";
+  }
+}
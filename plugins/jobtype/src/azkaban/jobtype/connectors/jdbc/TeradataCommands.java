@@ -1,19 +1,52 @@
 package azkaban.jobtype.connectors.jdbc;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.log4j.Logger;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 
 public class TeradataCommands implements JdbcCommands {
   private static final Logger _logger = Logger.getLogger(TeradataCommands.class);
   public static final String DATABASE_TABLE_FORMAT = "%s.%s";
   private static final String DROP_TABLE_STMT_FORMAT = "DROP TABLE %s";
   private static final String DELETE_TABLE_ALL_STMT_FORMAT = "DELETE %s ALL";
+  private static final String CREATE_TABLE_LIKE_STMT_FORMAT = "CREATE TABLE %s AS %s WITH NO DATA";
+  private static final String RENAME_TABLE_STMT_FORMAT = "RENAME TABLE %s TO %s";
+  private static final String BACKUP_TABLE_SUFFIX_FORMAT = "_bak%06x";
+  private static final int BACKUP_TABLE_PREFIX_LENGTH_LIMIT = 20; //Backup table name does not exceed 30 characters.
+  private static final String MERGE_STMT_FORMAT = "MERGE INTO %s AS t USING %s AS s ON %s";
+  private static final String MERGE_UPDATE_FORMAT = " WHEN MATCHED THEN UPDATE SET %s";
+  private static final String MERGE_INSERT_FORMAT = " WHEN NOT MATCHED THEN INSERT (%s) VALUES (%s)";
+  private static final String MATCHED_COUNT_QUERY_FORMAT =
+      "SELECT COUNT(*) FROM %s AS s WHERE EXISTS (SELECT 1 FROM %s AS t WHERE %s)";
+  private static final String DELETE_WHERE_STMT_FORMAT = "DELETE FROM %s WHERE %s";
+  private static final String IS_EMPTY_QUERY_FORMAT = "SELECT TOP 1 1 FROM %s";
+  private static final String MAX_VALUE_QUERY_FORMAT = "SELECT MAX(%s) FROM %s";
+  private static final String COUNT_QUERY_FORMAT = "SELECT COUNT(*) FROM %s";
+  private static final String AMP_COUNT_QUERY = "SELECT HASHAMP() + 1";
+  private static final String TABLE_SIZE_QUERY_FORMAT =
+      "SELECT SUM(CurrentPerm) FROM DBC.TableSizeV WHERE DatabaseName = %s AND TableName = ?";
+  //Index type P is non-partitioned primary index, and Q is partitioned primary index.
+  private static final String PRIMARY_INDEX_QUERY_FORMAT =
+      "SELECT ColumnName, IndexType FROM DBC.IndicesV WHERE DatabaseName = %s AND TableName = ?"
+      + " AND IndexType IN ('P', 'Q') ORDER BY ColumnPosition";
+  private static final String ROW_COUNT_QUERY_FORMAT =
+      "SELECT MAX(RowCount) FROM DBC.TableStatsV WHERE DatabaseName = %s AND TableName = ?";
+  private static final String LAST_ALTER_TIMESTAMP_QUERY_FORMAT =
+      "SELECT LastAlterTimeStamp FROM DBC.TablesV WHERE DatabaseName = %s AND TableName = ?";
 
 
   private final Connection conn;
@@ -65,6 +98,41 @@ public class TeradataCommands implements JdbcCommands {
     }
   }
 
+  /**
+   * The predicate is applied as is, in a single statement, so that records inserted concurrently are never deleted
+   * unless they match. Teradata deletes whole partitions at once when the predicate covers them on a partitioned table.
+   * Note that it is not explicitly execute commit and the commit is depends on either connection setting
+   * (e.g. autocommit), or the caller to execute commit.
+   *
+   * {@inheritDoc}
+   * @see azkaban.jobtype.connectors.jdbc.JdbcCommands#deleteWhere(java.lang.String, com.google.common.base.Optional, java.lang.String, java.util.List)
+   */
+  @Override
+  public Optional<Integer> deleteWhere(String table, Optional<String> database, String predicate, List<String> params) {
+    String dbTbl = dbTblFormat(table, database);
+    try (PreparedStatement stmt = prepare(String.format(DELETE_WHERE_STMT_FORMAT, dbTbl, predicate), params)) {
+      int deletedCount = stmt.executeUpdate();
+      _logger.info(deletedCount + " records in " + dbTbl + " have been deleted");
+      return Optional.of(deletedCount);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private PreparedStatement prepare(String sql, List<String> params) throws SQLException {
+    _logger.info("Executing SQL: " + sql + " with " + params);
+    PreparedStatement stmt = conn.prepareStatement(sql);
+    try {
+      for (int i = 0; i < params.size(); i++) {
+        stmt.setString(i + 1, params.get(i));
+      }
+    } catch (SQLException e) {
+      stmt.close();
+      throw e;
+    }
+    return stmt;
+  }
+
   @Override
   public boolean doesExist(String table, Optional<String> database) {
     try (ResultSet res = conn.getMetaData().getTables(null, database.orNull(), table, new String[] { "TABLE" });) {
@@ -74,6 +142,318 @@ public class TeradataCommands implements JdbcCommands {
     }
   }
 
+  @Override
+  public boolean isEmpty(String table, Optional<String> database) {
+    String sql = String.format(IS_EMPTY_QUERY_FORMAT, dbTblFormat(table, database));
+    _logger.info("Executing SQL: " + sql);
+    try (Statement stmt = conn.createStatement(); ResultSet res = stmt.executeQuery(sql)) {
+      return !res.next();
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Teradata does not have CREATE TABLE LIKE. CREATE TABLE AS WITH NO DATA copies the definition including primary
+   * index and partitioning.
+   * {@inheritDoc}
+   * @see azkaban.jobtype.connectors.jdbc.JdbcCommands#createTableLike(java.lang.String, java.lang.String, com.google.common.base.Optional)
+   */
+  @Override
+  public void createTableLike(String table, String templateTable, Optional<String> database) {
+    try (Statement stmt = conn.createStatement()) {
+      String sql = String.format(CREATE_TABLE_LIKE_STMT_FORMAT, dbTblFormat(table, database),
+                                 dbTblFormat(templateTable, database));
+      _logger.info("Executing SQL: " + sql);
+      stmt.execute(sql);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Teradata session mode only allows commit right after a DDL statement in a transaction, hence the swap cannot be
+   * done in one transaction. Instead, each statement is committed on its own: the target table is renamed to a backup
+   * table, the source table is renamed to the target table, and then the backup table is dropped. If renaming the
+   * source table fails, the backup table is renamed back to the target table.
+   *
+   * Note that the target table does not exist in the short window between the two renames, and that the new target
+   * table does not have the grants and the collected statistics of the old one, as CREATE TABLE AS WITH NO DATA does
+   * not copy them.
+   *
+   * This operation is final which means each step will be committed regardless of the connection setting.
+   * {@inheritDoc}
+   * @see azkaban.jobtype.connectors.jdbc.JdbcCommands#swapTable(java.lang.String, java.lang.String, com.google.common.base.Optional)
+   */
+  @Override
+  public void swapTable(String source, String target, Optional<String> database) {
+    String prefix = target.length() > BACKUP_TABLE_PREFIX_LENGTH_LIMIT
+                    ? target.substring(0, BACKUP_TABLE_PREFIX_LENGTH_LIMIT)
+                    : target;
+    String backup = dbTblFormat(prefix + String.format(BACKUP_TABLE_SUFFIX_FORMAT, new Random().nextInt(0x1000000)),
+                                database);
+    String dbTbl = dbTblFormat(target, database);
+    try {
+      boolean autoCommit = conn.getAutoCommit();
+      conn.setAutoCommit(true);
+      try (Statement stmt = conn.createStatement()) {
+        _logger.info("Backing up " + dbTbl + " into " + backup);
+        execute(stmt, String.format(RENAME_TABLE_STMT_FORMAT, dbTbl, backup));
+        try {
+          execute(stmt, String.format(RENAME_TABLE_STMT_FORMAT, dbTblFormat(source, database), dbTbl));
+        } catch (SQLException e) {
+          _logger.error("Failed to rename " + dbTblFormat(source, database) + " to " + dbTbl + ". Restoring it from " + backup, e);
+          execute(stmt, String.format(RENAME_TABLE_STMT_FORMAT, backup, dbTbl));
+          throw e;
+        }
+        try {
+          execute(stmt, String.format(DROP_TABLE_STMT_FORMAT, backup));
+        } catch (SQLException e) {
+          //Target table has already been replaced.
+          _logger.warn("Failed to drop backup table " + backup + ". It needs to be dropped manually.", e);
+        }
+      } finally {
+        conn.setAutoCommit(autoCommit);
+      }
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void execute(Statement stmt, String sql) throws SQLException {
+    _logger.info("Executing SQL: " + sql);
+    stmt.execute(sql);
+  }
+
+  /**
+   * Teradata requires the key columns to cover the primary index of the target table. Key columns are not updated.
+   * Matched records are counted in the same transaction right before the merge, as Teradata only returns the total
+   * number of records merged.
+   *
+   * This operation is final which means the merge will be committed, or rolled back on failure, regardless of the
+   * connection setting.
+   * {@inheritDoc}
+   * @see azkaban.jobtype.connectors.jdbc.JdbcCommands#mergeTable(java.lang.String, java.lang.String, com.google.common.base.Optional, java.util.List)
+   */
+  @Override
+  public MergeResult mergeTable(String source, String target, Optional<String> database, List<String> keyColumns) {
+    Preconditions.checkArgument(!keyColumns.isEmpty(), "Key columns are required to merge.");
+    List<String> columns = getColumns(target, database);
+    Set<String> keys = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    keys.addAll(keyColumns);
+    Set<String> existing = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    existing.addAll(columns);
+    Preconditions.checkArgument(existing.containsAll(keys), "Key columns " + keyColumns + " are not in " + columns);
+
+    List<String> onClauses = new ArrayList<>();
+    for (String key : keyColumns) {
+      onClauses.add(String.format("t.%1$s = s.%1$s", key));
+    }
+    List<String> setClauses = new ArrayList<>();
+    List<String> values = new ArrayList<>();
+    for (String column : columns) {
+      if (!keys.contains(column)) {
+        setClauses.add(String.format("%1$s = s.%1$s", column));
+      }
+      values.add("s." + column);
+    }
+
+    String srcTbl = dbTblFormat(source, database);
+    String tgtTbl = dbTblFormat(target, database);
+    String on = Joiner.on(" AND ").join(onClauses);
+    String countSql = String.format(MATCHED_COUNT_QUERY_FORMAT, srcTbl, tgtTbl, on);
+    StringBuilder mergeSql = new StringBuilder(String.format(MERGE_STMT_FORMAT, tgtTbl, srcTbl, on));
+    if (!setClauses.isEmpty()) {
+      mergeSql.append(String.format(MERGE_UPDATE_FORMAT, Joiner.on(", ").join(setClauses)));
+    }
+    mergeSql.append(String.format(MERGE_INSERT_FORMAT, Joiner.on(", ").join(columns), Joiner.on(", ").join(values)));
+
+    try {
+      boolean autoCommit = conn.getAutoCommit();
+      conn.setAutoCommit(false);
+      try (Statement stmt = conn.createStatement()) {
+        _logger.info("Executing SQL: " + countSql);
+        long matched;
+        try (ResultSet res = stmt.executeQuery(countSql)) {
+          res.next();
+          matched = res.getLong(1);
+        }
+        _logger.info("Executing SQL: " + mergeSql);
+        long merged = stmt.executeUpdate(mergeSql.toString());
+        conn.commit();
+
+        //Matched records are not updated when all columns are keys.
+        MergeResult result = new MergeResult(merged - (setClauses.isEmpty() ? 0 : matched),
+                                             setClauses.isEmpty() ? 0 : matched);
+        _logger.info("Merged " + srcTbl + " into " + tgtTbl + ": " + result);
+        return result;
+      } catch (SQLException e) {
+        conn.rollback();
+        throw e;
+      } finally {
+        conn.setAutoCommit(autoCommit);
+      }
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public List<String> getColumns(String table, Optional<String> database) {
+    ImmutableList.Builder<String> columns = ImmutableList.builder();
+    try (ResultSet res = conn.getMetaData().getColumns(null, database.orNull(), table, null)) {
+      while (res.next()) {
+        columns.add(res.getString("COLUMN_NAME").trim());
+      }
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+    return columns.build();
+  }
+
+  @Override
+  public Optional<Long> getTableSize(String table, Optional<String> database) {
+    return queryLong(TABLE_SIZE_QUERY_FORMAT, table, database);
+  }
+
+  @Override
+  public int getAmpCount() {
+    try (Statement stmt = conn.createStatement(); ResultSet res = stmt.executeQuery(AMP_COUNT_QUERY)) {
+      res.next();
+      return res.getInt(1);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public List<String> getPrimaryIndexColumns(String table, Optional<String> database) {
+    ImmutableList.Builder<String> columns = ImmutableList.builder();
+    try (PreparedStatement stmt = prepareDictionaryQuery(PRIMARY_INDEX_QUERY_FORMAT, table, database);
+         ResultSet res = stmt.executeQuery()) {
+      while (res.next()) {
+        columns.add(res.getString(1).trim());
+      }
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+    return columns.build();
+  }
+
+  @Override
+  public boolean isPartitioned(String table, Optional<String> database) {
+    try (PreparedStatement stmt = prepareDictionaryQuery(PRIMARY_INDEX_QUERY_FORMAT, table, database);
+         ResultSet res = stmt.executeQuery()) {
+      while (res.next()) {
+        if ("Q".equals(res.getString(2).trim())) {
+          return true;
+        }
+      }
+      return false;
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public Optional<Long> getRowCount(String table, Optional<String> database) {
+    return queryLong(ROW_COUNT_QUERY_FORMAT, table, database);
+  }
+
+  @Override
+  public Optional<Integer> getColumnType(String table, Optional<String> database, String column) {
+    try (ResultSet res = conn.getMetaData().getColumns(null, database.orNull(), table, column)) {
+      return res.next() ? Optional.of(res.getInt("DATA_TYPE")) : Optional.<Integer>absent();
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public Optional<String> getMaxValue(String table, Optional<String> database, String column) {
+    String sql = String.format(MAX_VALUE_QUERY_FORMAT, column, dbTblFormat(table, database));
+    _logger.info("Executing SQL: " + sql);
+    try (Statement stmt = conn.createStatement(); ResultSet res = stmt.executeQuery(sql)) {
+      //MAX returns a row with null on an empty table.
+      return res.next() ? Optional.fromNullable(res.getString(1)) : Optional.<String>absent();
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public Optional<String> getLastAlterTimestamp(String table, Optional<String> database) {
+    try (PreparedStatement stmt = prepareDictionaryQuery(LAST_ALTER_TIMESTAMP_QUERY_FORMAT, table, database);
+         ResultSet res = stmt.executeQuery()) {
+      return res.next() ? Optional.fromNullable(res.getString(1)) : Optional.<String>absent();
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public long countRows(String table, Optional<String> database) {
+    String sql = String.format(COUNT_QUERY_FORMAT, dbTblFormat(table, database));
+    _logger.info("Executing SQL: " + sql);
+    try (Statement stmt = conn.createStatement(); ResultSet res = stmt.executeQuery(sql)) {
+      res.next();
+      return res.getLong(1);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public List<String> getFirstRow(String query) {
+    _logger.info("Executing SQL: " + query);
+    try (Statement stmt = conn.createStatement(); ResultSet res = stmt.executeQuery(query)) {
+      List<String> row = new ArrayList<>();
+      if (res.next()) {
+        for (int i = 1; i <= res.getMetaData().getColumnCount(); i++) {
+          row.add(res.getString(i));
+        }
+      }
+      return row;
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private Optional<Long> queryLong(String sqlFormat, String table, Optional<String> database) {
+    try (PreparedStatement stmt = prepareDictionaryQuery(sqlFormat, table, database);
+         ResultSet res = stmt.executeQuery()) {
+      if (!res.next()) {
+        return Optional.absent();
+      }
+      long val = res.getLong(1);
+      return res.wasNull() ? Optional.<Long>absent() : Optional.of(val);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Prepares a query on data dictionary, whose format has a placeholder for database name followed by table name
+   * parameter. If database is absent, the default database of the session is used.
+   */
+  private PreparedStatement prepareDictionaryQuery(String sqlFormat, String table, Optional<String> database)
+      throws SQLException {
+    String sql = String.format(sqlFormat, database.isPresent() ? "?" : "DATABASE");
+    PreparedStatement stmt = conn.prepareStatement(sql);
+    try {
+      int idx = 1;
+      if (database.isPresent()) {
+        stmt.setString(idx++, database.get());
+      }
+      stmt.setString(idx, table);
+    } catch (SQLException e) {
+      stmt.close();
+      throw e;
+    }
+    _logger.info("Executing SQL: " + sql);
+    return stmt;
+  }
+
   private String dbTblFormat(String table, Optional<String> database) {
     if (database.isPresent()) {
       return String.format(DATABASE_TABLE_FORMAT, database.get(), table);
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.base.Optional;
+
+/**
+ * Fingerprint of the source of the last successful extraction, such as last alter timestamp and row count of the
+ * source table. It's kept in a state file on HDFS next to the target path, so that the next run can skip the
+ * extraction if the source has not changed. State is the fingerprint keyed by the source.
+ */
+public class Fingerprint {
+  private static final Logger _logger = Logger.getLogger(Fingerprint.class);
+  private static final String STATE_FILE_FORMAT = "_%s.fingerprint";
+
+  private final FileSystem _fs;
+  private final Path _statePath;
+  private final String _source;
+
+  /**
+   * @param fs File system of the state file
+   * @param statePath State file
+   * @param source Source table or query. A fingerprint written for another source is ignored.
+   */
+  public Fingerprint(FileSystem fs, Path statePath, String source) {
+    _fs = fs;
+    _statePath = statePath;
+    _source = source;
+  }
+
+  /**
+   * @param target Target path of the extraction
+   * @return State file next to the target path
+   */
+  public static Path getStatePath(Path target) {
+    return new Path(target.getParent(), String.format(STATE_FILE_FORMAT, target.getName()));
+  }
+
+  /**
+   * @return Fingerprint of the last successful run. Absent if it has never succeeded, or the source has changed since.
+   * @throws IOException
+   */
+  public Optional<List<String>> read() throws IOException {
+    Optional<Map<String, List<String>>> state =
+        StateFile.read(_fs, _statePath, new TypeReference<Map<String, List<String>>>() {});
+    if (!state.isPresent() || !state.get().containsKey(_source)) {
+      _logger.info("No fingerprint of " + _source + " in " + _statePath);
+      return Optional.absent();
+    }
+    List<String> value = state.get().get(_source);
+    _logger.info("Fingerprint in " + _statePath + ": " + value);
+    return Optional.of(value);
+  }
+
+  /**
+   * @param value Fingerprint of the source extracted
+   * @throws IOException
+   */
+  public void write(List<String> value) throws IOException {
+    StateFile.write(_fs, _statePath, Collections.singletonMap(_source, value));
+    _logger.info("Updated fingerprint in " + _statePath + " to " + value);
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericEnumSymbol;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+
+import azkaban.utils.Props;
+
+/**
+ * Loads small HDFS input into a Teradata table over JDBC, without launching a TDCH MapReduce job whose scheduling and
+ * container startup often take longer than the transfer itself.
+ *
+ * A reader thread parses the source files (text or Avro) into batches of
+ * {@link TdchConstants#DIRECT_LOAD_BATCH_SIZE_KEY} rows, and hands them over through a queue bounded by
+ * {@link TdchConstants#DIRECT_LOAD_QUEUE_SIZE_KEY} batches to the calling thread, which inserts them with batched
+ * PreparedStatement. Reading and inserting overlap while memory stays bounded. Whether it's FastLoad or a regular
+ * insert depends on the connection passed in.
+ */
+public class HdfsToTeradataDirectLoader {
+  private static final Logger _logger = Logger.getLogger(HdfsToTeradataDirectLoader.class);
+  private static final String INSERT_STMT_FORMAT = "INSERT INTO %s (%s) VALUES (%s)";
+  //Marks the end of the input in the queue. Compared by reference.
+  private static final List<Object[]> END_OF_INPUT = Collections.unmodifiableList(new ArrayList<Object[]>());
+  private static final long POLL_INTERVAL_MS = 1000L;
+
+  private final int _batchSize;
+  private final int _queueSize;
+
+  public HdfsToTeradataDirectLoader(Props props) {
+    _batchSize = props.getInt(DIRECT_LOAD_BATCH_SIZE_KEY, DEFAULT_DIRECT_LOAD_BATCH_SIZE);
+    _queueSize = props.getInt(DIRECT_LOAD_QUEUE_SIZE_KEY, DEFAULT_DIRECT_LOAD_QUEUE_SIZE);
+    Preconditions.checkArgument(_batchSize > 0, DIRECT_LOAD_BATCH_SIZE_KEY + " should be positive.");
+    Preconditions.checkArgument(_queueSize > 0, DIRECT_LOAD_QUEUE_SIZE_KEY + " should be positive.");
+  }
+
+  /**
+   * @param fileFormat File format of the source. Either {@link TdchConstants#TEXT_FILE_FORMAT} or
+   * {@link TdchConstants#AVRO_FILE_FORMAT}
+   * @return true if the loader can read the file format.
+   */
+  public static boolean isSupported(String fileFormat) {
+    return TEXT_FILE_FORMAT.equals(fileFormat) || AVRO_FILE_FORMAT.equals(fileFormat);
+  }
+
+  /**
+   * Loads the source files into the table. It does not commit, so that the caller decides the transaction.
+   *
+   * Fields of a text line, or of an Avro record, are mapped to the columns by position. An empty field of a text line
+   * is loaded as null.
+   *
+   * @param fs File system of the source
+   * @param sources Source paths. Can be a glob or a directory, whose files are read recursively except hidden files.
+   * @param fileFormat File format of the source
+   * @param fieldSeparator Field separator of text file
+   * @param conn Connection to the target Teradata
+   * @param table Target table, qualified with the database if needed
+   * @param columns Columns of the target table
+   * @param sqlTypes SQL types of the columns in {@link java.sql.Types}, used to bind null.
+   * @return Number of rows loaded
+   */
+  public long load(final FileSystem fs, List<Path> sources, final String fileFormat, final String fieldSeparator,
+                   Connection conn, String table, List<String> columns, List<Integer> sqlTypes)
+      throws IOException, SQLException, InterruptedException {
+    Preconditions.checkArgument(isSupported(fileFormat), "Unsupported file format " + fileFormat);
+    Preconditions.checkArgument(columns.size() == sqlTypes.size(), "Columns and types do not match");
+
+    final List<Path> files = new ArrayList<>();
+    for (FileStatus file : listFiles(fs, sources)) {
+      files.add(file.getPath());
+    }
+    final int columnCount = columns.size();
+    final BlockingQueue<List<Object[]>> queue = new ArrayBlockingQueue<>(_queueSize);
+    _logger.info("Loading " + files.size() + " files into " + table + " in batches of " + _batchSize + " rows.");
+
+    String sql = String.format(INSERT_STMT_FORMAT, table, Joiner.on(", ").join(columns),
+                               Joiner.on(", ").join(Collections.nCopies(columnCount, "?")));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+      Future<Long> reader = executor.submit(new Callable<Long>() {
+        @Override
+        public Long call() throws Exception {
+          return read(fs, files, fileFormat, fieldSeparator, columnCount, queue);
+        }
+      });
+
+      long rows = 0L;
+      while (true) {
+        List<Object[]> batch = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (batch == null) {
+          if (reader.isDone()) {
+            //Throws if reader failed. Otherwise END_OF_INPUT is already in the queue.
+            getResult(reader);
+          }
+          continue;
+        }
+        if (batch == END_OF_INPUT) {
+          break;
+        }
+        write(stmt, batch, sqlTypes);
+        rows += batch.size();
+        _logger.debug("Inserted " + rows + " rows.");
+      }
+      long read = getResult(reader);
+      Preconditions.checkState(read == rows, "Read " + read + " rows but inserted " + rows + " rows.");
+      return rows;
+    } finally {
+      //Stops the reader blocked on the queue if writer failed.
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @param sources Source paths. Can be a glob or a directory, whose files are listed recursively except hidden files.
+   * @return Source files in the order of the sources.
+   */
+  static List<FileStatus> listFiles(FileSystem fs, List<Path> sources) throws IOException {
+    List<FileStatus> files = new ArrayList<>();
+    for (Path source : sources) {
+      FileStatus[] statuses = fs.globStatus(source);
+      if (statuses == null) {
+        continue;
+      }
+      for (FileStatus status : statuses) {
+        if (!status.isDirectory()) {
+          files.add(status);
+          continue;
+        }
+        RemoteIterator<LocatedFileStatus> it = fs.listFiles(status.getPath(), true);
+        while (it.hasNext()) {
+          LocatedFileStatus file = it.next();
+          if (!isHidden(file.getPath())) {
+            files.add(file);
+          }
+        }
+      }
+    }
+    return files;
+  }
+
+  private static boolean isHidden(Path path) {
+    return path.getName().startsWith("_") || path.getName().startsWith(".");
+  }
+
+  private long read(FileSystem fs, List<Path> files, String fileFormat, String fieldSeparator, int columnCount,
+                    BlockingQueue<List<Object[]>> queue) throws IOException, InterruptedException {
+    long rows = 0L;
+    List<Object[]> batch = new ArrayList<>(_batchSize);
+    for (Path file : files) {
+      _logger.info("Reading " + file);
+      if (AVRO_FILE_FORMAT.equals(fileFormat)) {
+        try (DataFileStream<GenericRecord> records =
+                 new DataFileStream<>(fs.open(file), new GenericDatumReader<GenericRecord>())) {
+          for (GenericRecord record : records) {
+            batch.add(toRow(record, columnCount, file));
+            batch = handOver(batch, queue);
+            rows++;
+          }
+        }
+      } else {
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(open(fs, file), StandardCharsets.UTF_8))) {
+          String line;
+          while ((line = lines.readLine()) != null) {
+            batch.add(toRow(line, fieldSeparator, columnCount, file));
+            batch = handOver(batch, queue);
+            rows++;
+          }
+        }
+      }
+    }
+    if (!batch.isEmpty()) {
+      queue.put(batch);
+    }
+    queue.put(END_OF_INPUT);
+    return rows;
+  }
+
+  /**
+   * Puts the batch into the queue if it's full, blocking while the queue is full.
+   * @return Batch to add the next rows.
+   */
+  private List<Object[]> handOver(List<Object[]> batch, BlockingQueue<List<Object[]>> queue)
+      throws InterruptedException {
+    if (batch.size() < _batchSize) {
+      return batch;
+    }
+    queue.put(batch);
+    return new ArrayList<>(_batchSize);
+  }
+
+  /**
+   * Opens the file, decompressing it if its extension is of a known codec.
+   */
+  private static InputStream open(FileSystem fs, Path file) throws IOException {
+    CompressionCodec codec = new CompressionCodecFactory(fs.getConf()).getCodec(file);
+    return codec == null ? fs.open(file) : codec.createInputStream(fs.open(file));
+  }
+
+  private static Object[] toRow(String line, String fieldSeparator, int columnCount, Path file) throws IOException {
+    String[] fields = StringUtils.splitByWholeSeparatorPreserveAllTokens(line, fieldSeparator);
+    if (fields.length != columnCount) {
+      throw new IOException(fields.length + " fields in a line of " + file + " while target table has " + columnCount
+                            + " columns: " + line);
+    }
+    Object[] row = new Object[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      row[i] = fields[i].isEmpty() ? null : fields[i];
+    }
+    return row;
+  }
+
+  private static Object[] toRow(GenericRecord record, int columnCount, Path file) throws IOException {
+    int fieldCount = record.getSchema().getFields().size();
+    if (fieldCount != columnCount) {
+      throw new IOException(fieldCount + " fields in a record of " + file + " while target table has " + columnCount
+                            + " columns: " + record.getSchema());
+    }
+    Object[] row = new Object[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      row[i] = toJdbcValue(record.get(i), file);
+    }
+    return row;
+  }
+
+  private static Object toJdbcValue(Object value, Path file) throws IOException {
+    if (value instanceof CharSequence || value instanceof GenericEnumSymbol) {
+      return value.toString();
+    }
+    if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return bytes;
+    }
+    if (value instanceof GenericFixed) {
+      return ((GenericFixed) value).bytes();
+    }
+    if (value instanceof IndexedRecord || value instanceof Collection || value instanceof Map) {
+      throw new IOException("Nested Avro type is not supported in " + file + ": " + value);
+    }
+    return value;
+  }
+
+  private static void write(PreparedStatement stmt, List<Object[]> batch, List<Integer> sqlTypes)
+      throws SQLException {
+    for (Object[] row : batch) {
+      for (int i = 0; i < row.length; i++) {
+        if (row[i] == null) {
+          stmt.setNull(i + 1, sqlTypes.get(i));
+        } else {
+          stmt.setObject(i + 1, row[i]);
+        }
+      }
+      stmt.addBatch();
+    }
+    stmt.executeBatch();
+  }
+
+  private static long getResult(Future<Long> reader) throws IOException, InterruptedException {
+    try {
+      return reader.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "HdfsToTeradataDirectLoader [_batchSize=" + _batchSize + ", _queueSize=" + _queueSize + "]";
+  }
+}
@@ -22,19 +22,32 @@ import java.security.PrivilegedExceptionAction;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Random;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
 import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.util.ToolRunner;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
 import azkaban.jobExecutor.AbstractProcessJob;
 import azkaban.jobtype.*;
 import azkaban.jobtype.connectors.jdbc.JdbcCommands;
+import azkaban.jobtype.connectors.jdbc.MergeResult;
 import azkaban.jobtype.connectors.jdbc.TeradataCommands;
 import azkaban.crypto.Decryptions;
 import azkaban.jobtype.javautils.JobUtils;
@@ -42,7 +55,10 @@ import azkaban.jobtype.javautils.Whitelist;
 import azkaban.utils.Props;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.teradata.hadoop.tool.TeradataExportTool;
 
@@ -50,9 +66,33 @@ import static org.apache.hadoop.security.UserGroupInformation.HADOOP_TOKEN_FILE_
 
 public class HdfsToTeradataJobRunnerMain {
   private static final List<String> ERR_TABLE_SUFFIXES = ImmutableList.<String>builder().add("_ERR_1", "_ERR_2").build();
+  private static final String STAGING_TABLE_SUFFIX_FORMAT = "_stg%06x";
+  private static final int STAGING_TABLE_PREFIX_LENGTH_LIMIT = 20; //Staging table name does not exceed 30 characters.
+  private static final Pattern COLUMN_NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$#]*");
+  private static final String FASTLOAD_URL_PARAM = ",TYPE=FASTLOAD";
 
   private final Properties _jobProps;
-  private final TdchParameters _params;
+  private final TdchParameters.Builder _paramsBuilder;
+  private final boolean _isAutoNumMappers;
+  private final MapperCountCalculator _mapperCountCalculator;
+  private final boolean _isAutoInsertMethod;
+  private final InsertMethodSelector _insertMethodSelector;
+  private Optional<Boolean> _isTargetEmpty = Optional.absent();
+  private final long _directLoadMaxBytes;
+  private final HdfsToTeradataDirectLoader _directLoader;
+  private boolean _isDirectLoad = false;
+  private final boolean _isReplaceTargetTable;
+  private final boolean _isStagingMode;
+  private final String _targetTdTableName;
+  private final Optional<String> _targetTdDatabase;
+  private final List<String> _mergeKeyColumns;
+  private final Optional<String> _replacePredicate;
+  private final List<String> _replacePredicateParams;
+  private Optional<String> _stagingTable = Optional.absent();
+  private final Optional<Path> _manifestPath;
+  private Optional<List<FileStatus>> _sourceFiles = Optional.absent();
+  private final Map<String, String> _outputProperties = new LinkedHashMap<>();
+  private TdchParameters _params;
   private final Logger _logger;
 
 
@@ -92,7 +132,15 @@ public class HdfsToTeradataJobRunnerMain {
       password = decryptions.decrypt(encryptedCredential, cryptoKeyPath, FileSystem.get(new Configuration()));
     }
 
-    _params = TdchParameters.builder()
+    String numMappers = props.getString(TdchConstants.TD_NUM_MAPPERS, Integer.toString(TdchConstants.DEFAULT_NO_MAPPERS));
+    _isAutoNumMappers = MapperCountCalculator.isAuto(numMappers);
+    _mapperCountCalculator = new MapperCountCalculator(props);
+    String insertMethod = _jobProps.getProperty(TdchConstants.TD_INSERT_METHOD_KEY);
+    _isAutoInsertMethod = InsertMethodSelector.isAuto(insertMethod);
+    _insertMethodSelector = new InsertMethodSelector(props);
+
+    //Builder is kept so that the parameters resolved at run time (e.g. auto number of mappers) can be applied.
+    _paramsBuilder = TdchParameters.builder()
                             .mrParams(props.getMapByPrefix(TdchConstants.HADOOP_CONFIG_PREFIX_KEY).values())
                             .libJars(createLibJarStr(props))
                             .tdJdbcClassName(TdchConstants.TERADATA_JDBCDRIVER_CLASSNAME)
@@ -109,13 +157,95 @@ public class HdfsToTeradataJobRunnerMain {
                             .targetTdTableName(props.getString(TdchConstants.TARGET_TD_TABLE_NAME_KEY))
                             .errorTdDatabase(_jobProps.getProperty(TdchConstants.ERROR_DB_KEY))
                             .errorTdTableName(_jobProps.getProperty(TdchConstants.ERROR_TABLE_KEY))
-                            .tdInsertMethod(_jobProps.getProperty(TdchConstants.TD_INSERT_METHOD_KEY))
-                            .numMapper(props.getInt(TdchConstants.TD_NUM_MAPPERS, TdchConstants.DEFAULT_NO_MAPPERS))
+                            .tdInsertMethod(_isAutoInsertMethod ? null : insertMethod)
+                            .numMapper(_isAutoNumMappers ? TdchConstants.DEFAULT_NO_MAPPERS : Integer.parseInt(numMappers))
                             .hiveSourceDatabase(_jobProps.getProperty(TdchConstants.SOURCE_HIVE_DATABASE_NAME_KEY))
                             .hiveSourceTable(_jobProps.getProperty(TdchConstants.SOURCE_HIVE_TABLE_NAME_KEY))
                             .hiveConfFile(_jobProps.getProperty(TdchConstants.TDCH_HIVE_CONF_KEY))
-                            .otherProperties(_jobProps.getProperty(TdchConstants.TD_OTHER_PROPERTIES_HOCON_KEY))
-                            .build();
+                            .otherProperties(_jobProps.getProperty(TdchConstants.TD_OTHER_PROPERTIES_HOCON_KEY));
+    _params = _paramsBuilder.build();
+    _targetTdTableName = _params.getTargetTdTableName();
+    _targetTdDatabase = _params.getTargetTdDatabase();
+
+    _isReplaceTargetTable = props.getBoolean(TdchConstants.REPLACE_TARGET_TABLE_KEY, false);
+    String replaceMode = props.getString(TdchConstants.REPLACE_MODE_KEY, TdchConstants.REPLACE_MODE_DELETE);
+    Preconditions.checkArgument(TdchConstants.REPLACE_MODE_DELETE.equals(replaceMode)
+                                || TdchConstants.REPLACE_MODE_STAGING.equals(replaceMode),
+                                "Unsupported " + TdchConstants.REPLACE_MODE_KEY + ": " + replaceMode);
+    _isStagingMode = _isReplaceTargetTable && TdchConstants.REPLACE_MODE_STAGING.equals(replaceMode);
+
+    _mergeKeyColumns = Splitter.on(',').trimResults().omitEmptyStrings()
+                               .splitToList(props.getString(TdchConstants.MERGE_KEY_COLUMNS_KEY, ""));
+    Preconditions.checkArgument(_mergeKeyColumns.isEmpty() || !_isReplaceTargetTable,
+                                TdchConstants.MERGE_KEY_COLUMNS_KEY + " cannot be used with "
+                                + TdchConstants.REPLACE_TARGET_TABLE_KEY);
+    Preconditions.checkArgument(!useStagingTable() || _params.getPassword().isPresent(),
+                                "Staging table requires " + TdchConstants.TD_ENCRYPTED_CREDENTIAL_KEY);
+
+    String predicate = _jobProps.getProperty(TdchConstants.REPLACE_PREDICATE_KEY);
+    String partitionColumn = _jobProps.getProperty(TdchConstants.REPLACE_PARTITION_COLUMN_KEY);
+    if (!StringUtils.isEmpty(partitionColumn)) {
+      Preconditions.checkArgument(StringUtils.isEmpty(predicate), "Only one of " + TdchConstants.REPLACE_PREDICATE_KEY
+                                  + " and " + TdchConstants.REPLACE_PARTITION_COLUMN_KEY + " should be provided");
+      Preconditions.checkArgument(COLUMN_NAME_PATTERN.matcher(partitionColumn).matches(),
+                                  "Invalid " + TdchConstants.REPLACE_PARTITION_COLUMN_KEY + ": " + partitionColumn);
+      _replacePredicateParams = Splitter.on(',').trimResults().omitEmptyStrings()
+          .splitToList(props.getString(TdchConstants.REPLACE_PARTITION_VALUES_KEY, ""));
+      Preconditions.checkArgument(!_replacePredicateParams.isEmpty(),
+                                  TdchConstants.REPLACE_PARTITION_VALUES_KEY + " is required");
+      predicate = partitionColumn + " IN ("
+                  + Joiner.on(", ").join(Collections.nCopies(_replacePredicateParams.size(), "?")) + ")";
+    } else {
+      _replacePredicateParams = Collections.emptyList();
+    }
+    _replacePredicate = StringUtils.isEmpty(predicate) ? Optional.<String>absent() : Optional.of(predicate);
+    Preconditions.checkArgument(!_replacePredicate.isPresent() || !_isReplaceTargetTable,
+                                TdchConstants.REPLACE_PREDICATE_KEY + " or " + TdchConstants.REPLACE_PARTITION_COLUMN_KEY
+                                + " cannot be used with " + TdchConstants.REPLACE_TARGET_TABLE_KEY);
+    Preconditions.checkArgument(!_replacePredicate.isPresent() || _params.getPassword().isPresent(),
+                                "Replacing records requires " + TdchConstants.TD_ENCRYPTED_CREDENTIAL_KEY);
+
+    _directLoader = new HdfsToTeradataDirectLoader(props);
+    long directLoadMaxBytes = props.getLong(TdchConstants.DIRECT_LOAD_MAX_BYTES_KEY,
+                                            TdchConstants.DEFAULT_DIRECT_LOAD_MAX_BYTES);
+    if (directLoadMaxBytes > 0 && !isDirectLoadSupported()) {
+      _logger.warn("Not using direct load as it only supports " + TdchConstants.TEXT_FILE_FORMAT + " and "
+                   + TdchConstants.AVRO_FILE_FORMAT + " on HDFS with " + TdchConstants.TD_ENCRYPTED_CREDENTIAL_KEY
+                   + ", without " + TdchConstants.TD_OTHER_PROPERTIES_HOCON_KEY);
+      directLoadMaxBytes = 0L;
+    }
+    _directLoadMaxBytes = directLoadMaxBytes;
+
+    String manifestPath = _jobProps.getProperty(TdchConstants.SOURCE_HDFS_MANIFEST_PATH_KEY);
+    _manifestPath = StringUtils.isEmpty(manifestPath) ? Optional.<Path>absent() : Optional.of(new Path(manifestPath));
+    if (_manifestPath.isPresent()) {
+      String jobType = _jobProps.getProperty(TdchConstants.TDCH_JOB_TYPE);
+      Preconditions.checkArgument(!TdchConstants.TDCH_HIVE_JOB_TYPE.equals(jobType),
+                                  TdchConstants.SOURCE_HDFS_MANIFEST_PATH_KEY + " is not supported with hive job type");
+      //Replacing the data with only the new files would lose the data of the files exported before.
+      Preconditions.checkArgument(!_isReplaceTargetTable && !_replacePredicate.isPresent(),
+                                  TdchConstants.SOURCE_HDFS_MANIFEST_PATH_KEY + " cannot be used with "
+                                  + TdchConstants.REPLACE_TARGET_TABLE_KEY + ", " + TdchConstants.REPLACE_PREDICATE_KEY
+                                  + " or " + TdchConstants.REPLACE_PARTITION_COLUMN_KEY);
+    }
+  }
+
+  /**
+   * Direct load needs password for JDBC, and does not support hive job type and the properties only TDCH understands.
+   */
+  private boolean isDirectLoadSupported() {
+    return _params.getPassword().isPresent()
+           && !TdchConstants.TDCH_HIVE_JOB_TYPE.equals(_jobProps.getProperty(TdchConstants.TDCH_JOB_TYPE))
+           && HdfsToTeradataDirectLoader.isSupported(_params.getFileFormat())
+           && StringUtils.isEmpty(_jobProps.getProperty(TdchConstants.TD_OTHER_PROPERTIES_HOCON_KEY));
+  }
+
+  /**
+   * @return true if TDCH loads into a staging table, which replaces the target table in staging mode, or is merged
+   * into the target table in merge mode.
+   */
+  private boolean useStagingTable() {
+    return _isStagingMode || !_mergeKeyColumns.isEmpty();
   }
 
   private String createLibJarStr(Props props) {
@@ -130,26 +260,234 @@ public class HdfsToTeradataJobRunnerMain {
     _logger.info("Running job " + jobName);
     preprocess();
 
-    if (HadoopSecureWrapperUtils.shouldProxy(_jobProps)) {
-      String tokenFile = System.getenv(HADOOP_TOKEN_FILE_LOCATION);
-
-      UserGroupInformation proxyUser =
-          HadoopSecureWrapperUtils.setupProxyUser(_jobProps, tokenFile, _logger);
+    boolean isSuccess = false;
+    try {
+      runAsUser(new PrivilegedExceptionAction<Void>() {
+        @Override
+        public Void run() throws Exception {
+          if (selectNewOrChangedFiles()) {
+            resolveParams();
+            load();
+          }
+          return null;
+        }
+      });
+      isSuccess = true;
+    } finally {
+      postprocess(isSuccess);
+    }
 
-      proxyUser.doAs(new PrivilegedExceptionAction<Void>() {
+    //Only after the load and postprocess succeeded, so that a failed run exports the same files again.
+    if (_sourceFiles.isPresent()) {
+      runAsUser(new PrivilegedExceptionAction<Void>() {
         @Override
         public Void run() throws Exception {
-          copyHdfsToTd();
+          newManifest().write(_sourceFiles.get());
           return null;
         }
       });
+    }
+
+    if (!_outputProperties.isEmpty()) {
+      JobOutputProperties.write(_outputProperties);
+    }
+  }
+
+  private void runAsUser(PrivilegedExceptionAction<Void> action) throws IOException, InterruptedException {
+    if (HadoopSecureWrapperUtils.shouldProxy(_jobProps)) {
+      String tokenFile = System.getenv(HADOOP_TOKEN_FILE_LOCATION);
+
+      UserGroupInformation proxyUser =
+          HadoopSecureWrapperUtils.setupProxyUser(_jobProps, tokenFile, _logger);
+
+      proxyUser.doAs(action);
+      return;
+    }
+    try {
+      action.run();
+    } catch (IOException | InterruptedException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Narrows the source down to the files that are not in the manifest, or have changed since, if
+   * {@link TdchConstants#SOURCE_HDFS_MANIFEST_PATH_KEY} is provided. TDCH gets them as an explicit file list.
+   *
+   * @return false if there's no file to export.
+   * @throws IOException
+   */
+  private boolean selectNewOrChangedFiles() throws IOException {
+    if (!_manifestPath.isPresent()) {
+      return true;
+    }
+    List<FileStatus> sourceFiles =
+        HdfsToTeradataDirectLoader.listFiles(FileSystem.get(new Configuration()), getSourceHdfsPaths());
+    List<FileStatus> files = newManifest().getNewOrChanged(sourceFiles);
+    _sourceFiles = Optional.of(sourceFiles);
+    _outputProperties.put(TdchConstants.INCREMENTAL_FILE_COUNT_OUTPUT_KEY, Integer.toString(files.size()));
+    if (files.isEmpty()) {
+      _logger.info("No new or changed file in " + _params.getSourceHdfsPath());
+      return false;
+    }
+
+    List<String> paths = new ArrayList<>(files.size());
+    for (FileStatus file : files) {
+      paths.add(file.getPath().toString());
+    }
+    _params = _paramsBuilder.sourceHdfsPath(Joiner.on(',').join(paths)).build();
+    return true;
+  }
+
+  private Manifest newManifest() throws IOException {
+    return new Manifest(_manifestPath.get().getFileSystem(new Configuration()), _manifestPath.get());
+  }
+
+  private void load() {
+    if (_isDirectLoad) {
+      loadDirectly();
     } else {
       copyHdfsToTd();
     }
   }
 
+  /**
+   * Resolves the parameters that depend on the input, such as auto number of mappers and auto insert method, and
+   * whether the input is small enough for direct load. It needs to run as the user who reads the input, after
+   * preprocess.
+   * @throws IOException
+   */
+  @VisibleForTesting
+  void resolveParams() throws IOException {
+    if (!_isAutoNumMappers && !_isAutoInsertMethod && _directLoadMaxBytes <= 0) {
+      return;
+    }
+    Optional<Long> size = getSourceSize();
+    if (!size.isPresent()) {
+      _logger.warn("Source size is unknown. Using " + _params.getNumMappers() + " mappers and leaving insert method to "
+                   + "TDCH.");
+      return;
+    }
+    long sourceSize = size.get();
+    //Empty source is left to TDCH, so that an empty table never replaces the target table.
+    if (sourceSize > 0 && sourceSize < _directLoadMaxBytes) {
+      _logger.info("Using direct load as source size " + sourceSize + " bytes is smaller than "
+                   + _directLoadMaxBytes + " bytes.");
+      _isDirectLoad = true;
+      return;
+    }
+    if (_isAutoNumMappers) {
+      _paramsBuilder.numMapper(_mapperCountCalculator.fromInputSize(sourceSize));
+    }
+    if (_isAutoInsertMethod) {
+      _paramsBuilder.tdInsertMethod(_insertMethodSelector.select(sourceSize, _isTargetEmpty));
+    }
+    _params = _paramsBuilder.build();
+  }
+
+  /**
+   * @return Total size of the source in bytes. For hive job type, it's the size of table's location in Hive metastore.
+   * Absent if the location cannot be resolved.
+   * @throws IOException
+   * @throws IllegalArgumentException if a path of {@link TdchConstants#SOURCE_HDFS_PATH_KEY} does not exist.
+   */
+  @VisibleForTesting
+  Optional<Long> getSourceSize() throws IOException {
+    Configuration conf = new Configuration();
+    List<Path> paths = new ArrayList<>();
+    boolean isHive = TdchConstants.TDCH_HIVE_JOB_TYPE.equals(_jobProps.getProperty(TdchConstants.TDCH_JOB_TYPE));
+    if (isHive) {
+      Optional<Path> location = getHiveTableLocation();
+      if (!location.isPresent()) {
+        return Optional.absent();
+      }
+      paths.add(location.get());
+    } else {
+      paths.addAll(getSourceHdfsPaths());
+    }
+
+    long size = 0L;
+    for (Path path : paths) {
+      FileSystem fs = path.getFileSystem(conf);
+      FileStatus[] statuses = fs.globStatus(path);
+      if (statuses == null || statuses.length == 0) {
+        //Location of an empty hive table may not exist.
+        Preconditions.checkArgument(isHive, "Source " + path + " does not exist.");
+        _logger.warn("Source " + path + " does not exist.");
+        continue;
+      }
+      for (FileStatus status : statuses) {
+        size += fs.getContentSummary(status.getPath()).getLength();
+      }
+    }
+    _logger.info("Source size is " + size + " bytes from " + paths);
+    return Optional.of(size);
+  }
+
+  private List<Path> getSourceHdfsPaths() {
+    List<Path> paths = new ArrayList<>();
+    for (String path : _params.getSourceHdfsPath().split(",")) {
+      paths.add(new Path(path.trim()));
+    }
+    return paths;
+  }
+
+  /**
+   * Storage location of the source table from Hive metastore, which covers external tables and tables with custom
+   * location. Hive configuration is read from {@link TdchConstants#TDCH_HIVE_CONF_KEY} if provided.
+   *
+   * @return Absent if the location cannot be resolved.
+   */
+  @VisibleForTesting
+  Optional<Path> getHiveTableLocation() {
+    String db = _jobProps.getProperty(TdchConstants.SOURCE_HIVE_DATABASE_NAME_KEY);
+    String table = _jobProps.getProperty(TdchConstants.SOURCE_HIVE_TABLE_NAME_KEY);
+    HiveMetaStoreClient client = null;
+    try {
+      HiveConf hiveConf = new HiveConf();
+      String hiveConfFile = _jobProps.getProperty(TdchConstants.TDCH_HIVE_CONF_KEY);
+      if (!StringUtils.isEmpty(hiveConfFile)) {
+        hiveConf.addResource(new Path(hiveConfFile));
+      }
+      client = new HiveMetaStoreClient(hiveConf);
+      String location = client.getTable(db, table).getSd().getLocation();
+      if (StringUtils.isEmpty(location)) {
+        _logger.warn("Hive table " + db + "." + table + " does not have location.");
+        return Optional.absent();
+      }
+      return Optional.of(new Path(location));
+    } catch (Exception | NoClassDefFoundError e) {
+      //Metastore client may not be on the classpath of the job.
+      _logger.warn("Failed to get location of hive table " + db + "." + table + " from metastore.", e);
+      return Optional.absent();
+    } finally {
+      if (client != null) {
+        client.close();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  TdchParameters getParams() {
+    return _params;
+  }
+
+  @VisibleForTesting
+  Map<String, String> getOutputProperties() {
+    return _outputProperties;
+  }
+
   /**
    * If user provided password, it performs pre-processing such as drop error table, and truncate target table, if requested by user.
+   * With replace predicate, it deletes only the matching data in the target table.
+   * It also checks if target table is empty for auto insert method and direct load.
+   *
+   * In staging mode, instead of deleting all data in the target table, it creates an empty staging table with the
+   * same definition and makes TDCH load into it. Target table keeps serving the old data until postprocess swaps the
+   * staging table in, leaving a short window without the target table (see {@link TeradataCommands#swapTable}). Merge
+   * mode also loads into a staging table, which postprocess merges into the target table.
    */
   private void preprocess() {
     if (!_params.getPassword().isPresent()) {
@@ -182,24 +520,109 @@ public class HdfsToTeradataJobRunnerMain {
         }
       }
 
-      boolean isReplaceTargetTable =
-          Boolean.valueOf(_jobProps.getProperty(TdchConstants.REPLACE_TARGET_TABLE_KEY, Boolean.FALSE.toString()));
-      if (isReplaceTargetTable) {
+      if (useStagingTable()) {
+        String stagingTable = newStagingTableName();
+        if (command.doesExist(stagingTable, _targetTdDatabase)) {
+          _logger.info("Dropping staging table " + stagingTable + " left from previous run.");
+          command.dropTable(stagingTable, _targetTdDatabase);
+        }
+        _logger.info("Creating staging table " + stagingTable + " for " + _targetTdTableName);
+        command.createTableLike(stagingTable, _targetTdTableName, _targetTdDatabase);
+        _stagingTable = Optional.of(stagingTable);
+
+        String dbTbl = _targetTdDatabase.isPresent()
+                       ? String.format(TeradataCommands.DATABASE_TABLE_FORMAT, _targetTdDatabase.get(), stagingTable)
+                       : stagingTable;
+        _params = _paramsBuilder.targetTdTableName(dbTbl).build();
+      } else if (_isReplaceTargetTable) {
         _logger.info("Deleting all data in table " + _params.getTargetTdTableName());
         command.truncateTable(_params.getTargetTdTableName(), _params.getTargetTdDatabase());
       }
 
+      if (_replacePredicate.isPresent()) {
+        _logger.info("Deleting data in table " + _targetTdTableName + " where " + _replacePredicate.get());
+        command.deleteWhere(_targetTdTableName, _targetTdDatabase, _replacePredicate.get(), _replacePredicateParams);
+      }
+
+      if (_isAutoInsertMethod || _directLoadMaxBytes > 0) {
+        _isTargetEmpty = Optional.of(_isReplaceTargetTable || _stagingTable.isPresent()
+                                     || command.isEmpty(_params.getTargetTdTableName(), _params.getTargetTdDatabase()));
+      }
+
       conn.commit();
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
   }
 
+  /**
+   * If the load succeeded, swaps the staging table in place of the target table in staging mode, or merges the staging
+   * table into the target table and drops it in merge mode. Drops the staging table if the load failed.
+   * @param isSuccess
+   */
+  private void postprocess(boolean isSuccess) {
+    if (!_stagingTable.isPresent()) {
+      return;
+    }
+
+    try (Connection conn = newConnection()) {
+      JdbcCommands command = newTeradataCommands(conn);
+      if (isSuccess && _isStagingMode) {
+        _logger.info("Replacing table " + _targetTdTableName + " with staging table " + _stagingTable.get());
+        command.swapTable(_stagingTable.get(), _targetTdTableName, _targetTdDatabase);
+      } else if (isSuccess) {
+        try {
+          _logger.info("Merging staging table " + _stagingTable.get() + " into " + _targetTdTableName + " on "
+                       + _mergeKeyColumns);
+          MergeResult result =
+              command.mergeTable(_stagingTable.get(), _targetTdTableName, _targetTdDatabase, _mergeKeyColumns);
+          _outputProperties.put(TdchConstants.MERGE_INSERTED_COUNT_OUTPUT_KEY, Long.toString(result.getInsertedCount()));
+          _outputProperties.put(TdchConstants.MERGE_UPDATED_COUNT_OUTPUT_KEY, Long.toString(result.getUpdatedCount()));
+        } finally {
+          command.dropTable(_stagingTable.get(), _targetTdDatabase);
+        }
+      } else {
+        _logger.info("Dropping staging table " + _stagingTable.get() + " as the load has failed.");
+        command.dropTable(_stagingTable.get(), _targetTdDatabase);
+      }
+    } catch (RuntimeException | SQLException e) {
+      if (isSuccess) {
+        throw new RuntimeException(e);
+      }
+      //Not to hide the failure of the load.
+      _logger.error("Failed to drop staging table " + _stagingTable.get(), e);
+    }
+  }
+
+  private String newStagingTableName() {
+    String name = _jobProps.getProperty(TdchConstants.STAGING_TABLE_NAME_KEY);
+    if (!StringUtils.isEmpty(name)) {
+      return name;
+    }
+    String prefix = _targetTdTableName.length() > STAGING_TABLE_PREFIX_LENGTH_LIMIT
+                    ? _targetTdTableName.substring(0, STAGING_TABLE_PREFIX_LENGTH_LIMIT)
+                    : _targetTdTableName;
+    return prefix + String.format(STAGING_TABLE_SUFFIX_FORMAT, new Random().nextInt(0x1000000));
+  }
+
   @VisibleForTesting
   Connection newConnection() {
+    return newConnection(_params.getTdUrl());
+  }
+
+  /**
+   * @param isFastLoad true to open JDBC FastLoad connection, which Teradata JDBC driver falls back to a regular one
+   * for the statements FastLoad does not support.
+   */
+  @VisibleForTesting
+  Connection newDirectLoadConnection(boolean isFastLoad) {
+    return newConnection(isFastLoad ? _params.getTdUrl() + FASTLOAD_URL_PARAM : _params.getTdUrl());
+  }
+
+  private Connection newConnection(String url) {
     try {
       Class.forName(_params.getTdJdbcClassName());
-      return DriverManager.getConnection(_params.getTdUrl(), _params.getUserName(), _params.getPassword().get());
+      return DriverManager.getConnection(url, _params.getUserName(), _params.getPassword().get());
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
@@ -218,7 +641,60 @@ public class HdfsToTeradataJobRunnerMain {
   @VisibleForTesting
   void copyHdfsToTd() {
     _logger.info(String.format("Executing %s with params: %s", HdfsToTeradataJobRunnerMain.class.getSimpleName(), _params));
-    TeradataExportTool.main(_params.toTdchParams());
+    //Runs TDCH through ToolRunner to get the result of the load, as postprocess depends on it.
+    int result;
+    try {
+      result = ToolRunner.run(new TeradataExportTool(), _params.toTdchParams());
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    if (result != 0) {
+      throw new RuntimeException("TDCH export failed with exit code " + result);
+    }
+  }
+
+  /**
+   * Loads the source directly over JDBC in a single transaction, instead of TDCH. JDBC FastLoad is used when the
+   * target table is empty, unless user asked for batch.insert.
+   */
+  @VisibleForTesting
+  void loadDirectly() {
+    String table = _params.getTargetTdTableName();
+    Optional<String> db = _params.getTargetTdDatabase();
+    List<String> columns;
+    List<Integer> sqlTypes = new ArrayList<>();
+    try (Connection conn = newConnection()) {
+      JdbcCommands command = newTeradataCommands(conn);
+      columns = command.getColumns(table, db);
+      for (String column : columns) {
+        sqlTypes.add(command.getColumnType(table, db, column).or(Types.VARCHAR));
+      }
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+
+    boolean isFastLoad = _isTargetEmpty.or(false)
+                         && !TdchConstants.BATCH_INSERT.equals(_params.getTdInsertMethod().orNull());
+    String dbTable = db.isPresent() ? String.format(TeradataCommands.DATABASE_TABLE_FORMAT, db.get(), table) : table;
+    _logger.info("Loading " + _params.getSourceHdfsPath() + " into " + dbTable
+                 + " directly" + (isFastLoad ? " with JDBC FastLoad" : "") + " using " + _directLoader);
+
+    try (Connection conn = newDirectLoadConnection(isFastLoad)) {
+      conn.setAutoCommit(false);
+      try {
+        long rows = _directLoader.load(FileSystem.get(new Configuration()), getSourceHdfsPaths(),
+                                       _params.getFileFormat(),
+                                       _params.getFieldSeparator().or(TdchConstants.DEFAULT_FIELD_SEPARATOR),
+                                       conn, dbTable, columns, sqlTypes);
+        conn.commit();
+        _logger.info("Loaded " + rows + " rows into " + dbTable);
+      } catch (IOException | SQLException | InterruptedException | RuntimeException e) {
+        conn.rollback();
+        throw e;
+      }
+    } catch (IOException | SQLException | InterruptedException e) {
+      throw new RuntimeException(e);
+    }
   }
 
   /**
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
+import azkaban.utils.Props;
+
+/**
+ * Decides TDCH insert method when {@link TdchConstants#TD_INSERT_METHOD_KEY} is set to "auto".
+ *
+ * internal.fastload is used only when the target table is known to be empty at the time of load, and the input is
+ * at least {@link TdchConstants#TD_INSERT_METHOD_FASTLOAD_MIN_BYTES_KEY}. FastLoad needs an empty target, and for a
+ * small input its setup cost and the utility slot it holds on Teradata outweigh the gain. batch.insert otherwise.
+ */
+public class InsertMethodSelector {
+  private static final Logger _logger = Logger.getLogger(InsertMethodSelector.class);
+
+  private final long _fastloadMinBytes;
+
+  public InsertMethodSelector(Props props) {
+    _fastloadMinBytes = props.getLong(TD_INSERT_METHOD_FASTLOAD_MIN_BYTES_KEY, DEFAULT_AUTO_FASTLOAD_MIN_BYTES);
+    Preconditions.checkArgument(_fastloadMinBytes >= 0,
+                                TD_INSERT_METHOD_FASTLOAD_MIN_BYTES_KEY + " should not be negative.");
+  }
+
+  /**
+   * @param value Value of {@link TdchConstants#TD_INSERT_METHOD_KEY}
+   * @return true if insert method should be decided by the selector.
+   */
+  public static boolean isAuto(String value) {
+    return MapperCountCalculator.isAuto(value);
+  }
+
+  /**
+   * @param inputBytes Total size of the input
+   * @param isTargetEmpty true if the target table is empty at the time of load. Absent if it's unknown.
+   * @return Insert method
+   */
+  public String select(long inputBytes, Optional<Boolean> isTargetEmpty) {
+    String method;
+    String reason;
+    if (!isTargetEmpty.isPresent()) {
+      method = BATCH_INSERT;
+      reason = "it is unknown whether target table is empty";
+    } else if (!isTargetEmpty.get()) {
+      method = BATCH_INSERT;
+      reason = "target table is not empty";
+    } else if (inputBytes < _fastloadMinBytes) {
+      method = BATCH_INSERT;
+      reason = inputBytes + " bytes of input is smaller than " + _fastloadMinBytes + " bytes";
+    } else {
+      method = INTERNAL_FASTLOAD;
+      reason = "target table is empty and input is " + inputBytes + " bytes";
+    }
+    _logger.info("Using " + method + " because " + reason + ".");
+    return method;
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import azkaban.jobExecutor.AbstractProcessJob;
+
+/**
+ * Writes job output properties into the file provided by Azkaban, so that downstream jobs can refer to them.
+ */
+public class JobOutputProperties {
+  private static final Logger _logger = Logger.getLogger(JobOutputProperties.class);
+
+  private JobOutputProperties() {}
+
+  /**
+   * @param outputProps Output properties of the job. Overwrites the properties written before.
+   * @throws IOException
+   */
+  public static void write(Map<String, String> outputProps) throws IOException {
+    String outputFile = System.getenv(AbstractProcessJob.JOB_OUTPUT_PROP_FILE);
+    if (outputFile == null) {
+      _logger.warn("Not writing output properties " + outputProps + " as " + AbstractProcessJob.JOB_OUTPUT_PROP_FILE
+                   + " is not set.");
+      return;
+    }
+    _logger.info("Writing output properties " + outputProps + " into " + outputFile);
+    new ObjectMapper().writeValue(new File(outputFile), outputProps);
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+/**
+ * Manifest of the source files exported so far, kept in a state file on HDFS, so that the next run exports only new
+ * files of an append-only dataset.
+ *
+ * A file is identified by its path, length and modification time. A file rewritten in place is exported again as a
+ * whole, hence rows of its previous version remain in the target table.
+ */
+public class Manifest {
+  private static final Logger _logger = Logger.getLogger(Manifest.class);
+
+  private final FileSystem _fs;
+  private final Path _path;
+
+  /**
+   * @param fs File system of the manifest
+   * @param path Manifest file
+   */
+  public Manifest(FileSystem fs, Path path) {
+    _fs = fs;
+    _path = path;
+  }
+
+  /**
+   * @param files Current source files
+   * @return Files that are not in the manifest, or whose length or modification time has changed since.
+   * @throws IOException
+   */
+  public List<FileStatus> getNewOrChanged(List<FileStatus> files) throws IOException {
+    Map<String, List<Long>> exported = StateFile.read(_fs, _path, new TypeReference<Map<String, List<Long>>>() {})
+                                                .or(new TreeMap<String, List<Long>>());
+    List<FileStatus> changed = new ArrayList<>();
+    for (FileStatus file : files) {
+      List<Long> entry = exported.get(file.getPath().toString());
+      if (entry == null || entry.get(0).longValue() != file.getLen()
+          || entry.get(1).longValue() != file.getModificationTime()) {
+        changed.add(file);
+      }
+    }
+    _logger.info(changed.size() + " of " + files.size() + " files are new or changed since " + exported.size()
+                 + " files in " + _path);
+    return changed;
+  }
+
+  /**
+   * Replaces the manifest with the files. Files no longer in the source drop out of the manifest.
+   * @param files Source files exported by now
+   * @throws IOException
+   */
+  public void write(List<FileStatus> files) throws IOException {
+    Map<String, List<Long>> exported = new TreeMap<>();
+    for (FileStatus file : files) {
+      List<Long> entry = new ArrayList<>(2);
+      entry.add(file.getLen());
+      entry.add(file.getModificationTime());
+      exported.put(file.getPath().toString(), entry);
+    }
+    StateFile.write(_fs, _path, exported);
+    _logger.info("Updated " + _path + " with " + files.size() + " files.");
+  }
+
+  @Override
+  public String toString() {
+    return "Manifest [_path=" + _path + "]";
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
+import azkaban.utils.Props;
+
+/**
+ * Decides number of mappers when {@link TdchConstants#TD_NUM_MAPPERS} is set to "auto".
+ *
+ * Number of mappers is the input size divided by {@link TdchConstants#TD_NUM_MAPPERS_BYTES_PER_MAPPER_KEY}, clamped
+ * by {@link TdchConstants#TD_NUM_MAPPERS_MIN_KEY} and {@link TdchConstants#TD_NUM_MAPPERS_MAX_KEY}. As each mapper
+ * holds a Teradata session, it never exceeds {@link TdchConstants#TD_SESSION_LIMIT_KEY} if it's provided. When source is
+ * a Teradata table split by AMP, it's also aligned with the number of AMPs.
+ */
+public class MapperCountCalculator {
+  private static final Logger _logger = Logger.getLogger(MapperCountCalculator.class);
+
+  private final long _bytesPerMapper;
+  private final int _minMappers;
+  private final int _maxMappers;
+  private final Optional<Integer> _sessionLimit;
+
+  public MapperCountCalculator(Props props) {
+    _bytesPerMapper = props.getLong(TD_NUM_MAPPERS_BYTES_PER_MAPPER_KEY, DEFAULT_AUTO_BYTES_PER_MAPPER);
+    _minMappers = props.getInt(TD_NUM_MAPPERS_MIN_KEY, DEFAULT_AUTO_MIN_MAPPERS);
+    _maxMappers = props.getInt(TD_NUM_MAPPERS_MAX_KEY, DEFAULT_AUTO_MAX_MAPPERS);
+    _sessionLimit = props.containsKey(TD_SESSION_LIMIT_KEY)
+                    ? Optional.of(props.getInt(TD_SESSION_LIMIT_KEY))
+                    : Optional.<Integer>absent();
+
+    Preconditions.checkArgument(_bytesPerMapper > 0, TD_NUM_MAPPERS_BYTES_PER_MAPPER_KEY + " should be positive.");
+    Preconditions.checkArgument(_minMappers > 0, TD_NUM_MAPPERS_MIN_KEY + " should be positive.");
+    Preconditions.checkArgument(_minMappers <= _maxMappers,
+                                TD_NUM_MAPPERS_MIN_KEY + " should not be greater than " + TD_NUM_MAPPERS_MAX_KEY);
+    Preconditions.checkArgument(!_sessionLimit.isPresent() || _sessionLimit.get() > 0,
+                                TD_SESSION_LIMIT_KEY + " should be positive.");
+  }
+
+  /**
+   * @param value Value of {@link TdchConstants#TD_NUM_MAPPERS}
+   * @return true if number of mappers should be decided by the calculator.
+   */
+  public static boolean isAuto(String value) {
+    return AUTO.equalsIgnoreCase(value == null ? null : value.trim());
+  }
+
+  /**
+   * @param inputBytes Total size of the input
+   * @return Number of mappers for the input size
+   */
+  public int fromInputSize(long inputBytes) {
+    long bySize = Math.max(1L, (inputBytes + _bytesPerMapper - 1) / _bytesPerMapper);
+    int numMappers = (int) Math.min(Math.max(bySize, _minMappers), _maxMappers);
+
+    StringBuilder reason = new StringBuilder();
+    reason.append(inputBytes).append(" bytes of input / ").append(_bytesPerMapper).append(" bytes per mapper = ")
+          .append(bySize).append(", clamped into [").append(_minMappers).append(", ").append(_maxMappers).append("]");
+
+    if (_sessionLimit.isPresent() && numMappers > _sessionLimit.get()) {
+      numMappers = _sessionLimit.get();
+      reason.append(", limited by Teradata session limit ").append(_sessionLimit.get());
+    }
+
+    _logger.info("Using " + numMappers + " mappers. " + reason);
+    return numMappers;
+  }
+
+  /**
+   * @param tableBytes Size of the source table. Absent if it's unknown such as source query.
+   * @param ampCount Number of AMPs of the Teradata system
+   * @param isSplitByAmp true if the source is split by AMP, where each mapper reads whole AMPs.
+   * @return Number of mappers for the source
+   */
+  public int fromTeradata(Optional<Long> tableBytes, int ampCount, boolean isSplitByAmp) {
+    int numMappers;
+    if (tableBytes.isPresent()) {
+      numMappers = fromInputSize(tableBytes.get());
+    } else {
+      numMappers = Math.min(Math.max(DEFAULT_NO_MAPPERS, _minMappers), _maxMappers);
+      if (_sessionLimit.isPresent()) {
+        numMappers = Math.min(numMappers, _sessionLimit.get());
+      }
+      _logger.info("Using " + numMappers + " mappers as the source size is unknown.");
+    }
+
+    if (!isSplitByAmp || ampCount <= 0) {
+      return numMappers;
+    }
+
+    //Mappers beyond AMP count are left idle, and uneven number of AMPs per mapper makes some mappers a straggler.
+    //Hence, use the smallest number of mappers that keeps the same number of AMPs per mapper.
+    int ampsPerMapper = (ampCount + numMappers - 1) / numMappers;
+    int aligned = (ampCount + ampsPerMapper - 1) / ampsPerMapper;
+    if (aligned != numMappers) {
+      _logger.info("Using " + aligned + " mappers instead of " + numMappers + " so that each mapper reads "
+                   + ampsPerMapper + " of " + ampCount + " AMPs.");
+    }
+    return aligned;
+  }
+
+  @Override
+  public String toString() {
+    return "MapperCountCalculator [_bytesPerMapper=" + _bytesPerMapper + ", _minMappers=" + _minMappers
+           + ", _maxMappers=" + _maxMappers + ", _sessionLimit=" + _sessionLimit + "]";
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+import azkaban.jobtype.connectors.jdbc.JdbcCommands;
+import azkaban.utils.Props;
+
+/**
+ * Decides TDCH retrieve method of the source table when {@link TdchConstants#TD_RETRIEVE_METHOD_KEY} is set to "auto".
+ *
+ * <ul>
+ * <li>split.by.partition if the primary index is partitioned, as each mapper reads its own partitions without a
+ * staging table.</li>
+ * <li>split.by.value on the primary index column if the table has fewer rows per AMP than
+ * {@link TdchConstants#TD_RETRIEVE_METHOD_MIN_ROWS_PER_AMP_KEY} and the primary index is a single numeric or date
+ * column. With that few rows, rows are unevenly spread over AMPs, and scanning the whole table per mapper is cheap.
+ * split.by.hash on the primary index columns is used for the other types of primary index.</li>
+ * <li>split.by.amp otherwise, as each mapper only reads its own AMPs.</li>
+ * </ul>
+ */
+public class RetrieveMethodSelector {
+  private static final Logger _logger = Logger.getLogger(RetrieveMethodSelector.class);
+  private static final Set<Integer> VALUE_SPLITTABLE_TYPES =
+      ImmutableSet.of(Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.DECIMAL, Types.NUMERIC,
+                      Types.DATE, Types.TIMESTAMP);
+
+  private final long _minRowsPerAmp;
+
+  public RetrieveMethodSelector(Props props) {
+    _minRowsPerAmp = props.getLong(TD_RETRIEVE_METHOD_MIN_ROWS_PER_AMP_KEY, DEFAULT_AUTO_MIN_ROWS_PER_AMP);
+    Preconditions.checkArgument(_minRowsPerAmp >= 0, TD_RETRIEVE_METHOD_MIN_ROWS_PER_AMP_KEY + " should not be negative.");
+  }
+
+  /**
+   * @param value Value of {@link TdchConstants#TD_RETRIEVE_METHOD_KEY}
+   * @return true if retrieve method should be decided by the selector.
+   */
+  public static boolean isAuto(String value) {
+    return MapperCountCalculator.isAuto(value);
+  }
+
+  /**
+   * @param command Commands on the source Teradata
+   * @param table Source table
+   * @param database Database of the source table
+   * @param ampCount Number of AMPs of the Teradata system
+   * @return Retrieve method and split column for the source table
+   */
+  public RetrieveMethod select(JdbcCommands command, String table, Optional<String> database, int ampCount) {
+    List<String> piColumns = command.getPrimaryIndexColumns(table, database);
+    boolean isPartitioned = command.isPartitioned(table, database);
+    Optional<Long> rowCount = command.getRowCount(table, database);
+
+    RetrieveMethod selected;
+    String reason;
+    if (isPartitioned) {
+      selected = new RetrieveMethod(SPLIT_BY_PARTITION, Optional.<String>absent());
+      reason = "primary index is partitioned";
+    } else if (!piColumns.isEmpty() && rowCount.isPresent() && rowCount.get() < _minRowsPerAmp * ampCount) {
+      reason = rowCount.get() + " rows are fewer than " + _minRowsPerAmp + " rows per AMP on " + ampCount + " AMPs";
+      Optional<Integer> type = piColumns.size() == 1
+                               ? command.getColumnType(table, database, piColumns.get(0))
+                               : Optional.<Integer>absent();
+      if (type.isPresent() && VALUE_SPLITTABLE_TYPES.contains(type.get())) {
+        selected = new RetrieveMethod(SPLIT_BY_VALUE, Optional.of(piColumns.get(0)));
+      } else {
+        selected = new RetrieveMethod(SPLIT_BY_HASH, Optional.of(Joiner.on(',').join(piColumns)));
+      }
+    } else {
+      selected = new RetrieveMethod(SPLIT_BY_AMP, Optional.<String>absent());
+      reason = rowCount.isPresent() ? rowCount.get() + " rows on " + ampCount + " AMPs"
+                                    : "row count statistics is not available";
+    }
+
+    _logger.info("Using " + selected + " for " + database.or("(default database)") + "." + table + " because "
+                 + reason + ". Primary index: " + piColumns + ", partitioned: " + isPartitioned);
+    return selected;
+  }
+
+  public static class RetrieveMethod {
+    private final String _method;
+    private final Optional<String> _splitByColumn;
+
+    RetrieveMethod(String method, Optional<String> splitByColumn) {
+      _method = method;
+      _splitByColumn = splitByColumn;
+    }
+
+    public String getMethod() {
+      return _method;
+    }
+
+    public Optional<String> getSplitByColumn() {
+      return _splitByColumn;
+    }
+
+    @Override
+    public String toString() {
+      return _splitByColumn.isPresent() ? _method + " on " + _splitByColumn.get() : _method;
+    }
+  }
+}
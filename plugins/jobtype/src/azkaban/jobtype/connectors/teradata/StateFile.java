@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+
+/**
+ * JSON file on HDFS that keeps the state of a job across runs.
+ *
+ * State is replaced through a temporary file, which is also read if the state file is missing because the replacement
+ * was interrupted.
+ */
+class StateFile {
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+  private StateFile() {}
+
+  /**
+   * @return State in the file. Absent if it has never been written.
+   */
+  static <T> Optional<T> read(FileSystem fs, Path path, TypeReference<T> type) throws IOException {
+    Path source = fs.exists(path) ? path : path.suffix(TEMP_FILE_SUFFIX);
+    if (!fs.exists(source)) {
+      return Optional.absent();
+    }
+    try (InputStream in = fs.open(source)) {
+      return Optional.of(new ObjectMapper().<T>readValue(in, type));
+    }
+  }
+
+  static void write(FileSystem fs, Path path, Object state) throws IOException {
+    Path temp = path.suffix(TEMP_FILE_SUFFIX);
+    try (OutputStream out = fs.create(temp, true)) {
+      new ObjectMapper().writeValue(out, state);
+    }
+    if (fs.exists(path) && !fs.delete(path, false)) {
+      throw new IOException("Failed to delete " + path);
+    }
+    if (!fs.rename(temp, path)) {
+      throw new IOException("Failed to rename " + temp + " to " + path);
+    }
+  }
+}
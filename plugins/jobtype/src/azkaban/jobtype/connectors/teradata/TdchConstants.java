@@ -17,14 +17,39 @@ public interface TdchConstants {
   public static final String DEFAULT_TDCH_JOB_TYPE = "hdfs";
   public static final String TDCH_HIVE_JOB_TYPE = "hive";
   public static final String AVRO_FILE_FORMAT = "avrofile";
+  public static final String TEXT_FILE_FORMAT = "textfile";
+  public static final String DEFAULT_FIELD_SEPARATOR = "\t";
   public static final String LIB_JAR_DELIMITER = ",";
   public static final int DEFAULT_NO_MAPPERS = 8;
+  public static final String SPLIT_BY_AMP = "split.by.amp";
+  public static final String SPLIT_BY_PARTITION = "split.by.partition";
+  public static final String SPLIT_BY_HASH = "split.by.hash";
+  public static final String SPLIT_BY_VALUE = "split.by.value";
+  public static final String DEFAULT_RETRIEVE_METHOD = SPLIT_BY_AMP;
+  public static final long DEFAULT_AUTO_MIN_ROWS_PER_AMP = 1000L;
+  public static final String INTERNAL_FASTLOAD = "internal.fastload";
+  public static final String BATCH_INSERT = "batch.insert";
+  public static final long DEFAULT_AUTO_FASTLOAD_MIN_BYTES = 64L * 1024L * 1024L;
+  public static final String REPLACE_MODE_DELETE = "delete";
+  public static final String REPLACE_MODE_STAGING = "staging";
+  public static final String AUTO = "auto";
+  public static final long DEFAULT_AUTO_BYTES_PER_MAPPER = 512L * 1024L * 1024L;
+  public static final int DEFAULT_AUTO_MIN_MAPPERS = 1;
+  public static final int DEFAULT_AUTO_MAX_MAPPERS = 64;
+  public static final long DEFAULT_DIRECT_LOAD_MAX_BYTES = 0L;
+  public static final int DEFAULT_DIRECT_LOAD_BATCH_SIZE = 5000;
+  public static final int DEFAULT_DIRECT_LOAD_QUEUE_SIZE = 4;
+  public static final long DEFAULT_DIRECT_EXTRACT_MAX_BYTES = 0L;
+  public static final int DEFAULT_DIRECT_EXTRACT_FETCH_SIZE = 10000;
+  public static final int DEFAULT_DIRECT_EXTRACT_WRITERS = 2;
+  public static final long DEFAULT_TD_WALLET_EXTRACT_TIMEOUT_SEC = 300L;
 
   //Keys for the properties
   public static final String TDCH_JOB_TYPE = "tdch.jobtype";
   public static final String TDCH_LOG_LEVEL = "tdch.log.level";
 
   public static final String TD_WALLET_JAR = "jobtype.tdwallet.jar";
+  public static final String TD_WALLET_EXTRACT_TIMEOUT_SEC_KEY = "jobtype.tdwallet.extract.timeout.sec";
   public static final String LIB_JARS_KEY = "libjars";
   public static final String LIB_JARS_HIVE_KEY = "libjars.hive";
   public static final String TD_HOSTNAME_KEY = "td.hostname";
@@ -37,10 +62,25 @@ public interface TdchConstants {
   public static final String AVRO_SCHEMA_INLINE_KEY = "avro.schema.inline";
 
   public static final String TD_NUM_MAPPERS = "tdch.num.mappers";
+  public static final String TD_NUM_MAPPERS_BYTES_PER_MAPPER_KEY = "tdch.num.mappers.auto.bytes.per.mapper";
+  public static final String TD_NUM_MAPPERS_MIN_KEY = "tdch.num.mappers.auto.min";
+  public static final String TD_NUM_MAPPERS_MAX_KEY = "tdch.num.mappers.auto.max";
+  public static final String TD_SESSION_LIMIT_KEY = "td.session.limit";
   public static final String TD_INSERT_METHOD_KEY = "tdch.insert.method";
+  public static final String TD_INSERT_METHOD_FASTLOAD_MIN_BYTES_KEY = "tdch.insert.method.auto.fastload.min.bytes";
+  public static final String DIRECT_LOAD_MAX_BYTES_KEY = "td.direct.load.max.bytes";
+  public static final String DIRECT_LOAD_BATCH_SIZE_KEY = "td.direct.load.batch.size";
+  public static final String DIRECT_LOAD_QUEUE_SIZE_KEY = "td.direct.load.queue.size";
   public static final String SOURCE_HDFS_PATH_KEY = "source.hdfs.path";
   public static final String TARGET_TD_TABLE_NAME_KEY = "target.td.tablename";
   public static final String REPLACE_TARGET_TABLE_KEY = "target.td.table.replace";
+  public static final String REPLACE_MODE_KEY = "target.td.table.replace.mode";
+  public static final String STAGING_TABLE_NAME_KEY = "target.td.staging.tablename";
+  public static final String MERGE_KEY_COLUMNS_KEY = "target.td.merge.keys";
+  public static final String REPLACE_PREDICATE_KEY = "target.td.replace.predicate";
+  public static final String REPLACE_PARTITION_COLUMN_KEY = "target.td.replace.partition.column";
+  public static final String REPLACE_PARTITION_VALUES_KEY = "target.td.replace.partition.values";
+  public static final String SOURCE_HDFS_MANIFEST_PATH_KEY = "source.hdfs.manifest.path";
 
   public static final String ERROR_DB_KEY = "td.error.database";
   public static final String ERROR_TABLE_KEY = "td.error.table";
@@ -51,11 +91,26 @@ public interface TdchConstants {
   public static final String HADOOP_CONFIG_PREFIX_KEY = "hadoop.config.";
 
   public static final String TD_RETRIEVE_METHOD_KEY = "tdch.retrieve.method";
+  public static final String TD_RETRIEVE_METHOD_MIN_ROWS_PER_AMP_KEY = "tdch.retrieve.method.auto.min.rows.per.amp";
+  public static final String TD_SPLIT_BY_COLUMN_KEY = "tdch.split.by.column";
+  public static final String DIRECT_EXTRACT_KEY = "td.direct.extract";
+  public static final String DIRECT_EXTRACT_MAX_BYTES_KEY = "td.direct.extract.max.bytes";
+  public static final String DIRECT_EXTRACT_FETCH_SIZE_KEY = "td.direct.extract.fetch.size";
+  public static final String DIRECT_EXTRACT_WRITERS_KEY = "td.direct.extract.writers";
   public static final String SOURCE_TD_TABLE_NAME_KEY = "source.td.tablename";
   public static final String SOURCE_TD_QUERY_NAME_KEY = "source.td.sourcequery";
   public static final String TARGET_HDFS_PATH_KEY = "target.hdfs.path";
+  public static final String INCREMENTAL_COLUMN_KEY = "source.td.incremental.column";
+  public static final String SKIP_IF_UNCHANGED_KEY = "source.td.skip.if.unchanged";
+  public static final String FINGERPRINT_QUERY_KEY = "source.td.fingerprint.query";
   public static final String TD_OTHER_PROPERTIES_HOCON_KEY = "tdch.other.properties.hocon";
   public static final String JOB_OUTPUT_PROPERTIES_KEY = "output.property.keys";
+  public static final String MERGE_INSERTED_COUNT_OUTPUT_KEY = "td.merge.inserted.count";
+  public static final String MERGE_UPDATED_COUNT_OUTPUT_KEY = "td.merge.updated.count";
+  public static final String INCREMENTAL_TARGET_PATH_OUTPUT_KEY = "td.incremental.target.path";
+  public static final String INCREMENTAL_WATERMARK_OUTPUT_KEY = "td.incremental.watermark";
+  public static final String INCREMENTAL_FILE_COUNT_OUTPUT_KEY = "td.incremental.file.count";
+  public static final String SKIPPED_OUTPUT_KEY = "td.skipped";
 
   public static final String SOURCE_HIVE_DATABASE_NAME_KEY = "source.hive.databasename";
   public static final String SOURCE_HIVE_TABLE_NAME_KEY = "source.hive.tablename";
@@ -39,7 +39,6 @@ public class TdchParameters {
   private final static String TERADATA_JDBC_URL_PREFIX = "jdbc:teradata://";
   private final static String TERADATA_JDBC_URL_CHARSET_KEY = "/CHARSET=";
   private final static String DEFAULT_CHARSET = "UTF8";
-  private static final String DEFAULT_RETRIEVE_METHOD = "split.by.amp";
   private static final int ERROR_TABLE_NAME_LENGTH_LIMIT = 24;
 
   private final List<String> _mrParams;
@@ -54,7 +53,7 @@ public class TdchParameters {
   private final Optional<String> _password;
   private final Optional<String> _avroSchemaPath;
   private final Optional<String> _avroSchemaInline;
-  private final String _numMappers;
+  private final int _numMappers;
   private final Optional<Config> _otherProperties;
 
   private final TdchType _tdchType;
@@ -76,6 +75,7 @@ public class TdchParameters {
   private final Optional<String> _sourceQuery;
   private final Optional<String> _sourceTdTableName;
   private final Optional<String> _tdRetrieveMethod;
+  private final Optional<String> _splitByColumn;
   private final String _targetHdfsPath;
 
   public static Builder builder() {
@@ -98,7 +98,7 @@ public class TdchParameters {
     this._avroSchemaPath = Optional.fromNullable(builder._avroSchemaPath);
     this._avroSchemaInline = Optional.fromNullable(builder._avroSchemaInline);
 
-    this._numMappers = Integer.toString(builder._numMappers);
+    this._numMappers = builder._numMappers;
     this._otherProperties = Optional.fromNullable(builder._otherProperties);
     this._tdchType = builder._tdchType;
 
@@ -113,6 +113,7 @@ public class TdchParameters {
     this._sourceTdTableName = Optional.fromNullable(builder._sourceTdTableName);
     this._targetHdfsPath = builder._targetHdfsPath;
     this._tdRetrieveMethod = Optional.fromNullable(builder._tdRetrieveMethod);
+    this._splitByColumn = Optional.fromNullable(builder._splitByColumn);
 
     this._hiveSourceDatabase = builder._hiveSourceDatabase;
     this._hiveSourceTable = builder._hiveSourceTable;
@@ -156,6 +157,7 @@ public class TdchParameters {
     private String _sourceTdTableName;
     private String _targetHdfsPath;
     private String _tdRetrieveMethod;
+    private String _splitByColumn;
 
     private String _hiveSourceDatabase;
     private String _hiveSourceTable;
@@ -299,6 +301,11 @@ public class TdchParameters {
       return this;
     }
 
+    public Builder splitByColumn(String splitByColumn) {
+      this._splitByColumn = splitByColumn;
+      return this;
+    }
+
     public Builder hiveSourceDatabase(String hiveSourceDatabase) {
       this._hiveSourceDatabase = hiveSourceDatabase;
       return this;
@@ -472,7 +479,7 @@ public class TdchParameters {
     map.put("-fileformat", _fileFormat);
     map.put("-jobtype", _jobType);
     map.put("-username", _userName);
-    map.put("-nummappers", _numMappers);
+    map.put("-nummappers", Integer.toString(_numMappers));
 
     if(_password.isPresent()) {
       map.put("-password", _password.get());
@@ -531,7 +538,11 @@ public class TdchParameters {
         if (_tdRetrieveMethod.isPresent()) {
           map.put("-method", _tdRetrieveMethod.get());
         } else {
-          map.put("-method", DEFAULT_RETRIEVE_METHOD);
+          map.put("-method", TdchConstants.DEFAULT_RETRIEVE_METHOD);
+        }
+
+        if (_splitByColumn.isPresent()) {
+          map.put("-splitbycolumn", _splitByColumn.get());
         }
 
       } else if (_sourceQuery.isPresent()) {
@@ -614,6 +625,56 @@ public class TdchParameters {
     return _tdErrorDatabase;
   }
 
+  public int getNumMappers() {
+    return _numMappers;
+  }
+
+  public String getFileFormat() {
+    return _fileFormat;
+  }
+
+  public Optional<String> getFieldSeparator() {
+    return _fieldSeparator;
+  }
+
+  public Optional<String> getTdInsertMethod() {
+    return _tdInsertMethod;
+  }
+
+  public Optional<String> getAvroSchemaPath() {
+    return _avroSchemaPath;
+  }
+
+  public Optional<String> getAvroSchemaInline() {
+    return _avroSchemaInline;
+  }
+
+  public Optional<String> getSourceQuery() {
+    return _sourceQuery;
+  }
+
+  public String getTargetHdfsPath() {
+    return _targetHdfsPath;
+  }
+
+  public String getSourceHdfsPath() {
+    return _sourceHdfsPath;
+  }
+
+  public Optional<String> getSourceTdTableName() {
+    return _sourceTdTableName;
+  }
+
+  /**
+   * @return Retrieve method of the source table. Absent if source is a query.
+   */
+  public Optional<String> getTdRetrieveMethod() {
+    if (!_sourceTdTableName.isPresent()) {
+      return Optional.absent();
+    }
+    return Optional.of(_tdRetrieveMethod.or(TdchConstants.DEFAULT_RETRIEVE_METHOD));
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
@@ -640,6 +701,7 @@ public class TdchParameters {
             .append(", _sourceQuery=").append(_sourceQuery)
             .append(", _sourceTdTableName=").append(_sourceTdTableName)
             .append(", _tdRetrieveMethod=").append(_tdRetrieveMethod)
+            .append(", _splitByColumn=").append(_splitByColumn)
             .append(", _targetHdfsPath=").append(_targetHdfsPath)
             .append(", _hiveSourceDatabase=").append(_hiveSourceDatabase)
             .append(", _hiveSourceTable=").append(_hiveSourceTable)
@@ -11,19 +11,43 @@
  */
 package azkaban.jobtype.connectors.teradata;
 
-import java.io.BufferedOutputStream;
-import java.io.Closeable;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import azkaban.jobtype.javautils.FileUtils;
 
 /**
@@ -31,21 +55,51 @@ import azkaban.jobtype.javautils.FileUtils;
  */
 public class TeraDataWalletInitializer {
   private static Logger logger = Logger.getLogger(TeraDataWalletInitializer.class);
-  private static String UNJAR_DIR_NAME = "unjar_tdch";
-  private static File tdchJarExtractedDir;
+  private static String UNJAR_CACHE_DIR_NAME = "unjar_tdch_cache";
+  private static String LOCK_FILE_NAME = ".lock";
+  private static String TEMP_DIR_PREFIX = ".tmp_";
+  private static int HASH_LENGTH = 16;
+  private static int BUFFER_SIZE = 64 * 1024;
+  private static int EXTRACT_THREADS = Integer.getInteger("azkaban.tdwallet.extract.threads",
+                                                          Math.min(Runtime.getRuntime().availableProcessors(), 8));
+  private static volatile Future<File> extraction;
 
   /**
    * As of TDCH 1.4.1, integration with Teradata wallet only works with hadoop jar command line command.
    * This is mainly because TDCH depends on the behavior of hadoop jar command line which extracts jar file
    * into hadoop tmp folder.
    *
-   * This method will extract tdchJarfile and place it into temporary folder, and also add jvm shutdown hook
-   * to delete the directory when JVM shuts down.
+   * This method will extract tdchJarfile into a folder named after the content hash of the jar, under
+   * "unjar_tdch_cache" in temporary folder. The folder is kept when JVM shuts down and reused by
+   * following JVMs as long as the jar does not change. Executors on the same host coordinate through a file lock,
+   * and the jar is extracted into a temporary folder first and then renamed so that a partially extracted folder is
+   * never used.
+   *
+   * Blocks until extraction finishes. Use {@link #initializeAsync(File, File)} not to block.
    * @param tdchJarFile TDCH jar file.
    */
   public static void initialize(File tmpDir, File tdchJarFile) {
+    initializeAsync(tmpDir, tdchJarFile);
+    try {
+      await(extraction, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Starts extracting tdchJarFile in a background thread, same as {@link #initialize(File, File)} does, and returns
+   * immediately. Extraction starts only once per JVM, unless previous one has failed.
+   * Use {@link #getTdchUnjarFolder(long, TimeUnit)} to wait for it.
+   * @param tdchJarFile TDCH jar file.
+   */
+  public static void initializeAsync(final File tmpDir, final File tdchJarFile) {
+    //Once started, every job skips the lock.
+    if (extraction != null && !hasFailed(extraction)) {
+      return;
+    }
     synchronized (TeraDataWalletInitializer.class) {
-      if (tdchJarExtractedDir != null) {
+      if (extraction != null && !hasFailed(extraction)) {
         return;
       }
 
@@ -55,65 +109,252 @@ public class TeraDataWalletInitializer {
       if (!tdchJarFile.exists()) {
         throw new IllegalArgumentException("TDCH jar file does not exist. " + tdchJarFile.getAbsolutePath());
       }
+
+      FutureTask<File> task = new FutureTask<>(() -> {
+        File dir = getOrExtract(tmpDir, tdchJarFile);
+        logger.info("TDCH jar has been extracted into directory: " + dir.getAbsolutePath());
+        return dir;
+      });
+      Thread thread = new Thread(task, "tdch-wallet-initializer");
+      thread.setDaemon(true);
+      thread.start();
+      extraction = task;
+      logger.info("Started extracting TDCH jar in background. " + tdchJarFile.getAbsolutePath());
+    }
+  }
+
+  private static boolean hasFailed(Future<File> future) {
+    if (!future.isDone()) {
+      return false;
+    }
+    try {
+      future.get();
+      return false;
+    } catch (InterruptedException | ExecutionException | CancellationException e) {
+      return true;
+    }
+  }
+
+  private static File await(Future<File> future, long timeout, TimeUnit unit) throws TimeoutException {
+    try {
+      return future.get(timeout, unit);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed while extracting TDCH jar file.", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for TDCH jar extraction.", e);
+    }
+  }
+
+  /**
+   * @return Directory where the jar is extracted, which is reused if the jar with the same content has been extracted.
+   */
+  @VisibleForTesting
+  static File getOrExtract(File tmpDir, File tdchJarFile) {
+    try {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      File cacheDir = new File(tmpDir.getAbsoluteFile(), UNJAR_CACHE_DIR_NAME);
+      String hash = com.google.common.io.Files.asByteSource(tdchJarFile).hash(Hashing.sha256()).toString()
+                                              .substring(0, HASH_LENGTH);
+      File unJarDir = new File(cacheDir, hash);
+
+      boolean isCacheHit = unJarDir.isDirectory();
+      if (!isCacheHit) {
+        isCacheHit = extractWithLock(cacheDir, tdchJarFile, unJarDir);
+      }
+      logger.info("TDCH jar " + tdchJarFile.getAbsolutePath() + " (" + hash + ") is ready in "
+                  + stopwatch.elapsed(TimeUnit.MILLISECONDS) + " ms. Cache hit: " + isCacheHit);
+      return unJarDir;
+    } catch (IOException e) {
+      throw new RuntimeException("Failed while extracting TDCH jar file.", e);
+    }
+  }
+
+  /**
+   * Extracts jar into unJarDir while holding the file lock of cacheDir, unless other process has extracted it
+   * while waiting for the lock.
+   * @return true if other process has extracted it.
+   */
+  private static synchronized boolean extractWithLock(File cacheDir, File tdchJarFile, File unJarDir) throws IOException {
+    if (!cacheDir.isDirectory() && !cacheDir.mkdirs() && !cacheDir.isDirectory()) {
+      throw new IOException("Failed to create tdch unjar cache directory. " + cacheDir.getAbsolutePath());
+    }
+
+    try (RandomAccessFile lockFile = new RandomAccessFile(new File(cacheDir, LOCK_FILE_NAME), "rw");
+         FileChannel channel = lockFile.getChannel()) {
+      FileLock lock = channel.lock();
       try {
-        //Extract TDCH jar.
-          File unJarDir = createUnjarDir(new File(tmpDir.getAbsolutePath() + File.separator + UNJAR_DIR_NAME));
-          JarFile jar = new JarFile(tdchJarFile);
-          Enumeration<JarEntry> enumEntries = jar.entries();
-
-          while (enumEntries.hasMoreElements()) {
-            JarEntry srcFile = enumEntries.nextElement();
-            File destFile = new File(unJarDir + File.separator + srcFile.getName());
-            if (srcFile.isDirectory()) { // if its a directory, create it
-              destFile.mkdir();
-              continue;
-            }
+        if (unJarDir.isDirectory()) {
+          return true;
+        }
+        deleteStaleTempDirs(cacheDir);
 
-            InputStream is = jar.getInputStream(srcFile);
-            BufferedOutputStream os = new BufferedOutputStream(new FileOutputStream(destFile));
-            IOUtils.copy(is, os);
-            close(os);
-            close(is);
+        File tempDir = Files.createTempDirectory(cacheDir.toPath(), TEMP_DIR_PREFIX + unJarDir.getName()).toFile();
+        logger.info("Extracting TDCH jar into temporary directory. " + tempDir.getAbsolutePath());
+        try {
+          extract(tdchJarFile, tempDir, EXTRACT_THREADS);
+          Files.move(tempDir.toPath(), unJarDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+          if (tempDir.exists()) {
+            FileUtils.tryDeleteFileOrDirectory(tempDir);
           }
-          jar.close();
-          tdchJarExtractedDir = unJarDir;
-      } catch (IOException e) {
-        throw new RuntimeException("Failed while extracting TDCH jar file.", e);
+        }
+        return false;
+      } finally {
+        lock.release();
       }
     }
-    logger.info("TDCH jar has been extracted into directory: " + tdchJarExtractedDir.getAbsolutePath());
   }
 
-  private static File createUnjarDir(final File unjarDir) throws IOException {
-    logger.info("trying to create tdch unjar directory. " + unjarDir.getAbsolutePath());
-    if(unjarDir.exists()) {
-      logger.info("Delete existing tdch unjar directory. " + unjarDir.getAbsolutePath());
-      FileUtils.deleteFileOrDirectory(unjarDir);
-    }
-    unjarDir.mkdir();
-    Runtime.getRuntime().addShutdownHook( new Thread() {
-      @Override
-      public void run() {
-        if(unjarDir.exists()) {
-          logger.info("JVM is shutting down. Deleting a folder where TDCH jar is extracted. " + unjarDir.getAbsolutePath());
-          FileUtils.tryDeleteFileOrDirectory(unjarDir);
+  /**
+   * Deletes temporary directories left by processes that died while extracting. Only called with the lock held.
+   */
+  private static void deleteStaleTempDirs(File cacheDir) {
+    File[] staleDirs = cacheDir.listFiles((dir, name) -> name.startsWith(TEMP_DIR_PREFIX));
+    if (staleDirs == null) {
+      return;
+    }
+    for (File staleDir : staleDirs) {
+      logger.info("Deleting stale temporary directory. " + staleDir.getAbsolutePath());
+      FileUtils.tryDeleteFileOrDirectory(staleDir);
+    }
+  }
+
+  /**
+   * Extracts jar entries in parallel. Directories are created in one pass first, and then files are written by a
+   * bounded pool where each thread reuses its own buffer and writes through a file channel.
+   * @param threads Number of threads. 1 extracts in the caller thread.
+   */
+  @VisibleForTesting
+  static void extract(File tdchJarFile, File unJarDir, int threads) throws IOException {
+    try (JarFile jar = new JarFile(tdchJarFile)) {
+      Path root = unJarDir.toPath().toAbsolutePath().normalize();
+      Set<Path> dirs = new TreeSet<>();
+      List<JarEntry> files = new ArrayList<>();
+      List<Path> destPaths = new ArrayList<>();
+
+      Enumeration<JarEntry> enumEntries = jar.entries();
+      while (enumEntries.hasMoreElements()) {
+        JarEntry srcFile = enumEntries.nextElement();
+        Path destPath = root.resolve(srcFile.getName()).normalize();
+        if (!destPath.startsWith(root)) {
+          throw new IOException("Jar entry is outside of the target directory. " + srcFile.getName());
         }
+        if (srcFile.isDirectory()) {
+          dirs.add(destPath);
+          continue;
+        }
+        dirs.add(destPath.getParent());
+        files.add(srcFile);
+        destPaths.add(destPath);
+      }
+
+      //Sorted, so that parents are created before children.
+      for (Path dir : dirs) {
+        Files.createDirectories(dir);
       }
-    });
-    logger.info("Created tdch unjar directory. " + unjarDir.getAbsolutePath());
-    return unjarDir;
+
+      int nThreads = Math.max(1, Math.min(threads, files.size()));
+      if (nThreads == 1) {
+        new EntryWriter(jar, files, destPaths, new AtomicInteger()).call();
+        return;
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(nThreads,
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("tdch-unjar-%d").build());
+      try {
+        AtomicInteger next = new AtomicInteger();
+        List<Future<Void>> futures = new ArrayList<>(nThreads);
+        for (int i = 0; i < nThreads; i++) {
+          futures.add(executor.submit(new EntryWriter(jar, files, destPaths, next)));
+        }
+        for (Future<Void> future : futures) {
+          future.get();
+        }
+      } catch (ExecutionException e) {
+        Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+        throw new RuntimeException(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while extracting TDCH jar file.", e);
+      } finally {
+        executor.shutdownNow();
+      }
+    }
   }
 
-  private static void close(Closeable closeable) throws IOException {
-    if(closeable != null) {
-      closeable.close();
+  /**
+   * Takes next entry from the shared index until all entries are written, reusing one buffer per thread.
+   */
+  private static class EntryWriter implements Callable<Void> {
+    private final JarFile jar;
+    private final List<JarEntry> files;
+    private final List<Path> destPaths;
+    private final AtomicInteger next;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private EntryWriter(JarFile jar, List<JarEntry> files, List<Path> destPaths, AtomicInteger next) {
+      this.jar = jar;
+      this.files = files;
+      this.destPaths = destPaths;
+      this.next = next;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+      int i;
+      while ((i = next.getAndIncrement()) < files.size()) {
+        try (InputStream is = jar.getInputStream(files.get(i));
+             FileChannel os = FileChannel.open(destPaths.get(i), StandardOpenOption.CREATE_NEW,
+                                               StandardOpenOption.WRITE)) {
+          int read;
+          while ((read = is.read(buffer)) != -1) {
+            byteBuffer.clear().limit(read);
+            while (byteBuffer.hasRemaining()) {
+              os.write(byteBuffer);
+            }
+          }
+        }
+      }
+      return null;
     }
   }
 
+  /**
+   * @return Folder where TDCH jar is extracted.
+   * @throws IllegalStateException if extraction has not started or not finished yet.
+   */
   public static String getTdchUnjarFolder() {
-    if(tdchJarExtractedDir == null) {
+    Future<File> current = extraction;
+    if(current == null) {
       throw new IllegalStateException("Not initialized yet.");
     }
-    return tdchJarExtractedDir.getAbsolutePath();
+    if(!current.isDone()) {
+      throw new IllegalStateException("TDCH jar is still being extracted.");
+    }
+    try {
+      return await(current, 0L, TimeUnit.NANOSECONDS).getAbsolutePath();
+    } catch (TimeoutException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Waits for extraction started by {@link #initializeAsync(File, File)} or {@link #initialize(File, File)}.
+   * Returns immediately if it has already finished.
+   * @return Folder where TDCH jar is extracted.
+   * @throws TimeoutException if extraction has not finished within timeout.
+   * @throws IllegalStateException if extraction has not started.
+   */
+  public static String getTdchUnjarFolder(long timeout, TimeUnit unit) throws TimeoutException {
+    Future<File> current = extraction;
+    if(current == null) {
+      throw new IllegalStateException("Not initialized yet.");
+    }
+    if (!current.isDone()) {
+      logger.info("Waiting for TDCH jar extraction to finish.");
+    }
+    return await(current, timeout, unit).getAbsolutePath();
   }
-}
\ No newline at end of file
+}
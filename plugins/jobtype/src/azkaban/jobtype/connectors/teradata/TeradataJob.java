@@ -16,6 +16,8 @@ import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
 import java.io.File;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.log4j.Logger;
 
@@ -27,13 +29,16 @@ import azkaban.utils.Props;
 
 public abstract class TeradataJob extends HadoopJavaJob {
   private static final Logger logger = Logger.getLogger(TeradataJob.class);
+  private final long _walletExtractTimeoutSec;
 
   public TeradataJob(String jobid, Props sysProps, Props jobProps, Logger log) {
     super(jobid, sysProps, jobProps, log);
     jobProps.put(LIB_JARS_KEY, sysProps.get(LIB_JARS_KEY));
-    //Initialize TDWallet if it hasn't on current JVM.
+    //Start initializing TDWallet in background if it hasn't on current JVM. As the plugin loader instantiates a job
+    //when it loads the jobtype, extraction starts at plugin load and is usually done before the first job runs.
     File tempDir = new File(sysProps.getString("azkaban.temp.dir", "temp"));
-    TeraDataWalletInitializer.initialize(tempDir, new File(sysProps.get(TD_WALLET_JAR)));
+    TeraDataWalletInitializer.initializeAsync(tempDir, new File(sysProps.get(TD_WALLET_JAR)));
+    _walletExtractTimeoutSec = sysProps.getLong(TD_WALLET_EXTRACT_TIMEOUT_SEC_KEY, DEFAULT_TD_WALLET_EXTRACT_TIMEOUT_SEC);
 
     if(sysProps.containsKey(Whitelist.WHITE_LIST_FILE_PATH_KEY)) {
       jobProps.put(Whitelist.WHITE_LIST_FILE_PATH_KEY, sysProps.getString(Whitelist.WHITE_LIST_FILE_PATH_KEY));
@@ -53,10 +58,19 @@ public abstract class TeradataJob extends HadoopJavaJob {
 
     List<String> hadoopJavaClassPath = super.getClassPaths();
 
+    //Blocks only if TDWallet extraction has not finished yet.
+    String tdchUnjarFolder;
+    try {
+      tdchUnjarFolder = TeraDataWalletInitializer.getTdchUnjarFolder(_walletExtractTimeoutSec, TimeUnit.SECONDS);
+    } catch (TimeoutException e) {
+      throw new IllegalStateException("TDCH jar has not been extracted within " + _walletExtractTimeoutSec
+                                      + " seconds.", e);
+    }
+
     return ImmutableList.<String>builder()
                         //TDCH w. Tdwallet requires a classpath point to unjarred folder.
-                        .add(TeraDataWalletInitializer.getTdchUnjarFolder())
-                        .add(TeraDataWalletInitializer.getTdchUnjarFolder() + File.separator + "lib" + File.separator + "*")
+                        .add(tdchUnjarFolder)
+                        .add(tdchUnjarFolder + File.separator + "lib" + File.separator + "*")
                         .add(getSourcePathFromClass(TeradataToHdfsJobRunnerMain.class))
                         .addAll(hadoopJavaClassPath).build();
   }
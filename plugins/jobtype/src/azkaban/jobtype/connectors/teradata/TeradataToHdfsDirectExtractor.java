@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
+import azkaban.utils.Props;
+
+/**
+ * Extracts a small Teradata table or query result into HDFS over JDBC, without launching a TDCH MapReduce job.
+ *
+ * The calling thread streams the ResultSet with fetch size of {@link TdchConstants#DIRECT_EXTRACT_FETCH_SIZE_KEY}
+ * and hands batches of rows over a bounded queue to {@link TdchConstants#DIRECT_EXTRACT_WRITERS_KEY} writer threads.
+ * Each writer writes its own part file, so that formatting and compressing rows does not hold up the fetch. Files are
+ * written into a temporary directory, which is renamed into the target path only after all rows are written.
+ */
+public class TeradataToHdfsDirectExtractor {
+  private static final Logger _logger = Logger.getLogger(TeradataToHdfsDirectExtractor.class);
+  private static final int BATCH_SIZE = 1000;
+  private static final String PART_FILE_FORMAT = "part-m-%05d";
+  private static final String AVRO_FILE_EXTENSION = ".avro";
+  private static final String TEMP_DIR_FORMAT = "_%s_%d.tmp";
+  //Marks the end of the input in the queue. Compared by reference.
+  private static final List<Object[]> END_OF_INPUT = Collections.unmodifiableList(new ArrayList<Object[]>());
+  private static final long POLL_INTERVAL_MS = 1000L;
+
+  private final int _fetchSize;
+  private final int _writers;
+
+  public TeradataToHdfsDirectExtractor(Props props) {
+    _fetchSize = props.getInt(DIRECT_EXTRACT_FETCH_SIZE_KEY, DEFAULT_DIRECT_EXTRACT_FETCH_SIZE);
+    _writers = props.getInt(DIRECT_EXTRACT_WRITERS_KEY, DEFAULT_DIRECT_EXTRACT_WRITERS);
+    Preconditions.checkArgument(_fetchSize > 0, DIRECT_EXTRACT_FETCH_SIZE_KEY + " should be positive.");
+    Preconditions.checkArgument(_writers > 0, DIRECT_EXTRACT_WRITERS_KEY + " should be positive.");
+  }
+
+  /**
+   * @param fileFormat File format of the target. Either {@link TdchConstants#TEXT_FILE_FORMAT} or
+   * {@link TdchConstants#AVRO_FILE_FORMAT}
+   * @return true if the extractor can write the file format.
+   */
+  public static boolean isSupported(String fileFormat) {
+    return HdfsToTeradataDirectLoader.isSupported(fileFormat);
+  }
+
+  /**
+   * Extracts the result of the query into the target directory, which should not exist.
+   *
+   * In text file, null is written as an empty field. In Avro file, columns are mapped to the fields of the schema by
+   * position.
+   *
+   * @param conn Connection to the source Teradata
+   * @param sql Query to extract
+   * @param fs File system of the target
+   * @param target Target directory
+   * @param fileFormat File format of the target
+   * @param fieldSeparator Field separator of text file
+   * @param avroSchema Schema of Avro file. Required for Avro.
+   * @return Number of rows extracted
+   */
+  public long extract(Connection conn, String sql, final FileSystem fs, Path target, final String fileFormat,
+                      final String fieldSeparator, final Optional<Schema> avroSchema)
+      throws IOException, SQLException, InterruptedException {
+    Preconditions.checkArgument(isSupported(fileFormat), "Unsupported file format " + fileFormat);
+    Preconditions.checkArgument(!AVRO_FILE_FORMAT.equals(fileFormat) || avroSchema.isPresent(),
+                                "Avro schema is required for " + AVRO_FILE_FORMAT);
+    if (fs.exists(target)) {
+      throw new IOException("Target path " + target + " already exists.");
+    }
+
+    final Path tempDir = new Path(target.getParent(),
+                                  String.format(TEMP_DIR_FORMAT, target.getName(), System.currentTimeMillis()));
+    final BlockingQueue<List<Object[]>> queue = new ArrayBlockingQueue<>(_writers * 2);
+    ExecutorService executor = Executors.newFixedThreadPool(_writers);
+    boolean isSuccess = false;
+    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+      stmt.setFetchSize(_fetchSize);
+      _logger.info("Extracting into " + target + " with " + _writers + " writers: " + sql);
+      try (ResultSet res = stmt.executeQuery()) {
+        final int columnCount = res.getMetaData().getColumnCount();
+        Preconditions.checkArgument(!avroSchema.isPresent() || avroSchema.get().getFields().size() == columnCount,
+                                    "Avro schema does not have " + columnCount + " fields: " + avroSchema.orNull());
+        if (!fs.mkdirs(tempDir)) {
+          throw new IOException("Failed to create " + tempDir);
+        }
+
+        List<Future<Long>> writers = new ArrayList<>();
+        for (int i = 0; i < _writers; i++) {
+          final int part = i;
+          writers.add(executor.submit(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+              try (RowWriter writer = newWriter(fs, tempDir, part, fileFormat, fieldSeparator, avroSchema)) {
+                return write(writer, queue);
+              }
+            }
+          }));
+        }
+
+        long rows = 0L;
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        while (res.next()) {
+          Object[] row = new Object[columnCount];
+          for (int i = 0; i < columnCount; i++) {
+            row[i] = res.getObject(i + 1);
+          }
+          batch.add(row);
+          rows++;
+          if (batch.size() >= BATCH_SIZE) {
+            handOver(batch, queue, writers);
+            batch = new ArrayList<>(BATCH_SIZE);
+          }
+        }
+        if (!batch.isEmpty()) {
+          handOver(batch, queue, writers);
+        }
+        for (int i = 0; i < _writers; i++) {
+          handOver(END_OF_INPUT, queue, writers);
+        }
+
+        long written = 0L;
+        for (Future<Long> writer : writers) {
+          written += getResult(writer);
+        }
+        Preconditions.checkState(written == rows, "Read " + rows + " rows but wrote " + written + " rows.");
+
+        if (!fs.rename(tempDir, target)) {
+          throw new IOException("Failed to rename " + tempDir + " to " + target);
+        }
+        isSuccess = true;
+        return rows;
+      }
+    } finally {
+      //Stops the writers blocked on the queue if reader failed.
+      executor.shutdownNow();
+      if (!isSuccess && fs.exists(tempDir)) {
+        fs.delete(tempDir, true);
+      }
+    }
+  }
+
+  /**
+   * Puts the batch into the queue, failing fast if any writer has stopped.
+   */
+  private static void handOver(List<Object[]> batch, BlockingQueue<List<Object[]>> queue, List<Future<Long>> writers)
+      throws IOException, InterruptedException {
+    while (!queue.offer(batch, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+      for (Future<Long> writer : writers) {
+        if (writer.isDone()) {
+          //A writer only finishes after END_OF_INPUT, so it has failed.
+          getResult(writer);
+          throw new IllegalStateException("Writer finished before the end of the input.");
+        }
+      }
+    }
+  }
+
+  private static long write(RowWriter writer, BlockingQueue<List<Object[]>> queue)
+      throws IOException, InterruptedException {
+    long rows = 0L;
+    while (true) {
+      List<Object[]> batch = queue.take();
+      if (batch == END_OF_INPUT) {
+        return rows;
+      }
+      for (Object[] row : batch) {
+        writer.write(row);
+      }
+      rows += batch.size();
+    }
+  }
+
+  private static RowWriter newWriter(FileSystem fs, Path dir, int part, String fileFormat, String fieldSeparator,
+                                     Optional<Schema> avroSchema) throws IOException {
+    String name = String.format(PART_FILE_FORMAT, part);
+    if (AVRO_FILE_FORMAT.equals(fileFormat)) {
+      return new AvroRowWriter(fs, new Path(dir, name + AVRO_FILE_EXTENSION), avroSchema.get());
+    }
+    return new TextRowWriter(fs, new Path(dir, name), fieldSeparator);
+  }
+
+  private static long getResult(Future<Long> future) throws IOException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "TeradataToHdfsDirectExtractor [_fetchSize=" + _fetchSize + ", _writers=" + _writers + "]";
+  }
+
+  private interface RowWriter extends Closeable {
+    void write(Object[] row) throws IOException;
+  }
+
+  private static class TextRowWriter implements RowWriter {
+    private final BufferedWriter _writer;
+    private final Joiner _joiner;
+
+    TextRowWriter(FileSystem fs, Path file, String fieldSeparator) throws IOException {
+      _writer = new BufferedWriter(new OutputStreamWriter(fs.create(file, false), StandardCharsets.UTF_8));
+      _joiner = Joiner.on(fieldSeparator).useForNull("");
+    }
+
+    @Override
+    public void write(Object[] row) throws IOException {
+      _joiner.appendTo(_writer, row);
+      _writer.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+      _writer.close();
+    }
+  }
+
+  private static class AvroRowWriter implements RowWriter {
+    private final Schema _schema;
+    private final DataFileWriter<GenericRecord> _writer;
+
+    AvroRowWriter(FileSystem fs, Path file, Schema schema) throws IOException {
+      _schema = schema;
+      _writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema));
+      _writer.create(schema, fs.create(file, false));
+    }
+
+    @Override
+    public void write(Object[] row) throws IOException {
+      GenericRecord record = new GenericData.Record(_schema);
+      for (int i = 0; i < row.length; i++) {
+        Schema.Field field = _schema.getFields().get(i);
+        record.put(i, toAvroValue(row[i], field.schema(), field.name()));
+      }
+      _writer.append(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+      _writer.close();
+    }
+
+    private static Object toAvroValue(Object value, Schema schema, String fieldName) throws IOException {
+      if (value == null) {
+        return null;
+      }
+      Schema.Type type = schema.getType();
+      if (type == Schema.Type.UNION) {
+        //Nullable field. Uses the first non-null branch.
+        for (Schema branch : schema.getTypes()) {
+          if (branch.getType() != Schema.Type.NULL) {
+            return toAvroValue(value, branch, fieldName);
+          }
+        }
+      }
+      switch (type) {
+        case STRING:
+          return value.toString();
+        case INT:
+          if (value instanceof Number) {
+            return ((Number) value).intValue();
+          }
+          break;
+        case LONG:
+          if (value instanceof Number) {
+            return ((Number) value).longValue();
+          }
+          if (value instanceof java.util.Date) {
+            return ((java.util.Date) value).getTime();
+          }
+          break;
+        case FLOAT:
+          if (value instanceof Number) {
+            return ((Number) value).floatValue();
+          }
+          break;
+        case DOUBLE:
+          if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+          }
+          break;
+        case BOOLEAN:
+          if (value instanceof Boolean) {
+            return value;
+          }
+          if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+          }
+          break;
+        case BYTES:
+          if (value instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) value);
+          }
+          break;
+        default:
+          break;
+      }
+      throw new IOException("Cannot convert " + value.getClass().getName() + " into " + schema + " for field "
+                            + fieldName);
+    }
+  }
+}
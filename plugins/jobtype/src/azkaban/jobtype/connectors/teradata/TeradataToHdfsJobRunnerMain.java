@@ -18,33 +18,77 @@ package azkaban.jobtype.connectors.teradata;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.security.PrivilegedExceptionAction;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.regex.Pattern;
 
+import org.apache.avro.Schema;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.util.ToolRunner;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
 import azkaban.utils.Props;
 import azkaban.jobExecutor.AbstractProcessJob;
 import azkaban.jobtype.*;
+import azkaban.jobtype.connectors.jdbc.JdbcCommands;
+import azkaban.jobtype.connectors.jdbc.TeradataCommands;
+import azkaban.jobtype.connectors.teradata.RetrieveMethodSelector.RetrieveMethod;
+import azkaban.jobtype.connectors.teradata.TdchParameters.DatabaseTable;
 import azkaban.crypto.Decryptions;
 import azkaban.jobtype.javautils.JobUtils;
 import azkaban.jobtype.javautils.Whitelist;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.teradata.hadoop.tool.TeradataImportTool;
 
 import static org.apache.hadoop.security.UserGroupInformation.HADOOP_TOKEN_FILE_LOCATION;
 
 public class TeradataToHdfsJobRunnerMain {
+  private static final String FASTEXPORT_URL_PARAM = ",TYPE=FASTEXPORT";
+  private static final String SELECT_TABLE_QUERY_FORMAT = "SELECT * FROM %s";
+  private static final String INCREMENTAL_QUERY_FORMAT = "SELECT * FROM %s WHERE %s";
+  private static final String INCREMENTAL_DIR_FORMAT = "yyyy-MM-dd-HHmmss";
+  private static final String FORCE_OUTPUT_OVERWRITE_KEY = "force.output.overwrite";
+  private static final Pattern COLUMN_NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$#]*");
+
   private final Properties _jobProps;
-  private final TdchParameters _params;
+  private final TdchParameters.Builder _paramsBuilder;
+  private final boolean _isAutoNumMappers;
+  private final MapperCountCalculator _mapperCountCalculator;
+  private final boolean _isAutoRetrieveMethod;
+  private final RetrieveMethodSelector _retrieveMethodSelector;
+  private final boolean _isForceDirectExtract;
+  private final long _directExtractMaxBytes;
+  private final TeradataToHdfsDirectExtractor _directExtractor;
+  private boolean _isDirectExtract = false;
+  private final Optional<String> _incrementalColumn;
+  private Optional<Watermark> _watermark = Optional.absent();
+  private Optional<String> _highWatermark = Optional.absent();
+  private final boolean _isSkipIfUnchanged;
+  private final Optional<String> _fingerprintQuery;
+  private Optional<Fingerprint> _fingerprint = Optional.absent();
+  private List<String> _currentFingerprint;
+  private final Map<String, String> _outputProperties = new LinkedHashMap<>();
+  private TdchParameters _params;
   private final Logger _logger;
 
   public TeradataToHdfsJobRunnerMain() throws FileNotFoundException, IOException {
@@ -79,10 +123,18 @@ public class TeradataToHdfsJobRunnerMain {
     String cryptoKeyPath = _jobProps.getProperty(TdchConstants.TD_CRYPTO_KEY_PATH_KEY);
     String password = null;
     if(encryptedCredential != null && cryptoKeyPath != null) {
-      password = new Decryptions().decrypt(encryptedCredential, cryptoKeyPath, FileSystem.get(new Configuration()));
+      password = decryptions.decrypt(encryptedCredential, cryptoKeyPath, FileSystem.get(new Configuration()));
     }
 
-    _params = TdchParameters.builder()
+    String numMappers = props.getString(TdchConstants.TD_NUM_MAPPERS, Integer.toString(TdchConstants.DEFAULT_NO_MAPPERS));
+    _isAutoNumMappers = MapperCountCalculator.isAuto(numMappers);
+    _mapperCountCalculator = new MapperCountCalculator(props);
+    String retrieveMethod = _jobProps.getProperty(TdchConstants.TD_RETRIEVE_METHOD_KEY);
+    _isAutoRetrieveMethod = RetrieveMethodSelector.isAuto(retrieveMethod);
+    _retrieveMethodSelector = new RetrieveMethodSelector(props);
+
+    //Builder is kept so that the parameters resolved at run time (e.g. auto number of mappers) can be applied.
+    _paramsBuilder = TdchParameters.builder()
                             .mrParams(props.getMapByPrefix(TdchConstants.HADOOP_CONFIG_PREFIX_KEY).values())
                             .libJars(props.getString(TdchConstants.LIB_JARS_KEY))
                             .tdJdbcClassName(TdchConstants.TERADATA_JDBCDRIVER_CLASSNAME)
@@ -98,9 +150,76 @@ public class TeradataToHdfsJobRunnerMain {
                             .sourceTdTableName(_jobProps.getProperty(TdchConstants.SOURCE_TD_TABLE_NAME_KEY))
                             .sourceQuery(_jobProps.getProperty(TdchConstants.SOURCE_TD_QUERY_NAME_KEY))
                             .targetHdfsPath(props.getString(TdchConstants.TARGET_HDFS_PATH_KEY))
-                            .tdRetrieveMethod(_jobProps.getProperty(TdchConstants.TD_RETRIEVE_METHOD_KEY))
-                            .numMapper(TdchConstants.DEFAULT_NO_MAPPERS)
-                            .build();
+                            .tdRetrieveMethod(_isAutoRetrieveMethod ? null : retrieveMethod)
+                            .splitByColumn(_jobProps.getProperty(TdchConstants.TD_SPLIT_BY_COLUMN_KEY))
+                            .numMapper(_isAutoNumMappers ? TdchConstants.DEFAULT_NO_MAPPERS : Integer.parseInt(numMappers));
+    _params = _paramsBuilder.build();
+
+    _directExtractor = new TeradataToHdfsDirectExtractor(props);
+    _isForceDirectExtract = props.getBoolean(TdchConstants.DIRECT_EXTRACT_KEY, false);
+    Preconditions.checkArgument(!_isForceDirectExtract || isDirectExtractSupported(),
+                                TdchConstants.DIRECT_EXTRACT_KEY + " requires " + TdchConstants.TEXT_FILE_FORMAT + " or "
+                                + TdchConstants.AVRO_FILE_FORMAT + " on HDFS with "
+                                + TdchConstants.TD_ENCRYPTED_CREDENTIAL_KEY + ", without "
+                                + TdchConstants.TD_OTHER_PROPERTIES_HOCON_KEY);
+    long directExtractMaxBytes = props.getLong(TdchConstants.DIRECT_EXTRACT_MAX_BYTES_KEY,
+                                               TdchConstants.DEFAULT_DIRECT_EXTRACT_MAX_BYTES);
+    if (directExtractMaxBytes > 0 && !isDirectExtractSupported()) {
+      _logger.warn("Not using direct extract as it only supports " + TdchConstants.TEXT_FILE_FORMAT + " and "
+                   + TdchConstants.AVRO_FILE_FORMAT + " on HDFS with " + TdchConstants.TD_ENCRYPTED_CREDENTIAL_KEY
+                   + ", without " + TdchConstants.TD_OTHER_PROPERTIES_HOCON_KEY);
+      directExtractMaxBytes = 0L;
+    }
+    _directExtractMaxBytes = directExtractMaxBytes;
+
+    String incrementalColumn = _jobProps.getProperty(TdchConstants.INCREMENTAL_COLUMN_KEY);
+    _incrementalColumn = StringUtils.isEmpty(incrementalColumn)
+                         ? Optional.<String>absent()
+                         : Optional.of(incrementalColumn.trim());
+    if (_incrementalColumn.isPresent()) {
+      Preconditions.checkArgument(COLUMN_NAME_PATTERN.matcher(_incrementalColumn.get()).matches(),
+                                  "Invalid " + TdchConstants.INCREMENTAL_COLUMN_KEY + ": " + _incrementalColumn.get());
+      Preconditions.checkArgument(_params.getSourceTdTableName().isPresent(),
+                                  TdchConstants.INCREMENTAL_COLUMN_KEY + " requires "
+                                  + TdchConstants.SOURCE_TD_TABLE_NAME_KEY);
+      Preconditions.checkArgument(_params.getPassword().isPresent(),
+                                  TdchConstants.INCREMENTAL_COLUMN_KEY + " requires "
+                                  + TdchConstants.TD_ENCRYPTED_CREDENTIAL_KEY);
+      Preconditions.checkArgument(!props.getBoolean(FORCE_OUTPUT_OVERWRITE_KEY, false),
+                                  TdchConstants.INCREMENTAL_COLUMN_KEY + " writes into a new directory under "
+                                  + TdchConstants.TARGET_HDFS_PATH_KEY + " and cannot be used with "
+                                  + FORCE_OUTPUT_OVERWRITE_KEY);
+    }
+
+    String fingerprintQuery = _jobProps.getProperty(TdchConstants.FINGERPRINT_QUERY_KEY);
+    _fingerprintQuery = StringUtils.isEmpty(fingerprintQuery)
+                        ? Optional.<String>absent()
+                        : Optional.of(fingerprintQuery);
+    _isSkipIfUnchanged = props.getBoolean(TdchConstants.SKIP_IF_UNCHANGED_KEY, false);
+    if (_isSkipIfUnchanged) {
+      Preconditions.checkArgument(_params.getSourceTdTableName().isPresent() || _fingerprintQuery.isPresent(),
+                                  TdchConstants.SKIP_IF_UNCHANGED_KEY + " with "
+                                  + TdchConstants.SOURCE_TD_QUERY_NAME_KEY + " requires "
+                                  + TdchConstants.FINGERPRINT_QUERY_KEY);
+      Preconditions.checkArgument(_params.getPassword().isPresent(),
+                                  TdchConstants.SKIP_IF_UNCHANGED_KEY + " requires "
+                                  + TdchConstants.TD_ENCRYPTED_CREDENTIAL_KEY);
+      //Watermark already skips the extraction if there's no new row.
+      Preconditions.checkArgument(!_incrementalColumn.isPresent(),
+                                  TdchConstants.SKIP_IF_UNCHANGED_KEY + " cannot be used with "
+                                  + TdchConstants.INCREMENTAL_COLUMN_KEY);
+    }
+  }
+
+  /**
+   * Direct extract needs password for JDBC, and does not support hive job type and the properties only TDCH
+   * understands.
+   */
+  private boolean isDirectExtractSupported() {
+    return _params.getPassword().isPresent()
+           && !TdchConstants.TDCH_HIVE_JOB_TYPE.equals(_jobProps.getProperty(TdchConstants.TDCH_JOB_TYPE))
+           && TeradataToHdfsDirectExtractor.isSupported(_params.getFileFormat())
+           && StringUtils.isEmpty(_jobProps.getProperty(TdchConstants.TD_OTHER_PROPERTIES_HOCON_KEY));
   }
 
   public void run() throws IOException, InterruptedException {
@@ -122,17 +241,297 @@ public class TeradataToHdfsJobRunnerMain {
     } else {
       runCopyTdToHdfs();
     }
+
+    if (!_outputProperties.isEmpty()) {
+      JobOutputProperties.write(_outputProperties);
+    }
   }
 
   private void runCopyTdToHdfs() throws IOException {
-    if (Boolean.valueOf(_jobProps.getProperty("force.output.overwrite", "false").trim())) {
+    if (_isSkipIfUnchanged && isSourceUnchanged()) {
+      return;
+    }
+    if (_incrementalColumn.isPresent() && !applyWatermark()) {
+      return;
+    }
+    resolveParams();
+    if (Boolean.valueOf(_jobProps.getProperty(FORCE_OUTPUT_OVERWRITE_KEY, "false").trim())) {
       Path path = new Path(_jobProps.getProperty(TdchConstants.TARGET_HDFS_PATH_KEY));
       _logger.info("Deleting output directory " + path.toUri());
       JobConf conf = new JobConf();
       path.getFileSystem(conf).delete(path, true);
     }
+    if (_isDirectExtract) {
+      extractDirectly();
+    } else {
+      copyTdToHdfs();
+    }
+
+    //Only after the copy succeeded, so that a failed run is retried from the same watermark.
+    if (_watermark.isPresent()) {
+      _watermark.get().write(_highWatermark.get());
+      _outputProperties.put(TdchConstants.INCREMENTAL_TARGET_PATH_OUTPUT_KEY, _params.getTargetHdfsPath());
+      _outputProperties.put(TdchConstants.INCREMENTAL_WATERMARK_OUTPUT_KEY, _highWatermark.get());
+    }
+    //Fingerprint taken before the copy, so that changes made during the copy are extracted by the next run.
+    if (_fingerprint.isPresent()) {
+      _fingerprint.get().write(_currentFingerprint);
+    }
+  }
+
+  /**
+   * Compares the fingerprint of the source with the one of the last successful run. The fingerprint is the result of
+   * {@link TdchConstants#FINGERPRINT_QUERY_KEY} if provided, or otherwise the last alter timestamp and the row count of
+   * the source table. Note that the latter does not catch updates that keep the row count.
+   *
+   * @return true if the source has not changed and the target still exists, hence the extraction can be skipped.
+   * @throws IOException
+   */
+  private boolean isSourceUnchanged() throws IOException {
+    String source = _params.getSourceTdTableName().isPresent()
+                    ? _params.getSourceTdTableName().get()
+                    : _params.getSourceQuery().get();
+    Path target = new Path(_params.getTargetHdfsPath());
+    FileSystem fs = target.getFileSystem(new Configuration());
+    Fingerprint fingerprint = new Fingerprint(fs, Fingerprint.getStatePath(target), source);
+    Optional<List<String>> last = fingerprint.read();
+
+    List<String> current;
+    try (Connection conn = newConnection()) {
+      JdbcCommands command = newTeradataCommands(conn);
+      if (_fingerprintQuery.isPresent()) {
+        current = command.getFirstRow(_fingerprintQuery.get());
+      } else {
+        DatabaseTable dbTbl = new DatabaseTable(source);
+        current = Arrays.asList(command.getLastAlterTimestamp(dbTbl.getTable(), dbTbl.getDatabase()).orNull(),
+                                Long.toString(command.countRows(dbTbl.getTable(), dbTbl.getDatabase())));
+      }
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+    _fingerprint = Optional.of(fingerprint);
+    _currentFingerprint = current;
+
+    boolean isUnchanged = last.isPresent() && last.get().equals(current) && fs.exists(target);
+    _outputProperties.put(TdchConstants.SKIPPED_OUTPUT_KEY, Boolean.toString(isUnchanged));
+    if (isUnchanged) {
+      _logger.info("Skipping as " + source + " has not changed since the last run. Fingerprint: " + current);
+    }
+    return isUnchanged;
+  }
+
+  /**
+   * Restricts the source table to the rows whose incremental column is above the watermark of the last successful run
+   * and up to its current maximum, by replacing the source table with a source query. Output goes into a new dated
+   * subdirectory of the target path.
+   *
+   * @return false if there's no new row since the last successful run.
+   * @throws IOException
+   */
+  private boolean applyWatermark() throws IOException {
+    DatabaseTable dbTbl = new DatabaseTable(_params.getSourceTdTableName().get());
+    String column = _incrementalColumn.get();
+    Path target = new Path(_params.getTargetHdfsPath());
+    Watermark watermark =
+        new Watermark(target.getFileSystem(new Configuration()), Watermark.getStatePath(target), column);
+    Optional<String> low = watermark.read();
+
+    Optional<String> high;
+    Optional<Integer> sqlType;
+    try (Connection conn = newConnection()) {
+      JdbcCommands command = newTeradataCommands(conn);
+      sqlType = command.getColumnType(dbTbl.getTable(), dbTbl.getDatabase(), column);
+      Preconditions.checkArgument(sqlType.isPresent(),
+                                  "Column " + column + " does not exist in " + _params.getSourceTdTableName().get());
+      high = command.getMaxValue(dbTbl.getTable(), dbTbl.getDatabase(), column);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+
+    int compared = high.isPresent() && low.isPresent() ? Watermark.compare(high.get(), low.get(), sqlType.get()) : 1;
+    if (compared < 0) {
+      _logger.warn("Maximum " + column + " = " + high.get() + " of " + _params.getSourceTdTableName().get()
+                   + " is below the watermark " + low.get() + ", as rows may have been deleted or reloaded. "
+                   + "Keeping the watermark.");
+    }
+    if (!high.isPresent() || compared <= 0) {
+      _logger.info("No new rows in " + _params.getSourceTdTableName().get() + " since " + column + " = " + low.orNull());
+      if (low.isPresent()) {
+        _outputProperties.put(TdchConstants.INCREMENTAL_WATERMARK_OUTPUT_KEY, low.get());
+      }
+      return false;
+    }
+
+    String query = String.format(INCREMENTAL_QUERY_FORMAT, _params.getSourceTdTableName().get(),
+                                 Watermark.toPredicate(column, sqlType.get(), low, high.get()));
+    Path dated = new Path(target, new SimpleDateFormat(INCREMENTAL_DIR_FORMAT).format(new Date()));
+    _logger.info("Extracting " + column + " in (" + low.orNull() + ", " + high.get() + "] into " + dated);
+    _params = _paramsBuilder.sourceTdTableName(null)
+                            .sourceQuery(query)
+                            .targetHdfsPath(dated.toString())
+                            .build();
+    _watermark = Optional.of(watermark);
+    _highWatermark = high;
+    return true;
+  }
+
+  /**
+   * Resolves the parameters that depend on the source, such as auto number of mappers and auto retrieve method, and
+   * whether the source table is small enough for direct extract, by querying Teradata's data dictionary.
+   */
+  @VisibleForTesting
+  void resolveParams() {
+    if (_isForceDirectExtract) {
+      _logger.info("Using direct extract as " + TdchConstants.DIRECT_EXTRACT_KEY + " is set.");
+      _isDirectExtract = true;
+      return;
+    }
+    //Size of a query result is unknown, hence only a table can be chosen by size.
+    boolean isDirectExtractBySize = _directExtractMaxBytes > 0 && _params.getSourceTdTableName().isPresent();
+    boolean isAutoRetrieveMethod = _isAutoRetrieveMethod;
+    if (isAutoRetrieveMethod && !_params.getSourceTdTableName().isPresent()) {
+      _logger.warn("Auto " + TdchConstants.TD_RETRIEVE_METHOD_KEY + " is only supported with "
+                   + TdchConstants.SOURCE_TD_TABLE_NAME_KEY + ". Leaving it to TDCH.");
+      isAutoRetrieveMethod = false;
+    }
+    if (!_isAutoNumMappers && !isAutoRetrieveMethod && !isDirectExtractBySize) {
+      return;
+    }
+    if (!_params.getPassword().isPresent()) {
+      _logger.warn("Auto " + TdchConstants.TD_NUM_MAPPERS + " and " + TdchConstants.TD_RETRIEVE_METHOD_KEY
+                   + " are not supported if " + TdchConstants.TD_ENCRYPTED_CREDENTIAL_KEY + " is not provided. Using "
+                   + _params.getNumMappers() + " mappers and " + _params.getTdRetrieveMethod().orNull());
+      return;
+    }
+
+    try (Connection conn = newConnection()) {
+      JdbcCommands command = newTeradataCommands(conn);
+      Optional<DatabaseTable> dbTbl = _params.getSourceTdTableName().isPresent()
+                                      ? Optional.of(new DatabaseTable(_params.getSourceTdTableName().get()))
+                                      : Optional.<DatabaseTable>absent();
+      Optional<Long> tableSize = Optional.absent();
+      if (dbTbl.isPresent() && (_isAutoNumMappers || isDirectExtractBySize)) {
+        tableSize = command.getTableSize(dbTbl.get().getTable(), dbTbl.get().getDatabase());
+      }
+      if (isDirectExtractBySize && tableSize.isPresent() && tableSize.get() < _directExtractMaxBytes) {
+        _logger.info("Using direct extract as source table size " + tableSize.get() + " bytes is smaller than "
+                     + _directExtractMaxBytes + " bytes.");
+        _isDirectExtract = true;
+        return;
+      }
+      int ampCount = command.getAmpCount();
+
+      String retrieveMethod = _params.getTdRetrieveMethod().orNull();
+      if (isAutoRetrieveMethod) {
+        RetrieveMethod selected =
+            _retrieveMethodSelector.select(command, dbTbl.get().getTable(), dbTbl.get().getDatabase(), ampCount);
+        retrieveMethod = selected.getMethod();
+        _paramsBuilder.tdRetrieveMethod(retrieveMethod);
+        //Split column provided by user takes precedence.
+        if (selected.getSplitByColumn().isPresent()
+            && StringUtils.isEmpty(_jobProps.getProperty(TdchConstants.TD_SPLIT_BY_COLUMN_KEY))) {
+          _paramsBuilder.splitByColumn(selected.getSplitByColumn().get());
+        }
+      }
+
+      if (_isAutoNumMappers) {
+        _logger.info("Source table size: " + tableSize + " bytes, AMP count: " + ampCount);
+
+        boolean isSplitByAmp = TdchConstants.SPLIT_BY_AMP.equals(retrieveMethod);
+        _paramsBuilder.numMapper(_mapperCountCalculator.fromTeradata(tableSize, ampCount, isSplitByAmp));
+      }
+      _params = _paramsBuilder.build();
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @VisibleForTesting
+  Connection newConnection() {
+    return newConnection(_params.getTdUrl());
+  }
+
+  @VisibleForTesting
+  Connection newDirectExtractConnection() {
+    return newConnection(_params.getTdUrl() + FASTEXPORT_URL_PARAM);
+  }
+
+  private Connection newConnection(String url) {
+    try {
+      Class.forName(_params.getTdJdbcClassName());
+      return DriverManager.getConnection(url, _params.getUserName(), _params.getPassword().get());
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @VisibleForTesting
+  JdbcCommands newTeradataCommands(Connection conn) {
+    return new TeradataCommands(conn);
+  }
+
+  /**
+   * Calling TDCH to move data from Teradata to HDFS
+   */
+  @VisibleForTesting
+  void copyTdToHdfs() {
     _logger.info(String.format("Executing %s with params: %s", TeradataToHdfsJobRunnerMain.class.getSimpleName(), _params));
-    TeradataImportTool.main(_params.toTdchParams());
+    //Runs TDCH through ToolRunner to get the result of the import, as the watermark depends on it.
+    int result;
+    try {
+      result = ToolRunner.run(new TeradataImportTool(), _params.toTdchParams());
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    if (result != 0) {
+      throw new RuntimeException("TDCH import failed with exit code " + result);
+    }
+  }
+
+  /**
+   * Extracts the source directly over a JDBC FastExport session, instead of TDCH. Teradata JDBC driver uses FastExport
+   * only for a SELECT executed as a PreparedStatement, thus the extractor always prepares the query.
+   */
+  @VisibleForTesting
+  void extractDirectly() {
+    String sql = _params.getSourceTdTableName().isPresent()
+                 ? String.format(SELECT_TABLE_QUERY_FORMAT, _params.getSourceTdTableName().get())
+                 : _params.getSourceQuery().get();
+    Path target = new Path(_params.getTargetHdfsPath());
+    _logger.info("Extracting into " + target + " directly using " + _directExtractor);
+
+    try (Connection conn = newDirectExtractConnection()) {
+      Configuration conf = new Configuration();
+      long rows = _directExtractor.extract(conn, sql, target.getFileSystem(conf), target, _params.getFileFormat(),
+                                           _params.getFieldSeparator().or(TdchConstants.DEFAULT_FIELD_SEPARATOR),
+                                           getAvroSchema(conf));
+      _logger.info("Extracted " + rows + " rows into " + target);
+    } catch (IOException | SQLException | InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private Optional<Schema> getAvroSchema(Configuration conf) throws IOException {
+    if (!TdchConstants.AVRO_FILE_FORMAT.equals(_params.getFileFormat())) {
+      return Optional.absent();
+    }
+    if (_params.getAvroSchemaInline().isPresent()) {
+      return Optional.of(new Schema.Parser().parse(_params.getAvroSchemaInline().get()));
+    }
+    Path schemaPath = new Path(_params.getAvroSchemaPath().get());
+    try (InputStream in = schemaPath.getFileSystem(conf).open(schemaPath)) {
+      return Optional.of(new Schema.Parser().parse(in));
+    }
+  }
+
+  @VisibleForTesting
+  TdchParameters getParams() {
+    return _params;
+  }
+
+  @VisibleForTesting
+  Map<String, String> getOutputProperties() {
+    return _outputProperties;
   }
 
   /**
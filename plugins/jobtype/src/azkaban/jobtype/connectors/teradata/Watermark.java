@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * High-water mark of an incremental extraction, which is the largest value of the incremental column extracted so far.
+ * It's kept in a state file on HDFS next to the target path, so that the next run extracts only the rows above it.
+ */
+public class Watermark {
+  private static final Logger _logger = Logger.getLogger(Watermark.class);
+  private static final String STATE_FILE_FORMAT = "_%s.watermark";
+  private static final String COLUMN_KEY = "column";
+  private static final String VALUE_KEY = "value";
+  private static final Set<Integer> NUMERIC_TYPES =
+      ImmutableSet.of(Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.DECIMAL, Types.NUMERIC,
+                      Types.FLOAT, Types.REAL, Types.DOUBLE);
+
+  private final FileSystem _fs;
+  private final Path _statePath;
+  private final String _column;
+
+  /**
+   * @param fs File system of the state file
+   * @param statePath State file
+   * @param column Incremental column. A state written for another column is rejected.
+   */
+  public Watermark(FileSystem fs, Path statePath, String column) {
+    _fs = fs;
+    _statePath = statePath;
+    _column = column;
+  }
+
+  /**
+   * @param target Target path of the extraction
+   * @return State file next to the target path
+   */
+  public static Path getStatePath(Path target) {
+    return new Path(target.getParent(), String.format(STATE_FILE_FORMAT, target.getName()));
+  }
+
+  /**
+   * @return High-water mark of the last successful run. Absent if it has never succeeded.
+   * @throws IOException
+   */
+  public Optional<String> read() throws IOException {
+    Optional<Map<String, String>> state = StateFile.read(_fs, _statePath, new TypeReference<Map<String, String>>() {});
+    if (!state.isPresent()) {
+      _logger.info("No watermark in " + _statePath);
+      return Optional.absent();
+    }
+
+    Object column = state.get().get(COLUMN_KEY);
+    Preconditions.checkArgument(_column.equalsIgnoreCase(String.valueOf(column)),
+                                "Watermark in " + _statePath + " is of column " + column + ", not " + _column
+                                + ". Remove it to extract from the beginning.");
+    Optional<String> value = Optional.fromNullable(state.get().get(VALUE_KEY));
+    _logger.info("Watermark of " + _column + " in " + _statePath + ": " + value.orNull());
+    return value;
+  }
+
+  /**
+   * @param value New high-water mark
+   * @throws IOException
+   */
+  public void write(String value) throws IOException {
+    Map<String, String> state = new HashMap<>();
+    state.put(COLUMN_KEY, _column);
+    state.put(VALUE_KEY, value);
+    StateFile.write(_fs, _statePath, state);
+    _logger.info("Advanced watermark of " + _column + " in " + _statePath + " to " + value);
+  }
+
+  /**
+   * @param column Incremental column
+   * @param sqlType SQL type of the column in {@link java.sql.Types}
+   * @param low Exclusive lower bound. Absent on the first run.
+   * @param high Inclusive upper bound. Rows added during the extraction are left for the next run.
+   * @return Predicate on the column
+   */
+  public static String toPredicate(String column, int sqlType, Optional<String> low, String high) {
+    String upper = column + " <= " + toLiteral(high, sqlType);
+    return low.isPresent() ? column + " > " + toLiteral(low.get(), sqlType) + " AND " + upper : upper;
+  }
+
+  /**
+   * Compares values of the incremental column by its type. Strings are compared in Java's order, which may differ from
+   * the collation of the column.
+   * @param value
+   * @param other
+   * @param sqlType SQL type of the column in {@link java.sql.Types}
+   * @return Negative, zero or positive as the value is less than, equal to or greater than the other.
+   */
+  public static int compare(String value, String other, int sqlType) {
+    if (NUMERIC_TYPES.contains(sqlType)) {
+      return new BigDecimal(value.trim()).compareTo(new BigDecimal(other.trim()));
+    }
+    if (sqlType == Types.DATE) {
+      return Date.valueOf(value.trim()).compareTo(Date.valueOf(other.trim()));
+    }
+    if (sqlType == Types.TIMESTAMP) {
+      return Timestamp.valueOf(value.trim()).compareTo(Timestamp.valueOf(other.trim()));
+    }
+    return value.compareTo(other);
+  }
+
+  private static String toLiteral(String value, int sqlType) {
+    if (NUMERIC_TYPES.contains(sqlType)) {
+      //Validates the number as it goes into the query as is.
+      return new BigDecimal(value.trim()).toPlainString();
+    }
+    String quoted = "'" + value.replace("'", "''") + "'";
+    if (sqlType == Types.DATE) {
+      return "DATE " + quoted;
+    }
+    if (sqlType == Types.TIMESTAMP) {
+      return "TIMESTAMP " + quoted;
+    }
+    return quoted;
+  }
+}
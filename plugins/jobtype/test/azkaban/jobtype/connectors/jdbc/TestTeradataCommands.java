@@ -0,0 +1,143 @@
+package azkaban.jobtype.connectors.jdbc;
+
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.base.Optional;
+
+public class TestTeradataCommands {
+  private static final Optional<String> DB = Optional.of("db");
+
+  private Connection conn;
+  //SQL prefix to the rows returned
+  private Map<String, List<Object>> results;
+  private List<String> executed;
+  //SQL prefix of the statements failing
+  private List<String> failures;
+
+  @Before
+  public void setup() throws SQLException {
+    conn = mock(Connection.class);
+    results = new TreeMap<>();
+    executed = new ArrayList<>();
+    failures = new ArrayList<>();
+    when(conn.prepareStatement(anyString())).thenAnswer(new Answer<PreparedStatement>() {
+      @Override
+      public PreparedStatement answer(InvocationOnMock invocation) throws Throwable {
+        return newStatement((String) invocation.getArguments()[0]);
+      }
+    });
+    Statement stmt = mock(Statement.class);
+    when(stmt.execute(anyString())).thenAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) throws Throwable {
+        String sql = (String) invocation.getArguments()[0];
+        executed.add(sql);
+        for (String failing : failures) {
+          if (sql.startsWith(failing)) {
+            throw new SQLException("Failed " + sql);
+          }
+        }
+        return false;
+      }
+    });
+    when(conn.createStatement()).thenReturn(stmt);
+  }
+
+  @Test
+  public void testSwapTable() throws SQLException {
+    new TeradataCommands(conn).swapTable("tbl_stg", "tbl", DB);
+
+    Assert.assertEquals(3, executed.size());
+    Assert.assertTrue(executed.get(0).matches("RENAME TABLE db\\.tbl TO db\\.tbl_bak[0-9a-f]{6}"));
+    String backup = executed.get(0).substring("RENAME TABLE db.tbl TO ".length());
+    Assert.assertEquals("RENAME TABLE db.tbl_stg TO db.tbl", executed.get(1));
+    Assert.assertEquals("DROP TABLE " + backup, executed.get(2));
+    verify(conn, times(1)).setAutoCommit(true);
+    verify(conn, never()).commit();
+  }
+
+  @Test
+  public void testSwapTableRestoresTarget() {
+    failures.add("RENAME TABLE db.tbl_stg");
+    try {
+      new TeradataCommands(conn).swapTable("tbl_stg", "tbl", DB);
+      Assert.fail("Should fail");
+    } catch (RuntimeException e) {
+      Assert.assertTrue(e.getCause() instanceof SQLException);
+    }
+
+    Assert.assertEquals(3, executed.size());
+    String backup = executed.get(0).substring("RENAME TABLE db.tbl TO ".length());
+    Assert.assertEquals("RENAME TABLE " + backup + " TO db.tbl", executed.get(2));
+  }
+
+  @Test
+  public void testDeleteWhere() {
+    results.put("SELECT ColumnName", Arrays.<Object>asList("id"));
+
+    Optional<Integer> deleted = new TeradataCommands(conn).deleteWhere("tbl", DB, "dt IN (?)",
+                                                                        Arrays.asList("2017-01-01"));
+    Assert.assertEquals(Optional.of(5), deleted);
+    Assert.assertEquals("DELETE FROM db.tbl WHERE dt IN (?)", executed.get(executed.size() - 1));
+  }
+
+  @Test
+  public void testDeleteOnPartitionedTable() {
+    results.put("SELECT ColumnName", Arrays.<Object>asList("Q"));
+
+    Optional<Integer> deleted = new TeradataCommands(conn).deleteWhere("tbl", DB, "dt IN (?, ?)",
+                                                                        Arrays.asList("2017-01-01", "2017-01-02"));
+    Assert.assertEquals(Optional.of(5), deleted);
+    Assert.assertEquals(Arrays.asList("DELETE FROM db.tbl WHERE dt IN (?, ?)"), executed);
+  }
+
+  private PreparedStatement newStatement(final String sql) throws SQLException {
+    executed.add(sql);
+    PreparedStatement stmt = mock(PreparedStatement.class);
+    when(stmt.executeUpdate()).thenReturn(5);
+    List<Object> rows = new ArrayList<>();
+    for (Map.Entry<String, List<Object>> entry : results.entrySet()) {
+      if (sql.startsWith(entry.getKey())) {
+        rows = entry.getValue();
+      }
+    }
+    final Iterator<Object> it = rows.iterator();
+    final Object[] current = new Object[1];
+    ResultSet res = mock(ResultSet.class);
+    when(res.next()).thenAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) {
+        current[0] = it.hasNext() ? it.next() : null;
+        return current[0] != null;
+      }
+    });
+    Answer<Object> value = new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) {
+        return current[0];
+      }
+    };
+    when(res.getString(anyInt())).thenAnswer(value);
+    when(res.getLong(anyInt())).thenAnswer(value);
+    when(stmt.executeQuery()).thenReturn(res);
+    return stmt;
+  }
+}
@@ -14,12 +14,20 @@ package azkaban.jobtype.connectors.teradata;
 import static org.mockito.Mockito.*;
 import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Properties;
 
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
@@ -28,6 +36,8 @@ import com.google.common.base.Optional;
 
 import azkaban.crypto.Decryptions;
 import azkaban.jobtype.connectors.jdbc.JdbcCommands;
+import azkaban.jobtype.connectors.jdbc.MergeResult;
+import azkaban.jobtype.javautils.FileUtils;
 
 public class TestHdfsToTeradata {
 
@@ -150,4 +160,386 @@ public class TestHdfsToTeradata {
     inOrder.verify(commands, times(1)).truncateTable("target_table", Optional.of("db"));
     inOrder.verify(conn, times(1)).close();
   }
+
+  @Test
+  public void testAutoNumMappers() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(TD_NUM_MAPPERS, AUTO);
+    properties.put(TD_NUM_MAPPERS_BYTES_PER_MAPPER_KEY, "100");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    Assert.assertEquals(DEFAULT_NO_MAPPERS, job.getParams().getNumMappers());
+
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(mock(JdbcCommands.class)).when(job).newTeradataCommands(any());
+    doReturn(Optional.of(250L)).when(job).getSourceSize();
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+
+    Assert.assertEquals(3, job.getParams().getNumMappers());
+  }
+
+  @Test
+  public void testAutoNumMappersUnknownHiveLocation()
+      throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.remove(SOURCE_HDFS_PATH_KEY);
+    properties.put(TDCH_JOB_TYPE, TDCH_HIVE_JOB_TYPE);
+    properties.put(LIB_JARS_HIVE_KEY, "test");
+    properties.put(SOURCE_HIVE_DATABASE_NAME_KEY, "hive_db");
+    properties.put(SOURCE_HIVE_TABLE_NAME_KEY, "hive_table");
+    properties.put(TD_NUM_MAPPERS, AUTO);
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(mock(JdbcCommands.class)).when(job).newTeradataCommands(any());
+    doReturn(Optional.absent()).when(job).getHiveTableLocation();
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+
+    Assert.assertEquals(DEFAULT_NO_MAPPERS, job.getParams().getNumMappers());
+    verify(job, times(1)).copyHdfsToTd();
+  }
+
+  @Test
+  public void testAutoInsertMethod() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(TD_INSERT_METHOD_KEY, AUTO);
+    properties.put(TD_INSERT_METHOD_FASTLOAD_MIN_BYTES_KEY, "100");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    JdbcCommands commands = mock(JdbcCommands.class);
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(commands).when(job).newTeradataCommands(any());
+    doReturn(true).when(commands).isEmpty("target_table", Optional.of("db"));
+    doReturn(Optional.of(250L)).when(job).getSourceSize();
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+
+    Assert.assertTrue(Arrays.asList(job.getParams().toTdchParams()).contains(INTERNAL_FASTLOAD));
+  }
+
+  @Test
+  public void testAutoInsertMethodNotEmpty() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(TD_INSERT_METHOD_KEY, AUTO);
+    properties.put(TD_INSERT_METHOD_FASTLOAD_MIN_BYTES_KEY, "100");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    JdbcCommands commands = mock(JdbcCommands.class);
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(commands).when(job).newTeradataCommands(any());
+    doReturn(false).when(commands).isEmpty("target_table", Optional.of("db"));
+    doReturn(Optional.of(250L)).when(job).getSourceSize();
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+
+    Assert.assertTrue(Arrays.asList(job.getParams().toTdchParams()).contains(BATCH_INSERT));
+  }
+
+  @Test
+  public void testStagingMode() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(REPLACE_TARGET_TABLE_KEY, Boolean.toString(true));
+    properties.put(REPLACE_MODE_KEY, REPLACE_MODE_STAGING);
+    properties.put(STAGING_TABLE_NAME_KEY, "target_table_stg");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    JdbcCommands commands = mock(JdbcCommands.class);
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(commands).when(job).newTeradataCommands(any());
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+
+    Assert.assertEquals("target_table_stg", job.getParams().getTargetTdTableName());
+    Assert.assertEquals(Optional.of("db"), job.getParams().getTargetTdDatabase());
+    InOrder inOrder = inOrder(commands, job);
+    inOrder.verify(commands, times(1)).createTableLike("target_table_stg", "target_table", Optional.of("db"));
+    inOrder.verify(job, times(1)).copyHdfsToTd();
+    inOrder.verify(commands, times(1)).swapTable("target_table_stg", "target_table", Optional.of("db"));
+    verify(commands, never()).truncateTable(any(), any());
+  }
+
+  @Test
+  public void testStagingModeFailure() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(REPLACE_TARGET_TABLE_KEY, Boolean.toString(true));
+    properties.put(REPLACE_MODE_KEY, REPLACE_MODE_STAGING);
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    JdbcCommands commands = mock(JdbcCommands.class);
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(commands).when(job).newTeradataCommands(any());
+    doThrow(new RuntimeException("Failed")).when(job).copyHdfsToTd();
+    try {
+      job.run();
+      Assert.fail("Should have failed.");
+    } catch (RuntimeException e) {
+      Assert.assertEquals("Failed", e.getMessage());
+    }
+
+    String stagingTable = job.getParams().getTargetTdTableName();
+    Assert.assertTrue(stagingTable.matches("target_table_stg[0-9a-f]{6}"));
+    verify(commands, times(1)).createTableLike(stagingTable, "target_table", Optional.of("db"));
+    verify(commands, times(1)).dropTable(stagingTable, Optional.of("db"));
+    verify(commands, never()).swapTable(any(), any(), any());
+  }
+
+  @Test
+  public void testMergeMode() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(MERGE_KEY_COLUMNS_KEY, "id, dt");
+    properties.put(STAGING_TABLE_NAME_KEY, "target_table_stg");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    JdbcCommands commands = mock(JdbcCommands.class);
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(commands).when(job).newTeradataCommands(any());
+    doReturn(new MergeResult(3L, 2L)).when(commands).mergeTable("target_table_stg", "target_table",
+                                                                Optional.of("db"), Arrays.asList("id", "dt"));
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+
+    Assert.assertEquals("target_table_stg", job.getParams().getTargetTdTableName());
+    InOrder inOrder = inOrder(commands, job);
+    inOrder.verify(commands, times(1)).createTableLike("target_table_stg", "target_table", Optional.of("db"));
+    inOrder.verify(job, times(1)).copyHdfsToTd();
+    inOrder.verify(commands, times(1)).mergeTable(any(), any(), any(), any());
+    inOrder.verify(commands, times(1)).dropTable("target_table_stg", Optional.of("db"));
+    verify(commands, never()).swapTable(any(), any(), any());
+
+    Assert.assertEquals("3", job.getOutputProperties().get(MERGE_INSERTED_COUNT_OUTPUT_KEY));
+    Assert.assertEquals("2", job.getOutputProperties().get(MERGE_UPDATED_COUNT_OUTPUT_KEY));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMergeModeWithReplace() throws FileNotFoundException, IOException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(MERGE_KEY_COLUMNS_KEY, "id");
+    properties.put(REPLACE_TARGET_TABLE_KEY, Boolean.toString(true));
+    new HdfsToTeradataJobRunnerMain(properties, decryptions);
+  }
+
+  @Test
+  public void testReplacePartitions() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(REPLACE_PARTITION_COLUMN_KEY, "dt");
+    properties.put(REPLACE_PARTITION_VALUES_KEY, "2017-01-01, 2017-01-02");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    Connection conn = mock(Connection.class);
+    JdbcCommands commands = mock(JdbcCommands.class);
+    doReturn(conn).when(job).newConnection();
+    doReturn(commands).when(job).newTeradataCommands(any());
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+
+    InOrder inOrder = inOrder(conn, commands, job);
+    inOrder.verify(commands, times(1)).deleteWhere("target_table", Optional.of("db"), "dt IN (?, ?)",
+                                                   Arrays.asList("2017-01-01", "2017-01-02"));
+    inOrder.verify(conn, times(1)).commit();
+    inOrder.verify(job, times(1)).copyHdfsToTd();
+    verify(commands, never()).truncateTable(any(), any());
+  }
+
+  @Test
+  public void testReplacePredicate() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(REPLACE_PREDICATE_KEY, "dt >= DATE '2017-01-01'");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    JdbcCommands commands = mock(JdbcCommands.class);
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(commands).when(job).newTeradataCommands(any());
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+
+    verify(commands, times(1)).deleteWhere("target_table", Optional.of("db"), "dt >= DATE '2017-01-01'",
+                                           Collections.<String>emptyList());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReplacePartitionsWithReplace() throws FileNotFoundException, IOException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(REPLACE_PARTITION_COLUMN_KEY, "dt");
+    properties.put(REPLACE_PARTITION_VALUES_KEY, "2017-01-01");
+    properties.put(REPLACE_TARGET_TABLE_KEY, Boolean.toString(true));
+    new HdfsToTeradataJobRunnerMain(properties, decryptions);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPartitionColumn() throws FileNotFoundException, IOException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(REPLACE_PARTITION_COLUMN_KEY, "dt; DROP TABLE x");
+    properties.put(REPLACE_PARTITION_VALUES_KEY, "2017-01-01");
+    new HdfsToTeradataJobRunnerMain(properties, decryptions);
+  }
+
+  @Test
+  public void testDirectLoad() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(HDFS_FILE_FORMAT_KEY, TEXT_FILE_FORMAT);
+    properties.put(DIRECT_LOAD_MAX_BYTES_KEY, "1000");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    JdbcCommands commands = mock(JdbcCommands.class);
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(commands).when(job).newTeradataCommands(any());
+    doReturn(true).when(commands).isEmpty("target_table", Optional.of("db"));
+    doReturn(Optional.of(999L)).when(job).getSourceSize();
+    doNothing().when(job).loadDirectly();
+    job.run();
+
+    verify(job, times(1)).loadDirectly();
+    verify(job, never()).copyHdfsToTd();
+  }
+
+  @Test
+  public void testDirectLoadWithLargeInput()
+      throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(HDFS_FILE_FORMAT_KEY, TEXT_FILE_FORMAT);
+    properties.put(DIRECT_LOAD_MAX_BYTES_KEY, "1000");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(mock(JdbcCommands.class)).when(job).newTeradataCommands(any());
+    doReturn(Optional.of(1000L)).when(job).getSourceSize();
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+
+    verify(job, never()).loadDirectly();
+    verify(job, times(1)).copyHdfsToTd();
+  }
+
+  @Test
+  public void testDirectLoadWithEmptyInput()
+      throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    File source = File.createTempFile("direct", ".txt");
+    source.deleteOnExit();
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(HDFS_FILE_FORMAT_KEY, TEXT_FILE_FORMAT);
+    properties.put(SOURCE_HDFS_PATH_KEY, source.toURI().toString());
+    properties.put(DIRECT_LOAD_MAX_BYTES_KEY, "1000");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(mock(JdbcCommands.class)).when(job).newTeradataCommands(any());
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+
+    verify(job, never()).loadDirectly();
+    verify(job, times(1)).copyHdfsToTd();
+  }
+
+  @Test
+  public void testDirectLoadWithMissingInput()
+      throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(HDFS_FILE_FORMAT_KEY, TEXT_FILE_FORMAT);
+    properties.put(SOURCE_HDFS_PATH_KEY, new File("does_not_exist").toURI().toString());
+    properties.put(DIRECT_LOAD_MAX_BYTES_KEY, "1000");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(mock(JdbcCommands.class)).when(job).newTeradataCommands(any());
+    try {
+      job.run();
+      Assert.fail("Should fail");
+    } catch (IllegalArgumentException e) {
+      Assert.assertTrue(e.getMessage().contains("does not exist"));
+    }
+    verify(job, never()).loadDirectly();
+    verify(job, never()).copyHdfsToTd();
+  }
+
+  @Test
+  public void testDirectLoadFastLoad() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    File source = File.createTempFile("direct", ".txt");
+    source.deleteOnExit();
+    Files.write(source.toPath(), "1\ta\n".getBytes(StandardCharsets.UTF_8));
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(HDFS_FILE_FORMAT_KEY, TEXT_FILE_FORMAT);
+    properties.put(SOURCE_HDFS_PATH_KEY, source.toURI().toString());
+    properties.put(DIRECT_LOAD_MAX_BYTES_KEY, "1000");
+
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    JdbcCommands commands = mock(JdbcCommands.class);
+    Connection loadConn = mock(Connection.class);
+    PreparedStatement stmt = mock(PreparedStatement.class);
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(commands).when(job).newTeradataCommands(any());
+    doReturn(true).when(commands).isEmpty("target_table", Optional.of("db"));
+    doReturn(Arrays.asList("id", "name")).when(commands).getColumns("target_table", Optional.of("db"));
+    doReturn(Optional.absent()).when(commands).getColumnType(any(), any(), any());
+    doReturn(loadConn).when(job).newDirectLoadConnection(true);
+    doReturn(stmt).when(loadConn).prepareStatement("INSERT INTO db.target_table (id, name) VALUES (?, ?)");
+    job.run();
+
+    verify(job, never()).copyHdfsToTd();
+    verify(stmt, times(1)).setObject(2, "a");
+    InOrder inOrder = inOrder(stmt, loadConn);
+    inOrder.verify(loadConn, times(1)).setAutoCommit(false);
+    inOrder.verify(stmt, times(1)).executeBatch();
+    inOrder.verify(loadConn, times(1)).commit();
+    inOrder.verify(loadConn, times(1)).close();
+  }
+
+  @Test
+  public void testManifest() throws FileNotFoundException, IOException, InterruptedException, SQLException {
+    File sourceDir = Files.createTempDirectory("manifest").toFile();
+    try {
+      File first = new File(sourceDir, "part-m-00000");
+      Files.write(first.toPath(), "1\ta\n".getBytes(StandardCharsets.UTF_8));
+      properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+      properties.put(SOURCE_HDFS_PATH_KEY, sourceDir.toURI().toString());
+      properties.put(SOURCE_HDFS_MANIFEST_PATH_KEY, new File(sourceDir, "_manifest").toURI().toString());
+
+      HdfsToTeradataJobRunnerMain job = runManifestJob();
+      verify(job, times(1)).copyHdfsToTd();
+      Assert.assertEquals(new Path(first.toURI()).toString(), job.getParams().getSourceHdfsPath());
+      Assert.assertEquals("1", job.getOutputProperties().get(INCREMENTAL_FILE_COUNT_OUTPUT_KEY));
+
+      job = runManifestJob();
+      verify(job, never()).copyHdfsToTd();
+      Assert.assertEquals("0", job.getOutputProperties().get(INCREMENTAL_FILE_COUNT_OUTPUT_KEY));
+
+      File second = new File(sourceDir, "part-m-00001");
+      Files.write(second.toPath(), "2\tb\n".getBytes(StandardCharsets.UTF_8));
+      job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+      doReturn(mock(Connection.class)).when(job).newConnection();
+      doReturn(mock(JdbcCommands.class)).when(job).newTeradataCommands(any());
+      doThrow(new RuntimeException("Failed")).when(job).copyHdfsToTd();
+      try {
+        job.run();
+        Assert.fail("Should have failed");
+      } catch (RuntimeException e) {
+        Assert.assertEquals("Failed", e.getMessage());
+      }
+
+      //The failed file is exported again.
+      job = runManifestJob();
+      verify(job, times(1)).copyHdfsToTd();
+      Assert.assertEquals(new Path(second.toURI()).toString(), job.getParams().getSourceHdfsPath());
+    } finally {
+      FileUtils.tryDeleteFileOrDirectory(sourceDir);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testManifestWithReplace() throws FileNotFoundException, IOException {
+    properties.put(TARGET_TD_TABLE_NAME_KEY, "db.target_table");
+    properties.put(SOURCE_HDFS_MANIFEST_PATH_KEY, "manifest");
+    properties.put(REPLACE_TARGET_TABLE_KEY, Boolean.toString(true));
+    new HdfsToTeradataJobRunnerMain(properties, decryptions);
+  }
+
+  private HdfsToTeradataJobRunnerMain runManifestJob() throws FileNotFoundException, IOException, InterruptedException {
+    HdfsToTeradataJobRunnerMain job = spy(new HdfsToTeradataJobRunnerMain(properties, decryptions));
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(mock(JdbcCommands.class)).when(job).newTeradataCommands(any());
+    doNothing().when(job).copyHdfsToTd();
+    job.run();
+    return job;
+  }
 }
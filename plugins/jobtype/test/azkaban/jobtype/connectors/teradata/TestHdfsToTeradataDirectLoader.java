@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static org.mockito.Mockito.*;
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import azkaban.jobtype.javautils.FileUtils;
+import azkaban.utils.Props;
+
+public class TestHdfsToTeradataDirectLoader {
+  private static final List<String> COLUMNS = Arrays.asList("id", "name");
+  private static final List<Integer> TYPES = Arrays.asList(Types.INTEGER, Types.VARCHAR);
+
+  private File tmpDir;
+  private FileSystem fs;
+  private Connection conn;
+  private PreparedStatement stmt;
+  private HdfsToTeradataDirectLoader loader;
+
+  @Before
+  public void setup() throws IOException, SQLException {
+    tmpDir = Files.createTempDirectory("directload").toFile();
+    fs = FileSystem.getLocal(new Configuration());
+    conn = mock(Connection.class);
+    stmt = mock(PreparedStatement.class);
+    when(conn.prepareStatement(anyString())).thenReturn(stmt);
+
+    Properties properties = new Properties();
+    properties.put(DIRECT_LOAD_BATCH_SIZE_KEY, "2");
+    properties.put(DIRECT_LOAD_QUEUE_SIZE_KEY, "1");
+    loader = new HdfsToTeradataDirectLoader(new Props(null, properties));
+  }
+
+  @After
+  public void cleanup() {
+    FileUtils.tryDeleteFileOrDirectory(tmpDir);
+  }
+
+  @Test
+  public void testLoadText() throws IOException, SQLException, InterruptedException {
+    File dir = new File(tmpDir, "text");
+    Assert.assertTrue(dir.mkdirs());
+    write(new File(dir, "part-00000"), "1\ta\n2\t\n3\tc\n");
+    write(new File(dir, "_SUCCESS"), "");
+
+    long rows = loader.load(fs, Collections.singletonList(new Path(dir.toURI())), TEXT_FILE_FORMAT, "\t", conn,
+                            "db.tbl", COLUMNS, TYPES);
+    Assert.assertEquals(3L, rows);
+    verify(conn).prepareStatement("INSERT INTO db.tbl (id, name) VALUES (?, ?)");
+    verify(stmt).setObject(1, "2");
+    verify(stmt).setNull(2, Types.VARCHAR);
+    verify(stmt).setObject(2, "c");
+    verify(stmt, times(3)).addBatch();
+    verify(stmt, times(2)).executeBatch();
+    verify(conn, never()).commit();
+  }
+
+  @Test
+  public void testLoadAvro() throws IOException, SQLException, InterruptedException {
+    Schema schema = SchemaBuilder.record("test").fields().requiredInt("id").optionalString("name").endRecord();
+    File file = new File(tmpDir, "test.avro");
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(schema))) {
+      writer.create(schema, file);
+      for (int i = 0; i < 5; i++) {
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("id", i);
+        record.put("name", i == 4 ? null : "name" + i);
+        writer.append(record);
+      }
+    }
+
+    long rows = loader.load(fs, Collections.singletonList(new Path(tmpDir.toURI().toString() + "/*.avro")),
+                            AVRO_FILE_FORMAT, DEFAULT_FIELD_SEPARATOR, conn, "tbl", COLUMNS, TYPES);
+    Assert.assertEquals(5L, rows);
+    verify(stmt).setObject(1, 3);
+    verify(stmt).setObject(2, "name3");
+    verify(stmt).setNull(2, Types.VARCHAR);
+    verify(stmt, times(5)).addBatch();
+    verify(stmt, times(3)).executeBatch();
+  }
+
+  @Test(expected = IOException.class)
+  public void testFieldCountMismatch() throws IOException, SQLException, InterruptedException {
+    File file = new File(tmpDir, "part-00000");
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 10; i++) {
+      content.append(i).append("\ta\n");
+    }
+    content.append("1\ta\tb\n");
+    write(file, content.toString());
+
+    loader.load(fs, Collections.singletonList(new Path(file.toURI())), TEXT_FILE_FORMAT, "\t", conn, "tbl", COLUMNS,
+                TYPES);
+  }
+
+  @Test(expected = SQLException.class)
+  public void testInsertFailure() throws IOException, SQLException, InterruptedException {
+    File file = new File(tmpDir, "part-00000");
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      content.append(i).append("\ta\n");
+    }
+    write(file, content.toString());
+    when(stmt.executeBatch()).thenThrow(new SQLException("test"));
+
+    loader.load(fs, Collections.singletonList(new Path(file.toURI())), TEXT_FILE_FORMAT, "\t", conn, "tbl", COLUMNS,
+                TYPES);
+  }
+
+  private static void write(File file, String content) throws IOException {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
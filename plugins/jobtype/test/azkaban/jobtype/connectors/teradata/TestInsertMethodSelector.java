@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+
+import azkaban.utils.Props;
+
+public class TestInsertMethodSelector {
+
+  @Test
+  public void testSelect() {
+    Props props = new Props();
+    props.put(TD_INSERT_METHOD_FASTLOAD_MIN_BYTES_KEY, "100");
+    InsertMethodSelector selector = new InsertMethodSelector(props);
+
+    Assert.assertEquals(INTERNAL_FASTLOAD, selector.select(100L, Optional.of(true)));
+    Assert.assertEquals(BATCH_INSERT, selector.select(99L, Optional.of(true)));
+    Assert.assertEquals(BATCH_INSERT, selector.select(1000L, Optional.of(false)));
+    Assert.assertEquals(BATCH_INSERT, selector.select(1000L, Optional.<Boolean>absent()));
+  }
+}
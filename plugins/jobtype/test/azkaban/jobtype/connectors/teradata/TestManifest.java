@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import azkaban.jobtype.javautils.FileUtils;
+
+public class TestManifest {
+  private File tmpDir;
+  private FileSystem fs;
+  private Manifest manifest;
+
+  @Before
+  public void setup() throws IOException {
+    tmpDir = Files.createTempDirectory("manifest").toFile();
+    fs = FileSystem.getLocal(new Configuration());
+    manifest = new Manifest(fs, new Path(new File(tmpDir, "_manifest").toURI()));
+  }
+
+  @After
+  public void cleanup() {
+    FileUtils.tryDeleteFileOrDirectory(tmpDir);
+  }
+
+  @Test
+  public void testNewOrChanged() throws IOException {
+    FileStatus first = createFile("part-m-00000", "1\ta\n");
+    FileStatus second = createFile("part-m-00001", "2\tb\n");
+    List<FileStatus> files = Arrays.asList(first, second);
+    Assert.assertEquals(files, manifest.getNewOrChanged(files));
+
+    manifest.write(Collections.singletonList(first));
+    Assert.assertEquals(Collections.singletonList(second), manifest.getNewOrChanged(files));
+
+    manifest.write(files);
+    Assert.assertTrue(manifest.getNewOrChanged(files).isEmpty());
+
+    Files.write(new File(tmpDir, "part-m-00000").toPath(), "3\tc\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+    FileStatus appended = fs.getFileStatus(first.getPath());
+    Assert.assertEquals(Collections.singletonList(appended),
+                        manifest.getNewOrChanged(Arrays.asList(appended, second)));
+  }
+
+  private FileStatus createFile(String name, String content) throws IOException {
+    File file = new File(tmpDir, name);
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return fs.getFileStatus(new Path(file.toURI()));
+  }
+}
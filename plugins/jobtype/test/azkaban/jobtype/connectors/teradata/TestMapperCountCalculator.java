@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+
+import azkaban.utils.Props;
+
+public class TestMapperCountCalculator {
+  private Props props;
+
+  @Before
+  public void setup() {
+    props = new Props();
+    props.put(TD_NUM_MAPPERS_BYTES_PER_MAPPER_KEY, "100");
+    props.put(TD_NUM_MAPPERS_MIN_KEY, "2");
+    props.put(TD_NUM_MAPPERS_MAX_KEY, "10");
+  }
+
+  @Test
+  public void testFromInputSize() {
+    MapperCountCalculator calculator = new MapperCountCalculator(props);
+    Assert.assertEquals(2, calculator.fromInputSize(0L));
+    Assert.assertEquals(2, calculator.fromInputSize(150L));
+    Assert.assertEquals(3, calculator.fromInputSize(201L));
+    Assert.assertEquals(10, calculator.fromInputSize(100000L));
+  }
+
+  @Test
+  public void testSessionLimit() {
+    props.put(TD_SESSION_LIMIT_KEY, "4");
+    MapperCountCalculator calculator = new MapperCountCalculator(props);
+    Assert.assertEquals(3, calculator.fromInputSize(300L));
+    Assert.assertEquals(4, calculator.fromInputSize(100000L));
+  }
+
+  @Test
+  public void testFromTeradata() {
+    MapperCountCalculator calculator = new MapperCountCalculator(props);
+    Assert.assertEquals(7, calculator.fromTeradata(Optional.of(700L), 100, false));
+    //7 mappers by size read 15 AMPs each except the last one.
+    Assert.assertEquals(7, calculator.fromTeradata(Optional.of(700L), 100, true));
+    //8 mappers by size read 3 AMPs at most, which 7 mappers also do.
+    Assert.assertEquals(7, calculator.fromTeradata(Optional.of(800L), 20, true));
+    Assert.assertEquals(3, calculator.fromTeradata(Optional.of(100000L), 3, true));
+    Assert.assertEquals(DEFAULT_NO_MAPPERS, calculator.fromTeradata(Optional.<Long>absent(), 100, false));
+  }
+
+  @Test
+  public void testIsAuto() {
+    Assert.assertTrue(MapperCountCalculator.isAuto("auto"));
+    Assert.assertTrue(MapperCountCalculator.isAuto(" AUTO "));
+    Assert.assertFalse(MapperCountCalculator.isAuto("8"));
+    Assert.assertFalse(MapperCountCalculator.isAuto(null));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRange() {
+    props.put(TD_NUM_MAPPERS_MIN_KEY, "20");
+    new MapperCountCalculator(props);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static org.mockito.Mockito.*;
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+
+import azkaban.jobtype.connectors.jdbc.JdbcCommands;
+import azkaban.jobtype.connectors.teradata.RetrieveMethodSelector.RetrieveMethod;
+import azkaban.utils.Props;
+
+public class TestRetrieveMethodSelector {
+  private static final Optional<String> DB = Optional.of("db");
+  private static final String TABLE = "tbl";
+  private static final int AMP_COUNT = 10;
+
+  private RetrieveMethodSelector selector;
+  private JdbcCommands commands;
+
+  @Before
+  public void setup() {
+    Props props = new Props();
+    props.put(TD_RETRIEVE_METHOD_MIN_ROWS_PER_AMP_KEY, "100");
+    selector = new RetrieveMethodSelector(props);
+
+    commands = mock(JdbcCommands.class);
+    doReturn(Arrays.asList("id")).when(commands).getPrimaryIndexColumns(TABLE, DB);
+    doReturn(Optional.of(Types.BIGINT)).when(commands).getColumnType(TABLE, DB, "id");
+    doReturn(Optional.of(1000000L)).when(commands).getRowCount(TABLE, DB);
+  }
+
+  @Test
+  public void testPartitioned() {
+    doReturn(true).when(commands).isPartitioned(TABLE, DB);
+    assertSelected(SPLIT_BY_PARTITION, Optional.<String>absent());
+  }
+
+  @Test
+  public void testLargeTable() {
+    assertSelected(SPLIT_BY_AMP, Optional.<String>absent());
+
+    doReturn(Optional.absent()).when(commands).getRowCount(TABLE, DB);
+    assertSelected(SPLIT_BY_AMP, Optional.<String>absent());
+  }
+
+  @Test
+  public void testSmallTable() {
+    doReturn(Optional.of(999L)).when(commands).getRowCount(TABLE, DB);
+    assertSelected(SPLIT_BY_VALUE, Optional.of("id"));
+
+    doReturn(Optional.of(Types.VARCHAR)).when(commands).getColumnType(TABLE, DB, "id");
+    assertSelected(SPLIT_BY_HASH, Optional.of("id"));
+
+    doReturn(Arrays.asList("id", "dt")).when(commands).getPrimaryIndexColumns(TABLE, DB);
+    assertSelected(SPLIT_BY_HASH, Optional.of("id,dt"));
+
+    //No primary index
+    doReturn(Collections.emptyList()).when(commands).getPrimaryIndexColumns(TABLE, DB);
+    assertSelected(SPLIT_BY_AMP, Optional.<String>absent());
+  }
+
+  private void assertSelected(String method, Optional<String> splitByColumn) {
+    RetrieveMethod selected = selector.select(commands, TABLE, DB, AMP_COUNT);
+    Assert.assertEquals(method, selected.getMethod());
+    Assert.assertEquals(splitByColumn, selected.getSplitByColumn());
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import azkaban.jobtype.javautils.FileUtils;
+
+public class TestTeraDataWalletInitializer {
+  private File tmpDir;
+
+  @Before
+  public void setup() throws IOException {
+    tmpDir = Files.createTempDirectory("tdwallet").toFile();
+  }
+
+  @After
+  public void cleanup() {
+    FileUtils.tryDeleteFileOrDirectory(tmpDir);
+  }
+
+  @Test
+  public void testReuseExtractedDir() throws IOException {
+    File jar = createJar(new File(tmpDir, "tdch.jar"), "v1");
+
+    File extracted = TeraDataWalletInitializer.getOrExtract(tmpDir, jar);
+    Assert.assertEquals("v1", read(new File(extracted, "lib/version.txt")));
+    Assert.assertTrue(new File(extracted, "com/teradata/Tool.class").isFile());
+
+    //Marker is kept as the directory is reused instead of being extracted again.
+    File marker = new File(extracted, "marker");
+    Assert.assertTrue(marker.createNewFile());
+    Assert.assertEquals(extracted, TeraDataWalletInitializer.getOrExtract(tmpDir, jar));
+    Assert.assertTrue(marker.exists());
+
+    File updated = TeraDataWalletInitializer.getOrExtract(tmpDir, createJar(jar, "v2"));
+    Assert.assertFalse(extracted.equals(updated));
+    Assert.assertEquals("v2", read(new File(updated, "lib/version.txt")));
+  }
+
+  @Test
+  public void testInitializeAsync() throws IOException, TimeoutException {
+    File jar = createJar(new File(tmpDir, "tdch.jar"), "v1");
+    TeraDataWalletInitializer.initializeAsync(tmpDir, jar);
+    //Second call does not start another extraction.
+    TeraDataWalletInitializer.initializeAsync(tmpDir, jar);
+
+    String folder = TeraDataWalletInitializer.getTdchUnjarFolder(1L, TimeUnit.MINUTES);
+    Assert.assertEquals("v1", read(new File(folder, "lib/version.txt")));
+    Assert.assertEquals(folder, TeraDataWalletInitializer.getTdchUnjarFolder());
+  }
+
+  @Test
+  public void testStaleTempDirDeleted() throws IOException {
+    File jar = createJar(new File(tmpDir, "tdch.jar"), "v1");
+    File stale = new File(tmpDir, "unjar_tdch_cache/.tmp_stale");
+    Assert.assertTrue(stale.mkdirs());
+
+    TeraDataWalletInitializer.getOrExtract(tmpDir, jar);
+    Assert.assertFalse(stale.exists());
+  }
+
+  @Test
+  public void testParallelExtract() throws IOException {
+    File jar = new File(tmpDir, "many.jar");
+    try (JarOutputStream os = new JarOutputStream(new FileOutputStream(jar))) {
+      for (int i = 0; i < 100; i++) {
+        os.putNextEntry(new JarEntry("dir" + (i % 7) + "/sub/file" + i + ".txt"));
+        os.write(("content " + i).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    File dest = new File(tmpDir, "dest");
+    TeraDataWalletInitializer.extract(jar, dest, 4);
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals("content " + i, read(new File(dest, "dir" + (i % 7) + "/sub/file" + i + ".txt")));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testEntryOutsideOfTargetDir() throws IOException {
+    File jar = new File(tmpDir, "evil.jar");
+    try (JarOutputStream os = new JarOutputStream(new FileOutputStream(jar))) {
+      os.putNextEntry(new JarEntry("../evil.txt"));
+      os.write(1);
+    }
+    TeraDataWalletInitializer.extract(jar, new File(tmpDir, "dest"), 4);
+  }
+
+  private static File createJar(File jar, String version) throws IOException {
+    try (JarOutputStream os = new JarOutputStream(new FileOutputStream(jar))) {
+      os.putNextEntry(new JarEntry("lib/"));
+      os.putNextEntry(new JarEntry("lib/version.txt"));
+      os.write(version.getBytes(StandardCharsets.UTF_8));
+      //Without directory entry.
+      os.putNextEntry(new JarEntry("com/teradata/Tool.class"));
+      os.write(new byte[128]);
+    }
+    return jar;
+  }
+
+  private static String read(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static org.mockito.Mockito.*;
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+
+import azkaban.crypto.Decryptions;
+import azkaban.jobtype.connectors.jdbc.JdbcCommands;
+import azkaban.jobtype.javautils.FileUtils;
+
+public class TestTeradataToHdfs {
+
+  private Properties properties;
+  private Decryptions decryptions;
+  private JdbcCommands commands;
+
+  @Before
+  public void initialize() throws IOException {
+    properties = new Properties();
+    properties.put(TD_HOSTNAME_KEY, "test");
+    properties.put(TD_USERID_KEY, "test");
+    properties.put(TD_ENCRYPTED_CREDENTIAL_KEY, "test");
+    properties.put(TD_CRYPTO_KEY_PATH_KEY, "test");
+    properties.put(AVRO_SCHEMA_PATH_KEY, "test");
+    properties.put(SOURCE_TD_TABLE_NAME_KEY, "db.source_table");
+    properties.put(TARGET_HDFS_PATH_KEY, "test");
+    properties.put(LIB_JARS_KEY, "test");
+
+    decryptions = mock(Decryptions.class);
+    when(decryptions.decrypt(any(), any(), any())).thenReturn("password");
+    commands = mock(JdbcCommands.class);
+  }
+
+  @Test
+  public void testNumMappers() throws FileNotFoundException, IOException, InterruptedException {
+    properties.put(TD_NUM_MAPPERS, "20");
+
+    TeradataToHdfsJobRunnerMain job = newJob();
+    job.run();
+
+    Assert.assertEquals(20, job.getParams().getNumMappers());
+    verify(job, never()).newConnection();
+  }
+
+  @Test
+  public void testAutoNumMappers() throws FileNotFoundException, IOException, InterruptedException {
+    properties.put(TD_NUM_MAPPERS, AUTO);
+    properties.put(TD_NUM_MAPPERS_BYTES_PER_MAPPER_KEY, "100");
+    doReturn(Optional.of(1000L)).when(commands).getTableSize("source_table", Optional.of("db"));
+    doReturn(24).when(commands).getAmpCount();
+
+    TeradataToHdfsJobRunnerMain job = newJob();
+    job.run();
+
+    //10 mappers by size, aligned into 8 mappers reading 3 AMPs each.
+    Assert.assertEquals(8, job.getParams().getNumMappers());
+  }
+
+  @Test
+  public void testAutoNumMappersWithSourceQuery() throws FileNotFoundException, IOException, InterruptedException {
+    properties.remove(SOURCE_TD_TABLE_NAME_KEY);
+    properties.put(SOURCE_TD_QUERY_NAME_KEY, "SELECT * FROM db.source_table");
+    properties.put(TD_NUM_MAPPERS, AUTO);
+    properties.put(TD_NUM_MAPPERS_MAX_KEY, "4");
+    doReturn(24).when(commands).getAmpCount();
+
+    TeradataToHdfsJobRunnerMain job = newJob();
+    job.run();
+
+    Assert.assertEquals(4, job.getParams().getNumMappers());
+    verify(commands, never()).getTableSize(any(), any());
+  }
+
+  @Test
+  public void testAutoRetrieveMethod() throws FileNotFoundException, IOException, InterruptedException {
+    properties.put(TD_RETRIEVE_METHOD_KEY, AUTO);
+    doReturn(true).when(commands).isPartitioned("source_table", Optional.of("db"));
+    doReturn(24).when(commands).getAmpCount();
+
+    TeradataToHdfsJobRunnerMain job = newJob();
+    Assert.assertEquals(SPLIT_BY_AMP, job.getParams().getTdRetrieveMethod().get());
+    job.run();
+
+    Assert.assertEquals(SPLIT_BY_PARTITION, job.getParams().getTdRetrieveMethod().get());
+    Assert.assertEquals(DEFAULT_NO_MAPPERS, job.getParams().getNumMappers());
+    Assert.assertTrue(Arrays.asList(job.getParams().toTdchParams()).contains(SPLIT_BY_PARTITION));
+  }
+
+  @Test
+  public void testDirectExtract() throws FileNotFoundException, IOException, InterruptedException {
+    properties.put(DIRECT_EXTRACT_KEY, Boolean.toString(true));
+    properties.put(TD_NUM_MAPPERS, AUTO);
+
+    TeradataToHdfsJobRunnerMain job = newJob();
+    doNothing().when(job).extractDirectly();
+    job.run();
+
+    verify(job, times(1)).extractDirectly();
+    verify(job, never()).copyTdToHdfs();
+    verify(job, never()).newConnection();
+  }
+
+  @Test
+  public void testDirectExtractBySize() throws FileNotFoundException, IOException, InterruptedException {
+    properties.put(DIRECT_EXTRACT_MAX_BYTES_KEY, "1000");
+    doReturn(Optional.of(999L)).when(commands).getTableSize("source_table", Optional.of("db"));
+
+    TeradataToHdfsJobRunnerMain job = newJob();
+    doNothing().when(job).extractDirectly();
+    job.run();
+
+    verify(job, times(1)).extractDirectly();
+    verify(job, never()).copyTdToHdfs();
+  }
+
+  @Test
+  public void testDirectExtractWithLargeTable() throws FileNotFoundException, IOException, InterruptedException {
+    properties.put(DIRECT_EXTRACT_MAX_BYTES_KEY, "1000");
+    doReturn(Optional.of(1000L)).when(commands).getTableSize("source_table", Optional.of("db"));
+    doReturn(24).when(commands).getAmpCount();
+
+    TeradataToHdfsJobRunnerMain job = newJob();
+    job.run();
+
+    verify(job, never()).extractDirectly();
+    verify(job, times(1)).copyTdToHdfs();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDirectExtractWithHive() throws FileNotFoundException, IOException {
+    properties.put(DIRECT_EXTRACT_KEY, Boolean.toString(true));
+    properties.put(TDCH_JOB_TYPE, TDCH_HIVE_JOB_TYPE);
+    new TeradataToHdfsJobRunnerMain(properties, decryptions);
+  }
+
+  @Test
+  public void testIncremental() throws FileNotFoundException, IOException, InterruptedException {
+    File tmpDir = Files.createTempDirectory("incremental").toFile();
+    try {
+      File target = new File(tmpDir, "target");
+      properties.put(TARGET_HDFS_PATH_KEY, target.toURI().toString());
+      properties.put(INCREMENTAL_COLUMN_KEY, "id");
+      doReturn(Optional.of(Types.BIGINT)).when(commands).getColumnType("source_table", Optional.of("db"), "id");
+      doReturn(Optional.of("100")).when(commands).getMaxValue("source_table", Optional.of("db"), "id");
+
+      TeradataToHdfsJobRunnerMain job = newJob();
+      job.run();
+      Assert.assertEquals("SELECT * FROM db.source_table WHERE id <= 100", job.getParams().getSourceQuery().get());
+      Assert.assertFalse(job.getParams().getSourceTdTableName().isPresent());
+      Path output = new Path(job.getParams().getTargetHdfsPath());
+      Assert.assertEquals(new Path(target.toURI()), output.getParent());
+      Assert.assertEquals(output.toString(), job.getOutputProperties().get(INCREMENTAL_TARGET_PATH_OUTPUT_KEY));
+      Assert.assertEquals("100", job.getOutputProperties().get(INCREMENTAL_WATERMARK_OUTPUT_KEY));
+
+      //Failed run does not advance the watermark.
+      doReturn(Optional.of("200")).when(commands).getMaxValue("source_table", Optional.of("db"), "id");
+      job = newJob();
+      doThrow(new RuntimeException("test")).when(job).copyTdToHdfs();
+      try {
+        job.run();
+        Assert.fail("Should fail");
+      } catch (RuntimeException e) {
+        Assert.assertTrue(job.getOutputProperties().isEmpty());
+      }
+
+      job = newJob();
+      job.run();
+      Assert.assertEquals("SELECT * FROM db.source_table WHERE id > 100 AND id <= 200",
+                          job.getParams().getSourceQuery().get());
+      Assert.assertEquals("200", job.getOutputProperties().get(INCREMENTAL_WATERMARK_OUTPUT_KEY));
+
+      //No new rows.
+      job = newJob();
+      job.run();
+      verify(job, never()).copyTdToHdfs();
+      Assert.assertNull(job.getOutputProperties().get(INCREMENTAL_TARGET_PATH_OUTPUT_KEY));
+
+      //Maximum below the watermark, e.g. after rows are deleted.
+      doReturn(Optional.of("99")).when(commands).getMaxValue("source_table", Optional.of("db"), "id");
+      job = newJob();
+      job.run();
+      verify(job, never()).copyTdToHdfs();
+      Assert.assertEquals("200", job.getOutputProperties().get(INCREMENTAL_WATERMARK_OUTPUT_KEY));
+
+      doReturn(Optional.of("300")).when(commands).getMaxValue("source_table", Optional.of("db"), "id");
+      job = newJob();
+      job.run();
+      Assert.assertEquals("SELECT * FROM db.source_table WHERE id > 200 AND id <= 300",
+                          job.getParams().getSourceQuery().get());
+    } finally {
+      FileUtils.tryDeleteFileOrDirectory(tmpDir);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIncrementalWithOverwrite() throws FileNotFoundException, IOException {
+    properties.put(INCREMENTAL_COLUMN_KEY, "id");
+    properties.put("force.output.overwrite", Boolean.toString(true));
+    new TeradataToHdfsJobRunnerMain(properties, decryptions);
+  }
+
+  @Test
+  public void testSkipIfUnchanged() throws FileNotFoundException, IOException, InterruptedException {
+    File tmpDir = Files.createTempDirectory("fingerprint").toFile();
+    try {
+      File target = new File(tmpDir, "target");
+      Assert.assertTrue(target.mkdir());
+      properties.put(TARGET_HDFS_PATH_KEY, target.toURI().toString());
+      properties.put(SKIP_IF_UNCHANGED_KEY, Boolean.toString(true));
+      doReturn(Optional.of("2017-01-01 00:00:00")).when(commands).getLastAlterTimestamp("source_table",
+                                                                                         Optional.of("db"));
+      doReturn(10L).when(commands).countRows("source_table", Optional.of("db"));
+
+      TeradataToHdfsJobRunnerMain job = newJob();
+      job.run();
+      verify(job, times(1)).copyTdToHdfs();
+      Assert.assertEquals("false", job.getOutputProperties().get(SKIPPED_OUTPUT_KEY));
+
+      job = newJob();
+      job.run();
+      verify(job, never()).copyTdToHdfs();
+      Assert.assertEquals("true", job.getOutputProperties().get(SKIPPED_OUTPUT_KEY));
+
+      //Failed run does not update the fingerprint.
+      doReturn(11L).when(commands).countRows("source_table", Optional.of("db"));
+      job = newJob();
+      doThrow(new RuntimeException("test")).when(job).copyTdToHdfs();
+      try {
+        job.run();
+        Assert.fail("Should fail");
+      } catch (RuntimeException e) {
+        Assert.assertEquals("test", e.getMessage());
+      }
+
+      job = newJob();
+      job.run();
+      verify(job, times(1)).copyTdToHdfs();
+      Assert.assertEquals("false", job.getOutputProperties().get(SKIPPED_OUTPUT_KEY));
+
+      //Target removed since the last run.
+      FileUtils.tryDeleteFileOrDirectory(target);
+      job = newJob();
+      job.run();
+      verify(job, times(1)).copyTdToHdfs();
+    } finally {
+      FileUtils.tryDeleteFileOrDirectory(tmpDir);
+    }
+  }
+
+  @Test
+  public void testSkipIfUnchangedWithFingerprintQuery()
+      throws FileNotFoundException, IOException, InterruptedException {
+    File tmpDir = Files.createTempDirectory("fingerprint").toFile();
+    try {
+      File target = new File(tmpDir, "target");
+      Assert.assertTrue(target.mkdir());
+      properties.remove(SOURCE_TD_TABLE_NAME_KEY);
+      properties.put(SOURCE_TD_QUERY_NAME_KEY, "SELECT * FROM db.source_table WHERE dt = DATE");
+      properties.put(TARGET_HDFS_PATH_KEY, target.toURI().toString());
+      properties.put(SKIP_IF_UNCHANGED_KEY, Boolean.toString(true));
+      properties.put(FINGERPRINT_QUERY_KEY, "SELECT MAX(updated_at), COUNT(*) FROM db.source_table");
+      doReturn(Arrays.asList("2017-01-01 00:00:00", "10")).when(commands).getFirstRow(
+          "SELECT MAX(updated_at), COUNT(*) FROM db.source_table");
+
+      TeradataToHdfsJobRunnerMain job = newJob();
+      job.run();
+      verify(job, times(1)).copyTdToHdfs();
+
+      job = newJob();
+      job.run();
+      verify(job, never()).copyTdToHdfs();
+      Assert.assertEquals("true", job.getOutputProperties().get(SKIPPED_OUTPUT_KEY));
+      verify(commands, never()).countRows(any(), any());
+    } finally {
+      FileUtils.tryDeleteFileOrDirectory(tmpDir);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSkipIfUnchangedWithoutFingerprintQuery() throws FileNotFoundException, IOException {
+    properties.remove(SOURCE_TD_TABLE_NAME_KEY);
+    properties.put(SOURCE_TD_QUERY_NAME_KEY, "SELECT * FROM db.source_table");
+    properties.put(SKIP_IF_UNCHANGED_KEY, Boolean.toString(true));
+    new TeradataToHdfsJobRunnerMain(properties, decryptions);
+  }
+
+  private TeradataToHdfsJobRunnerMain newJob() throws IOException {
+    TeradataToHdfsJobRunnerMain job = spy(new TeradataToHdfsJobRunnerMain(properties, decryptions));
+    doReturn(mock(Connection.class)).when(job).newConnection();
+    doReturn(commands).when(job).newTeradataCommands(any());
+    doNothing().when(job).copyTdToHdfs();
+    return job;
+  }
+}
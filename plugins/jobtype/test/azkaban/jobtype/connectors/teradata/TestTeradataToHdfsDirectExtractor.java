@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import static org.mockito.Mockito.*;
+import static azkaban.jobtype.connectors.teradata.TdchConstants.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.base.Optional;
+
+import azkaban.jobtype.javautils.FileUtils;
+import azkaban.utils.Props;
+
+public class TestTeradataToHdfsDirectExtractor {
+  private static final int ROWS = 2500;
+
+  private File tmpDir;
+  private File target;
+  private FileSystem fs;
+  private Connection conn;
+  private PreparedStatement stmt;
+  private TeradataToHdfsDirectExtractor extractor;
+
+  @Before
+  public void setup() throws IOException, SQLException {
+    tmpDir = Files.createTempDirectory("directextract").toFile();
+    target = new File(tmpDir, "target");
+    fs = FileSystem.getLocal(new Configuration());
+    conn = mock(Connection.class);
+    stmt = mock(PreparedStatement.class);
+    when(conn.prepareStatement("SELECT * FROM db.tbl")).thenReturn(stmt);
+    ResultSet res = newResultSet(ROWS);
+    when(stmt.executeQuery()).thenReturn(res);
+
+    Properties properties = new Properties();
+    properties.put(DIRECT_EXTRACT_WRITERS_KEY, "3");
+    extractor = new TeradataToHdfsDirectExtractor(new Props(null, properties));
+  }
+
+  @After
+  public void cleanup() {
+    FileUtils.tryDeleteFileOrDirectory(tmpDir);
+  }
+
+  @Test
+  public void testExtractText() throws IOException, SQLException, InterruptedException {
+    long rows = extractor.extract(conn, "SELECT * FROM db.tbl", fs, new Path(target.toURI()), TEXT_FILE_FORMAT, ",",
+                                  Optional.<Schema>absent());
+    Assert.assertEquals(ROWS, rows);
+    //FastExport is only used for a SELECT of PreparedStatement.
+    verify(conn).prepareStatement("SELECT * FROM db.tbl");
+    verify(stmt).setFetchSize(DEFAULT_DIRECT_EXTRACT_FETCH_SIZE);
+    verify(stmt).executeQuery();
+
+    Set<String> lines = new TreeSet<>();
+    List<File> files = listPartFiles(target);
+    Assert.assertEquals(3, files.size());
+    for (File file : files) {
+      lines.addAll(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+    }
+    Assert.assertEquals(ROWS, lines.size());
+    Assert.assertTrue(lines.contains("2,name2"));
+    Assert.assertTrue(lines.contains("0,"));
+    //Temporary directory is renamed into the target.
+    Assert.assertEquals(1, tmpDir.listFiles().length);
+  }
+
+  @Test
+  public void testExtractAvro() throws IOException, SQLException, InterruptedException {
+    Schema schema = SchemaBuilder.record("test").fields().requiredLong("id").optionalString("name").endRecord();
+    long rows = extractor.extract(conn, "SELECT * FROM db.tbl", fs, new Path(target.toURI()), AVRO_FILE_FORMAT,
+                                  DEFAULT_FIELD_SEPARATOR, Optional.of(schema));
+    Assert.assertEquals(ROWS, rows);
+
+    long read = 0L;
+    for (File file : listPartFiles(target)) {
+      Assert.assertTrue(file.getName().endsWith(".avro"));
+      try (DataFileReader<GenericRecord> reader =
+               new DataFileReader<>(file, new GenericDatumReader<GenericRecord>())) {
+        for (GenericRecord record : reader) {
+          long id = (Long) record.get("id");
+          Object name = record.get("name");
+          Assert.assertEquals(id == 0 ? null : "name" + id, name == null ? null : name.toString());
+          read++;
+        }
+      }
+    }
+    Assert.assertEquals(ROWS, read);
+  }
+
+  @Test
+  public void testExistingTarget() throws SQLException, InterruptedException {
+    Assert.assertTrue(target.mkdirs());
+    try {
+      extractor.extract(conn, "SELECT * FROM db.tbl", fs, new Path(target.toURI()), TEXT_FILE_FORMAT, ",",
+                        Optional.<Schema>absent());
+      Assert.fail("Should fail on existing target.");
+    } catch (IOException e) {
+      verify(conn, never()).prepareStatement(anyString());
+    }
+  }
+
+  @Test
+  public void testWriterFailure() throws SQLException, InterruptedException {
+    //Avro schema with a type that id cannot be converted into.
+    Schema schema = SchemaBuilder.record("test").fields().requiredBytes("id").optionalString("name").endRecord();
+    try {
+      extractor.extract(conn, "SELECT * FROM db.tbl", fs, new Path(target.toURI()), AVRO_FILE_FORMAT,
+                        DEFAULT_FIELD_SEPARATOR, Optional.of(schema));
+      Assert.fail("Should fail on conversion.");
+    } catch (IOException e) {
+      Assert.assertFalse(target.exists());
+      Assert.assertEquals(0, tmpDir.listFiles().length);
+    }
+  }
+
+  /**
+   * Part files, without checksum files of local file system.
+   */
+  private static List<File> listPartFiles(File dir) {
+    List<File> files = new ArrayList<>();
+    for (File file : dir.listFiles()) {
+      if (!file.getName().startsWith(".")) {
+        files.add(file);
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Result set of id and name, where name is null for id 0.
+   */
+  private static ResultSet newResultSet(int rowCount) throws SQLException {
+    final List<Object[]> rows = new ArrayList<>();
+    for (long i = 0; i < rowCount; i++) {
+      rows.add(new Object[] { i, i == 0 ? null : "name" + i });
+    }
+    Collections.shuffle(rows);
+    final int[] cursor = { -1 };
+
+    ResultSet res = mock(ResultSet.class);
+    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(metaData.getColumnCount()).thenReturn(2);
+    when(res.getMetaData()).thenReturn(metaData);
+    when(res.next()).thenAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocation) {
+        return ++cursor[0] < rows.size();
+      }
+    });
+    when(res.getObject(anyInt())).thenAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) {
+        return rows.get(cursor[0])[(Integer) invocation.getArguments()[0] - 1];
+      }
+    });
+    return res;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package azkaban.jobtype.connectors.teradata;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Types;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Optional;
+
+import azkaban.jobtype.javautils.FileUtils;
+
+public class TestWatermark {
+  private File tmpDir;
+  private FileSystem fs;
+  private Path statePath;
+
+  @Before
+  public void setup() throws IOException {
+    tmpDir = Files.createTempDirectory("watermark").toFile();
+    fs = FileSystem.getLocal(new Configuration());
+    statePath = Watermark.getStatePath(new Path(new File(tmpDir, "target").toURI()));
+  }
+
+  @After
+  public void cleanup() {
+    FileUtils.tryDeleteFileOrDirectory(tmpDir);
+  }
+
+  @Test
+  public void testReadWrite() throws IOException {
+    Assert.assertEquals("_target.watermark", statePath.getName());
+    Watermark watermark = new Watermark(fs, statePath, "updated_at");
+    Assert.assertFalse(watermark.read().isPresent());
+
+    watermark.write("2017-01-01 00:00:00.000000");
+    Assert.assertEquals(Optional.of("2017-01-01 00:00:00.000000"), watermark.read());
+    watermark.write("2017-01-02 00:00:00.000000");
+    Assert.assertEquals(Optional.of("2017-01-02 00:00:00.000000"),
+                        new Watermark(fs, statePath, "UPDATED_AT").read());
+  }
+
+  @Test
+  public void testInterruptedWrite() throws IOException {
+    Watermark watermark = new Watermark(fs, statePath, "id");
+    watermark.write("100");
+    //As if the job died after deleting the old state.
+    Assert.assertTrue(fs.rename(statePath, statePath.suffix(".tmp")));
+    Assert.assertEquals(Optional.of("100"), watermark.read());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOtherColumn() throws IOException {
+    new Watermark(fs, statePath, "id").write("100");
+    new Watermark(fs, statePath, "updated_at").read();
+  }
+
+  @Test
+  public void testPredicate() {
+    Assert.assertEquals("id <= 100", Watermark.toPredicate("id", Types.BIGINT, Optional.<String>absent(), "100"));
+    Assert.assertEquals("id > 100 AND id <= 200",
+                        Watermark.toPredicate("id", Types.INTEGER, Optional.of("100"), " 200"));
+    Assert.assertEquals("dt > DATE '2017-01-01' AND dt <= DATE '2017-01-02'",
+                        Watermark.toPredicate("dt", Types.DATE, Optional.of("2017-01-01"), "2017-01-02"));
+    Assert.assertEquals("ts <= TIMESTAMP '2017-01-01 00:00:00.000000'",
+                        Watermark.toPredicate("ts", Types.TIMESTAMP, Optional.<String>absent(),
+                                              "2017-01-01 00:00:00.000000"));
+    Assert.assertEquals("name <= 'O''Neil'",
+                        Watermark.toPredicate("name", Types.VARCHAR, Optional.<String>absent(), "O'Neil"));
+  }
+
+  @Test
+  public void testCompare() {
+    Assert.assertTrue(Watermark.compare("99", "100", Types.BIGINT) < 0);
+    Assert.assertEquals(0, Watermark.compare("1.50", "1.5", Types.DECIMAL));
+    Assert.assertTrue(Watermark.compare("2017-01-10", "2017-01-09", Types.DATE) > 0);
+    Assert.assertTrue(Watermark.compare("2017-01-01 00:00:00.5", "2017-01-01 00:00:00.400000", Types.TIMESTAMP) > 0);
+    Assert.assertTrue(Watermark.compare("a", "b", Types.VARCHAR) < 0);
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testInvalidNumber() {
+    Watermark.toPredicate("id", Types.INTEGER, Optional.<String>absent(), "1 OR 1=1");
+  }
+}